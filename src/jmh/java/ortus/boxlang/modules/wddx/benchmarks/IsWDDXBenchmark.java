@@ -0,0 +1,76 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ortus.boxlang.modules.wddx.bifs.IsWDDX;
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.scopes.Key;
+
+/**
+ * Throughput of the isWDDX check, with and without strict validation, for a WDDX packet, a non-WDDX XML document and
+ * plain text
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class IsWDDXBenchmark {
+
+	@Param( { "packet", "xml", "text" } )
+	public String			input;
+
+	@Param( { "false", "true" } )
+	public boolean			strict;
+
+	private IsWDDX			bif;
+	private IBoxContext		context;
+	private ArgumentsScope	arguments;
+
+	@Setup
+	public void setup() {
+		context		= BoxRuntime.getInstance( true ).getRuntimeContext();
+		bif			= new IsWDDX();
+		arguments	= new ArgumentsScope();
+		arguments.put( Key.value, switch ( input ) {
+			case "packet" -> WDDXUtil.serialize( Payloads.of( Payloads.RECORDSET ) );
+			case "xml" -> "<root>" + "<item>value</item>".repeat( 10_000 ) + "</root>";
+			default -> "user=jdoe&session=" + "x".repeat( 512 );
+		} );
+		arguments.put( WDDXKeys.strict, strict );
+	}
+
+	@Benchmark
+	public Object isWDDX() {
+		return bif._invoke( context, arguments );
+	}
+
+}
@@ -0,0 +1,147 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.benchmarks;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.QueryColumnType;
+import ortus.boxlang.runtime.types.Struct;
+
+/**
+ * The representative payload shapes shared by the benchmarks
+ */
+public class Payloads {
+
+	/**
+	 * The payload shapes, as used by the benchmark `shape` parameters
+	 */
+	public static final String	DEEP_STRUCT	= "deepStruct";
+	public static final String	WIDE_ARRAY	= "wideArray";
+	public static final String	RECORDSET	= "recordset";
+	public static final String	STRINGS		= "strings";
+	public static final String	DATES		= "dates";
+
+	private Payloads() {
+	}
+
+	/**
+	 * Builds the payload for a shape
+	 *
+	 * @param shape one of the shape constants
+	 *
+	 * @return the payload
+	 */
+	public static Object of( String shape ) {
+		return switch ( shape ) {
+			case DEEP_STRUCT -> deepStruct( 64, 8 );
+			case WIDE_ARRAY -> wideArray( 10_000 );
+			case RECORDSET -> recordset( 5_000, 12 );
+			case STRINGS -> strings( 2_000 );
+			case DATES -> dates( 2_000 );
+			default -> throw new IllegalArgumentException( "Unknown payload shape: " + shape );
+		};
+	}
+
+	/**
+	 * A chain of nested structs, each level carrying a few simple values
+	 */
+	public static IStruct deepStruct( int depth, int width ) {
+		IStruct	root	= new Struct();
+		IStruct	level	= root;
+		for ( int d = 0; d < depth; d++ ) {
+			for ( int w = 0; w < width; w++ ) {
+				level.put( Key.of( "key" + w ), w % 2 == 0 ? "value" + w : w );
+			}
+			IStruct child = new Struct();
+			level.put( Key.of( "child" ), child );
+			level = child;
+		}
+		return root;
+	}
+
+	/**
+	 * A flat array of mixed numbers, strings and booleans
+	 */
+	public static Array wideArray( int size ) {
+		Array array = new Array();
+		for ( int i = 0; i < size; i++ ) {
+			array.add( switch ( i % 3 ) {
+				case 0 -> i;
+				case 1 -> "item" + i;
+				default -> i % 2 == 0;
+			} );
+		}
+		return array;
+	}
+
+	/**
+	 * A query with integer, varchar, double and timestamp columns
+	 */
+	public static Query recordset( int rows, int columns ) {
+		Query				query	= new Query();
+		QueryColumnType[]	types	= { QueryColumnType.INTEGER, QueryColumnType.VARCHAR, QueryColumnType.DOUBLE, QueryColumnType.TIMESTAMP };
+		for ( int c = 0; c < columns; c++ ) {
+			query.addColumn( Key.of( "col" + c ), types[ c % types.length ] );
+		}
+		ZonedDateTime start = ZonedDateTime.of( 2024, 1, 1, 0, 0, 0, 0, ZoneId.of( "UTC" ) );
+		for ( int r = 0; r < rows; r++ ) {
+			Object[] row = new Object[ columns ];
+			for ( int c = 0; c < columns; c++ ) {
+				row[ c ] = switch ( c % types.length ) {
+					case 0 -> r;
+					case 1 -> "row " + r + " & col " + c;
+					case 2 -> r * 1.25d;
+					default -> new DateTime( start.plusMinutes( r ) );
+				};
+			}
+			query.addRow( row );
+		}
+		return query;
+	}
+
+	/**
+	 * A struct of long strings, some of which need XML escaping
+	 */
+	public static IStruct strings( int size ) {
+		IStruct struct = new Struct();
+		for ( int i = 0; i < size; i++ ) {
+			struct.put( Key.of( "text" + i ),
+			    i % 4 == 0 ? "<p>Tom &amp; Jerry's \"show\" #" + i + "</p>" : "Lorem ipsum dolor sit amet, consectetur adipiscing elit " + i );
+		}
+		return struct;
+	}
+
+	/**
+	 * An array of dates
+	 */
+	public static Array dates( int size ) {
+		Array			array	= new Array();
+		ZonedDateTime	start	= ZonedDateTime.of( 2024, 1, 1, 0, 0, 0, 0, ZoneId.of( "UTC" ) );
+		for ( int i = 0; i < size; i++ ) {
+			array.add( new DateTime( start.plusHours( i ) ) );
+		}
+		return array;
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.types.Query;
+
+/**
+ * Throughput of recordset serialization as the row count grows
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class SerializeQueryBenchmark {
+
+	@Param( { "100", "10000", "100000" } )
+	public int		rows;
+
+	@Param( { "12" } )
+	public int		columns;
+
+	private Query	query;
+
+	@Setup
+	public void setup() {
+		BoxRuntime.getInstance( true );
+		query = Payloads.recordset( rows, columns );
+	}
+
+	@Benchmark
+	public String serializeQuery() {
+		return WDDXUtil.serializeQuery( query );
+	}
+
+}
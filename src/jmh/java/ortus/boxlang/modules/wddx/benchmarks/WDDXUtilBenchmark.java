@@ -0,0 +1,75 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.BoxRuntime;
+
+/**
+ * Throughput of the WDDXUtil parse, serialize and translate paths over each payload shape
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+public class WDDXUtilBenchmark {
+
+	@Param( { Payloads.DEEP_STRUCT, Payloads.WIDE_ARRAY, Payloads.RECORDSET, Payloads.STRINGS, Payloads.DATES } )
+	public String	shape;
+
+	private Object	payload;
+	private String	packet;
+
+	@Setup
+	public void setup() {
+		BoxRuntime.getInstance( true );
+		payload	= Payloads.of( shape );
+		packet	= WDDXUtil.serialize( payload );
+	}
+
+	@Benchmark
+	public Object parse() {
+		return WDDXUtil.parse( packet );
+	}
+
+	@Benchmark
+	public String serialize() {
+		return WDDXUtil.serialize( payload );
+	}
+
+	@Benchmark
+	public String serializeToJavascript() {
+		return WDDXUtil.serializeToJavascript( payload, "data" );
+	}
+
+	@Benchmark
+	public String translateToJavascript() {
+		return WDDXUtil.translateToJavascript( packet, "data" );
+	}
+
+}
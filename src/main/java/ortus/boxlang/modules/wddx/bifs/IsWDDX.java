@@ -15,10 +15,12 @@
 
 package ortus.boxlang.modules.wddx.bifs;
 
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXMetrics;
+import ortus.boxlang.modules.wddx.util.WDDXValidator;
 import ortus.boxlang.runtime.bifs.BIF;
 import ortus.boxlang.runtime.bifs.BoxBIF;
 import ortus.boxlang.runtime.context.IBoxContext;
-import ortus.boxlang.runtime.dynamic.casters.GenericCaster;
 import ortus.boxlang.runtime.scopes.ArgumentsScope;
 import ortus.boxlang.runtime.scopes.Key;
 import ortus.boxlang.runtime.types.Argument;
@@ -34,7 +36,8 @@ public class IsWDDX extends BIF {
 	public IsWDDX() {
 		super();
 		declaredArguments = new Argument[] {
-		    new Argument( true, "any", Key.value )
+		    new Argument( true, "any", Key.value ),
+		    new Argument( false, "boolean", WDDXKeys.strict, false )
 		};
 	}
 
@@ -45,16 +48,19 @@ public class IsWDDX extends BIF {
 	 * @param arguments Argument scope for the BIF.
 	 *
 	 * @argument.value The value to test for WDDX-ness
+	 *
+	 * @argument.strict Whether the packet structure should be validated, rather than only the root element of a string value
 	 */
 	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
 		Object val = arguments.get( Key.value );
 		if ( val instanceof XML xmlObject ) {
 			return xmlObject.getFirstChildOfName( "wddxPacket" ) != null;
-		} else if ( GenericCaster.attempt( context, arguments.get( Key.value ), "xml" ).wasSuccessful()
-		    &&
-		    val instanceof String str ) {
-			XML xmlObject = new XML( str );
-			return xmlObject.getFirstChildOfName( "wddxPacket" ) != null;
+		} else if ( val instanceof String str ) {
+			boolean strict = arguments.getAsBoolean( WDDXKeys.strict );
+			return WDDXMetrics.getInstance().time( WDDXMetrics.IS_WDDX, sample -> {
+				sample.in( str.length() );
+				return WDDXValidator.isWDDX( str, strict );
+			} );
 		} else {
 			return false;
 		}
@@ -0,0 +1,114 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.bifs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import ortus.boxlang.modules.wddx.util.JSONToWDDXTranscoder;
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXMetrics;
+import ortus.boxlang.modules.wddx.util.WDDXSerializer;
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.bifs.BIF;
+import ortus.boxlang.runtime.bifs.BoxBIF;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Argument;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+import ortus.boxlang.runtime.util.FileSystemUtil;
+
+@BoxBIF
+
+public class JsonToWDDX extends BIF {
+
+	/**
+	 * Constructor
+	 */
+	public JsonToWDDX() {
+		super();
+		declaredArguments = new Argument[] {
+		    new Argument( true, "any", WDDXKeys.json ),
+		    new Argument( false, "string", WDDXKeys.destination )
+		};
+	}
+
+	/**
+	 * Converts JSON to a WDDX packet in a single streaming pass, without deserializing it. Objects with the shape of a
+	 * serialized query, `{"columns":[...],"data":...}` in either row or column form, are converted to recordsets.
+	 *
+	 * @param context   The context in which the BIF is being invoked.
+	 * @param arguments Argument scope for the BIF.
+	 *
+	 * @argument.json The JSON: a string, or a java Reader, InputStream, File or Path to stream it from
+	 *
+	 * @argument.destination A file path to stream the WDDX packet to, instead of returning it
+	 *
+	 * @return The WDDX packet, or the absolute path of the destination file if one was given
+	 */
+	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
+		Object		input		= arguments.get( WDDXKeys.json );
+		String		destination	= arguments.getAsString( WDDXKeys.destination );
+		WDDXMetrics	metrics		= WDDXMetrics.getInstance();
+		metrics.announce( WDDXKeys.preWDDXSerialize, Struct.of( Key.action, WDDXMetrics.JSON_TO_WDDX.getName(), Key.input, input ) );
+		Object result = metrics.time( WDDXMetrics.JSON_TO_WDDX, sample -> transcode( context, input, destination, sample ) );
+		metrics.announce( WDDXKeys.postWDDXSerialize, Struct.of( Key.action, WDDXMetrics.JSON_TO_WDDX.getName(), Key.input, input, Key.result, result ) );
+		return result;
+	}
+
+	/**
+	 * Transcodes the JSON to a string or to the destination file
+	 */
+	private String transcode( IBoxContext context, Object input, String destination, WDDXMetrics.Sample sample ) {
+		Reader source = WDDXUtil.openReader( input );
+		if ( input instanceof String json ) {
+			sample.in( json.length() );
+		}
+		try {
+			if ( destination == null ) {
+				WDDXSerializer out = new WDDXSerializer();
+				new JSONToWDDXTranscoder( source, out ).transcode();
+				sample.out( out.length() );
+				return out.toString();
+			}
+			Path path = FileSystemUtil.expandPath( context, destination ).absolutePath();
+			try ( Writer sink = Files.newBufferedWriter( path, StandardCharsets.UTF_8 ) ) {
+				WDDXSerializer out = new WDDXSerializer( sink );
+				new JSONToWDDXTranscoder( source, out ).transcode();
+				sample.out( out.length() );
+			}
+			return path.toString();
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to write the WDDX packet: " + e.getMessage(), e );
+		} finally {
+			if ( ! ( input instanceof Reader || input instanceof InputStream ) ) {
+				try {
+					source.close();
+				} catch ( IOException e ) {
+					// nothing left to release
+				}
+			}
+		}
+	}
+
+}
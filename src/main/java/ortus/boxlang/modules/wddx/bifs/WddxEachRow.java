@@ -0,0 +1,72 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.bifs;
+
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXLimits;
+import ortus.boxlang.modules.wddx.util.WDDXRowReader;
+import ortus.boxlang.runtime.bifs.BIF;
+import ortus.boxlang.runtime.bifs.BoxBIF;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Argument;
+
+@BoxBIF
+
+public class WddxEachRow extends BIF {
+
+	/**
+	 * Constructor
+	 */
+	public WddxEachRow() {
+		super();
+		declaredArguments = new Argument[] {
+		    new Argument( true, "any", WDDXKeys.wddx ),
+		    new Argument( true, "function", Key.callback )
+		};
+	}
+
+	/**
+	 * Passes each row of the recordset in a WDDX packet to a callback as it is read, without building a query.
+	 * Only a single row is decoded at a time.
+	 *
+	 * @param context   The context in which the BIF is being invoked.
+	 * @param arguments Argument scope for the BIF.
+	 *
+	 * @argument.wddx The WDDX packet, whose data must be a recordset. This may also be a java Path or File, whose UTF-8
+	 *                packet is read from memory mappings, or an InputStream or Reader, whose packet is read in to memory
+	 *                before its rows are read.
+	 *
+	 * @argument.callback The function called with each row, as a struct of the column values, and the row number.
+	 *                    Returning `false` stops reading the remaining rows.
+	 *
+	 * @return The number of rows passed to the callback
+	 */
+	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
+		Object	callback	= arguments.get( Key.callback );
+		int		count		= 0;
+		try ( WDDXRowReader rows = WDDXRowReader.of( arguments.get( WDDXKeys.wddx ), WDDXLimits.getInstance() ) ) {
+			while ( rows.hasNext() ) {
+				Object result = context.invokeFunction( callback, new Object[] { rows.next(), ++count } );
+				if ( Boolean.FALSE.equals( result ) ) {
+					break;
+				}
+			}
+		}
+		return count;
+	}
+
+}
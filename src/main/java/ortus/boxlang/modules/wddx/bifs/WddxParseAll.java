@@ -0,0 +1,63 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.bifs;
+
+import ortus.boxlang.modules.wddx.util.WDDXBatch;
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.runtime.bifs.BIF;
+import ortus.boxlang.runtime.bifs.BoxBIF;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.types.Argument;
+
+@BoxBIF
+
+public class WddxParseAll extends BIF {
+
+	/**
+	 * Constructor
+	 */
+	public WddxParseAll() {
+		super();
+		declaredArguments = new Argument[] {
+		    new Argument( true, "array", WDDXKeys.packets ),
+		    new Argument( false, "boolean", WDDXKeys.lazy, false ),
+		    new Argument( false, "integer", WDDXKeys.maxConcurrency )
+		};
+	}
+
+	/**
+	 * Parses an array of WDDX packets concurrently on virtual threads. A packet which fails to parse does not abort the
+	 * batch.
+	 *
+	 * @param context   The context in which the BIF is being invoked.
+	 * @param arguments Argument scope for the BIF.
+	 *
+	 * @argument.packets The array of WDDX packets to parse
+	 *
+	 * @argument.lazy Whether struct members should be decoded on first read
+	 *
+	 * @argument.maxConcurrency The maximum number of packets parsed at once. Defaults to the `batch.maxConcurrency` module setting
+	 *
+	 * @return A struct of the parsed `results`, in the order of the packets with null for any which failed, and the
+	 *         `errors` of the packets which failed, each holding the `index` of the packet and the error `message`
+	 */
+	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
+		Integer		maxConcurrency	= arguments.getAsInteger( WDDXKeys.maxConcurrency );
+		WDDXBatch	batch			= maxConcurrency == null ? WDDXBatch.getInstance() : new WDDXBatch( maxConcurrency );
+		return batch.parseAll( arguments.getAsArray( WDDXKeys.packets ), arguments.getAsBoolean( WDDXKeys.lazy ) );
+	}
+
+}
@@ -0,0 +1,60 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.bifs;
+
+import ortus.boxlang.modules.wddx.util.WDDXBatch;
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.runtime.bifs.BIF;
+import ortus.boxlang.runtime.bifs.BoxBIF;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.types.Argument;
+
+@BoxBIF
+
+public class WddxSerializeAll extends BIF {
+
+	/**
+	 * Constructor
+	 */
+	public WddxSerializeAll() {
+		super();
+		declaredArguments = new Argument[] {
+		    new Argument( true, "array", WDDXKeys.values ),
+		    new Argument( false, "integer", WDDXKeys.maxConcurrency )
+		};
+	}
+
+	/**
+	 * Serializes an array of values to WDDX packets concurrently on virtual threads. A value which fails to serialize
+	 * does not abort the batch.
+	 *
+	 * @param context   The context in which the BIF is being invoked.
+	 * @param arguments Argument scope for the BIF.
+	 *
+	 * @argument.values The array of values to serialize
+	 *
+	 * @argument.maxConcurrency The maximum number of values serialized at once. Defaults to the `batch.maxConcurrency` module setting
+	 *
+	 * @return A struct of the packet `results`, in the order of the values with null for any which failed, and the
+	 *         `errors` of the values which failed, each holding the `index` of the value and the error `message`
+	 */
+	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
+		Integer		maxConcurrency	= arguments.getAsInteger( WDDXKeys.maxConcurrency );
+		WDDXBatch	batch			= maxConcurrency == null ? WDDXBatch.getInstance() : new WDDXBatch( maxConcurrency );
+		return batch.serializeAll( arguments.getAsArray( WDDXKeys.values ) );
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on an "AS IS"
+ * BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.bifs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import ortus.boxlang.modules.wddx.util.WDDXJavascriptTranscoder;
+import ortus.boxlang.modules.wddx.util.WDDXJavascriptWriter;
+import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXMetrics;
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.bifs.BIF;
+import ortus.boxlang.runtime.bifs.BoxBIF;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.ArgumentsScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Argument;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+import ortus.boxlang.runtime.util.FileSystemUtil;
+import ortus.boxlang.runtime.validation.Validator;
+
+@BoxBIF
+
+public class WddxToJSON extends BIF {
+
+	/**
+	 * Constructor
+	 */
+	public WddxToJSON() {
+		super();
+		declaredArguments = new Argument[] {
+		    new Argument( true, "any", WDDXKeys.wddx ),
+		    new Argument( false, "string", Key.queryFormat, "row", Set.of( Validator.valueOneOf( "row", "column" ) ) ),
+		    new Argument( false, "string", WDDXKeys.destination )
+		};
+	}
+
+	/**
+	 * Converts a WDDX packet to JSON in a single streaming pass, without deserializing it.
+	 *
+	 * @param context   The context in which the BIF is being invoked.
+	 * @param arguments Argument scope for the BIF.
+	 *
+	 * @argument.wddx The WDDX packet: a string, or a java Reader, InputStream, File or Path to stream it from
+	 *
+	 * @argument.queryFormat The JSON format of recordsets: `row` ( `{"columns":[...],"data":[[...]]}` ) or `column` (
+	 *                       `{"columns":[...],"rowCount":n,"data":{"column":[...]}}` ). The column format is streamed
+	 *                       without buffering the recordset.
+	 *
+	 * @argument.destination A file path to stream the JSON to, instead of returning it
+	 *
+	 * @return The JSON, or the absolute path of the destination file if one was given
+	 */
+	public Object _invoke( IBoxContext context, ArgumentsScope arguments ) {
+		Object		input			= arguments.get( WDDXKeys.wddx );
+		boolean		columnQueries	= "column".equalsIgnoreCase( arguments.getAsString( Key.queryFormat ) );
+		String		destination		= arguments.getAsString( WDDXKeys.destination );
+		WDDXMetrics	metrics			= WDDXMetrics.getInstance();
+		metrics.announce( WDDXKeys.preWDDXParse, Struct.of( Key.action, WDDXMetrics.WDDX_TO_JSON.getName(), Key.input, input ) );
+		Object result = metrics.time( WDDXMetrics.WDDX_TO_JSON, sample -> transcode( context, input, columnQueries, destination, sample ) );
+		metrics.announce( WDDXKeys.postWDDXParse, Struct.of( Key.action, WDDXMetrics.WDDX_TO_JSON.getName(), Key.input, input, Key.result, result ) );
+		return result;
+	}
+
+	/**
+	 * Transcodes the packet to a string or to the destination file
+	 */
+	private String transcode( IBoxContext context, Object input, boolean columnQueries, String destination, WDDXMetrics.Sample sample ) {
+		Reader source = WDDXUtil.openReader( input );
+		if ( input instanceof String wddx ) {
+			sample.in( wddx.length() );
+		}
+		try {
+			if ( destination == null ) {
+				WDDXJavascriptWriter out = new WDDXJavascriptWriter();
+				new WDDXJavascriptTranscoder( source, out, columnQueries ).transcode( null );
+				sample.out( out.length() );
+				return out.toString();
+			}
+			Path path = FileSystemUtil.expandPath( context, destination ).absolutePath();
+			try ( Writer sink = Files.newBufferedWriter( path, StandardCharsets.UTF_8 ) ) {
+				new WDDXJavascriptTranscoder( source, new WDDXJavascriptWriter( sink ), columnQueries ).transcode( null );
+			}
+			return path.toString();
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to write the JSON: " + e.getMessage(), e );
+		} finally {
+			if ( ! ( input instanceof Reader || input instanceof InputStream ) ) {
+				try {
+					source.close();
+				} catch ( IOException e ) {
+					// nothing left to release
+				}
+			}
+		}
+	}
+
+}
@@ -19,7 +19,10 @@ package ortus.boxlang.modules.wddx.components;
 
 import java.util.Set;
 
+import ortus.boxlang.modules.wddx.util.BufferWriter;
 import ortus.boxlang.modules.wddx.util.WDDXKeys;
+import ortus.boxlang.modules.wddx.util.WDDXLimits;
+import ortus.boxlang.modules.wddx.util.WDDXMetrics;
 import ortus.boxlang.modules.wddx.util.WDDXUtil;
 import ortus.boxlang.runtime.BoxRuntime;
 import ortus.boxlang.runtime.components.Attribute;
@@ -31,6 +34,9 @@ import ortus.boxlang.runtime.dynamic.casters.StringCaster;
 import ortus.boxlang.runtime.logging.BoxLangLogger;
 import ortus.boxlang.runtime.scopes.Key;
 import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxValidationException;
+import ortus.boxlang.runtime.util.FileSystemUtil;
 import ortus.boxlang.runtime.validation.Validator;
 
 @BoxComponent( allowsBody = false )
@@ -50,8 +56,12 @@ public class WDDX extends Component {
 		declaredAttributes = new Attribute[] {
 		    new Attribute( Key.action, "string", languageTag + "2wddx",
 		        Set.of( Validator.REQUIRED, Validator.valueOneOf( languageTag + "2wddx", "wddx2" + languageTag, languageTag + "2js", "wddx2js" ) ) ),
-		    new Attribute( Key.input, "any", Set.of( Validator.REQUIRED ) ),
-		    new Attribute( Key.output, "string", Set.of( Validator.REQUIRED ) ),
+		    new Attribute( Key.input, "any" ),
+		    new Attribute( Key.output, "string" ),
+		    new Attribute( Key.file, "string" ),
+		    new Attribute( WDDXKeys.stream, "boolean", false ),
+		    new Attribute( WDDXKeys.lazy, "boolean", false ),
+		    new Attribute( WDDXKeys.limits, "struct" ),
 		    new Attribute( WDDXKeys.toplevelvariable, "string" ),
 		    new Attribute( WDDXKeys.usetimezoneinfo, "boolean", true ),
 		    // TODO: we warn that these are not supported, for now. Deprecate in a future release
@@ -74,15 +84,27 @@ public class WDDX extends Component {
 	 * @param body           The body of the Component
 	 * @param executionState The execution state of the Component
 	 *
-	 * @attribute.input The input data to be converted
+	 * @attribute.input The input data to be converted. For the wddx2bx action this may also be a java Path, File,
+	 *                  InputStream or Reader to stream the packet from. Required unless `file` is used with the
+	 *                  wddx2bx action
 	 *
-	 * @attribute.output The variable to which the converted data will be assigned
+	 * @attribute.output The variable to which the converted data will be assigned. Required unless `file` or `stream` is used with the bx2wddx action
+	 *
+	 * @attribute.file A file path to which the bx2wddx packet will be written as it is serialized, instead of assigning it to a variable,
+	 *                 or from which the wddx2bx packet is decoded straight from a memory mapping, instead of the input
+	 *
+	 * @attribute.stream Whether the bx2wddx packet should be written to the response output as it is serialized, instead of assigning it to a variable
+	 *
+	 * @attribute.lazy Whether the wddx2bx action should defer decoding struct members of a string packet until they are first read
+	 *
+	 * @attribute.limits A struct of resource limits which override the module `limits` settings for the wddx2bx action,
+	 *                   any of `maxPacketLength`, `maxDepth`, `maxElements`, `maxStringLength` and `maxRows`
 	 *
 	 * @attribute.action The action to be performed on the input data. One of: bx2wddx, wddx2bx, bx2js, wddx2js
 	 *
 	 * @attribute.toplevelvariable The name of the top-level variable to be used in the generated JavaScript code
 	 *
-	 * @attribute.usetimezoneinfo Whether to use timezone information in the generated JavaScript code
+	 * @attribute.usetimezoneinfo Whether the bx2wddx action writes dates with their offset from UTC, or only their local date and time
 	 *
 	 * @attribute.validate Whether to validate the input XML
 	 *
@@ -105,32 +127,49 @@ public class WDDX extends Component {
 			logger.warn( "The WDDX component only allows valid XML.  All input must be valid xml. The argument `xmlConform` will be ignored." );
 		}
 
-		if ( actionKey.equals( toWDDXKey ) ) {
-			ExpressionInterpreter.setVariable(
-			    context,
-			    variable,
-			    WDDXUtil.serialize( input )
-			);
-		} else if ( actionKey.equals( toCFMLKey ) ) {
-			ExpressionInterpreter.setVariable(
-			    context,
-			    variable,
-			    WDDXUtil.parse( StringCaster.cast( input ) )
-			);
-		} else if ( actionKey.equals( toJSKey ) ) {
-			ExpressionInterpreter.setVariable(
-			    context,
-			    variable,
-			    WDDXUtil.serializeToJavascript( input, toplevelvariable )
-			);
-		} else if ( actionKey.equals( XtoJSKey ) ) {
-			ExpressionInterpreter.setVariable(
-			    context,
-			    variable,
-			    WDDXUtil.translateToJavascript( StringCaster.cast( input ), toplevelvariable )
-			);
+		String	file	= attributes.getAsString( Key.file );
+		Boolean	stream	= attributes.getAsBoolean( WDDXKeys.stream );
+		boolean	toSink	= actionKey.equals( toWDDXKey ) && ( file != null || stream );
+		boolean	inFile	= actionKey.equals( toCFMLKey ) && file != null;
+		if ( variable == null && !toSink ) {
+			throw new BoxValidationException( "The [output] attribute is required for the [" + actionKey.getName() + "] action" );
+		}
+		if ( input == null && !inFile ) {
+			throw new BoxValidationException( "The [input] attribute is required for the [" + actionKey.getName() + "] action" );
 		}
 
+		boolean		serializing	= actionKey.equals( toWDDXKey ) || actionKey.equals( toJSKey );
+		WDDXMetrics	metrics		= WDDXMetrics.getInstance();
+		metrics.announce( serializing ? WDDXKeys.preWDDXSerialize : WDDXKeys.preWDDXParse, Struct.of( Key.action, actionKey.getName(), Key.input, input ) );
+
+		boolean	timezoneInfo	= attributes.getAsBoolean( WDDXKeys.usetimezoneinfo );
+		Object	result			= null;
+		if ( toSink ) {
+			if ( file != null ) {
+				WDDXUtil.serialize( input, FileSystemUtil.expandPath( context, file ).absolutePath(), timezoneInfo );
+			} else {
+				WDDXUtil.serialize( input, new BufferWriter( context ), timezoneInfo );
+			}
+		} else {
+			if ( actionKey.equals( toWDDXKey ) ) {
+				result = WDDXUtil.serialize( input, timezoneInfo );
+			} else if ( actionKey.equals( toCFMLKey ) ) {
+				result = WDDXUtil.parseSource(
+				    inFile ? FileSystemUtil.expandPath( context, file ).absolutePath() : input,
+				    attributes.getAsBoolean( WDDXKeys.lazy ),
+				    WDDXLimits.getInstance().with( attributes.getAsStruct( WDDXKeys.limits ) )
+				);
+			} else if ( actionKey.equals( toJSKey ) ) {
+				result = WDDXUtil.serializeToJavascript( input, toplevelvariable );
+			} else if ( actionKey.equals( XtoJSKey ) ) {
+				result = WDDXUtil.translateToJavascript( StringCaster.cast( input ), toplevelvariable );
+			}
+			ExpressionInterpreter.setVariable( context, variable, result );
+		}
+
+		metrics.announce( serializing ? WDDXKeys.postWDDXSerialize : WDDXKeys.postWDDXParse,
+		    Struct.of( Key.action, actionKey.getName(), Key.input, input, Key.result, result ) );
+
 		return DEFAULT_RETURN;
 	}
 }
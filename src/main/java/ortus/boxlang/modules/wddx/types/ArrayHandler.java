@@ -0,0 +1,43 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.types;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import ortus.boxlang.modules.wddx.util.WDDXSerializer;
+
+/**
+ * Serializes BoxLang arrays, Java collections and object arrays as a WDDX `array`
+ */
+public class ArrayHandler implements IWDDXTypeHandler {
+
+	@Override
+	public boolean handles( Class<?> type ) {
+		return Collection.class.isAssignableFrom( type ) || Object[].class.isAssignableFrom( type );
+	}
+
+	@Override
+	public void serialize( Object value, WDDXSerializer serializer ) {
+		Collection<?> items = value instanceof Object[] array ? Arrays.asList( array ) : ( Collection<?> ) value;
+		serializer.append( "<array length=\"" ).append( String.valueOf( items.size() ) ).append( "\">" );
+		serializer.writeEach( items, ( item, target ) -> target.writeValue( item ) );
+		serializer.append( "</array>" );
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.types;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Date;
+
+import ortus.boxlang.modules.wddx.util.WDDXSerializer;
+import ortus.boxlang.runtime.dynamic.casters.DateTimeCaster;
+import ortus.boxlang.runtime.types.DateTime;
+
+/**
+ * Serializes BoxLang, `java.util` and `java.time` dates as a WDDX `dateTime`. Only the `java.time` types which name a
+ * date or an instant are dates; partial values such as a `Month`, `DayOfWeek` or `ZoneOffset` are not.
+ */
+public class DateTimeHandler implements IWDDXTypeHandler {
+
+	@Override
+	public boolean handles( Class<?> type ) {
+		return isDateTime( type );
+	}
+
+	/**
+	 * Whether values of a class are dates which the date time caster converts
+	 *
+	 * @param type the runtime class of a value
+	 *
+	 * @return true for BoxLang and `java.util` dates, and `java.time` dates, date times and instants
+	 */
+	public static boolean isDateTime( Class<?> type ) {
+		return DateTime.class.isAssignableFrom( type ) || Date.class.isAssignableFrom( type ) || type == ZonedDateTime.class
+		    || type == OffsetDateTime.class || type == LocalDateTime.class || type == LocalDate.class || type == Instant.class;
+	}
+
+	@Override
+	public void serialize( Object value, WDDXSerializer serializer ) {
+		serializer.appendDateTime( DateTimeCaster.cast( value ).getWrapped() );
+	}
+
+}
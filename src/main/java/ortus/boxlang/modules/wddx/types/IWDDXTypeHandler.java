@@ -0,0 +1,48 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.types;
+
+import ortus.boxlang.modules.wddx.util.WDDXSerializer;
+
+/**
+ * Serializes values of one or more Java or BoxLang types to their WDDX representation.
+ *
+ * Handlers are resolved once per class by {@link WDDXTypeHandlers}. Additional handlers may be contributed by other
+ * modules through a {@link java.util.ServiceLoader} registration of this interface, or programmatically through
+ * {@link WDDXTypeHandlers#register(IWDDXTypeHandler)}. Contributed handlers take precedence over the built-in ones.
+ */
+public interface IWDDXTypeHandler {
+
+	/**
+	 * Whether this handler serializes instances of the given class
+	 *
+	 * @param type the runtime class of a value
+	 *
+	 * @return true if this handler should serialize the class
+	 */
+	boolean handles( Class<?> type );
+
+	/**
+	 * Writes the WDDX representation of a value to the serializer
+	 *
+	 * @param value      the non-null value to serialize
+	 * @param serializer the serializer receiving the output
+	 */
+	void serialize( Object value, WDDXSerializer serializer );
+
+}
@@ -0,0 +1,169 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.types;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The registry of {@link IWDDXTypeHandler} instances used for serialization.
+ *
+ * The handler for a class is resolved once and cached in a {@link ClassValue}, so dispatching a value is a single
+ * lookup on its runtime class. Handlers contributed through the {@link ServiceLoader} or {@link #register} are
+ * consulted before the built-in handlers, in registration order.
+ *
+ * Contributed handlers are discovered through the class loader of the module and the context class loader of the
+ * thread which first serializes a value, and may be loaded from any other class loader, such as that of an
+ * application or another module, with {@link #load(ClassLoader)}.
+ */
+public class WDDXTypeHandlers {
+
+	private static final List<IWDDXTypeHandler>				builtIns	= List.of(
+	    new BooleanHandler(),
+	    new NumberHandler(),
+	    new DateTimeHandler(),
+	    new BinaryHandler(),
+	    new QueryHandler(),
+	    new StructHandler(),
+	    new ArrayHandler()
+	);
+	private static final IWDDXTypeHandler					fallback	= new StringHandler();
+	private static final List<IWDDXTypeHandler>				contributed	= new CopyOnWriteArrayList<>( loadContributed() );
+
+	private static volatile ClassValue<IWDDXTypeHandler>	dispatch	= newDispatch();
+
+	private WDDXTypeHandlers() {
+	}
+
+	/**
+	 * Returns the handler for the given class
+	 *
+	 * @param type the runtime class of a value
+	 *
+	 * @return the handler which serializes the class
+	 */
+	public static IWDDXTypeHandler get( Class<?> type ) {
+		return dispatch.get( type );
+	}
+
+	/**
+	 * Registers an additional handler, which takes precedence over all handlers registered before it
+	 *
+	 * @param handler the handler to register
+	 */
+	public static void register( IWDDXTypeHandler handler ) {
+		contributed.add( 0, handler );
+		dispatch = newDispatch();
+	}
+
+	/**
+	 * Registers the handlers contributed through the {@link ServiceLoader} of the given class loader, skipping any
+	 * which are already registered
+	 *
+	 * @param loader the class loader to discover handlers through
+	 */
+	public static void load( ClassLoader loader ) {
+		for ( IWDDXTypeHandler handler : discover( loader, false ) ) {
+			if ( !isRegistered( handler.getClass() ) ) {
+				register( handler );
+			}
+		}
+	}
+
+	/**
+	 * Resolves the handler for a class which has not been dispatched before
+	 */
+	private static IWDDXTypeHandler resolve( Class<?> type ) {
+		for ( IWDDXTypeHandler handler : contributed ) {
+			if ( handler.handles( type ) ) {
+				return handler;
+			}
+		}
+		for ( IWDDXTypeHandler handler : builtIns ) {
+			if ( handler.handles( type ) ) {
+				return handler;
+			}
+		}
+		return fallback;
+	}
+
+	private static ClassValue<IWDDXTypeHandler> newDispatch() {
+		return new ClassValue<>() {
+
+			@Override
+			protected IWDDXTypeHandler computeValue( Class<?> type ) {
+				return resolve( type );
+			}
+		};
+	}
+
+	/**
+	 * Discovers the handlers contributed through the module class loader and the thread context class loader
+	 */
+	private static List<IWDDXTypeHandler> loadContributed() {
+		List<IWDDXTypeHandler>	handlers	= new ArrayList<>( discover( WDDXTypeHandlers.class.getClassLoader(), true ) );
+		ClassLoader				context		= Thread.currentThread().getContextClassLoader();
+		if ( context != null && context != WDDXTypeHandlers.class.getClassLoader() ) {
+			for ( IWDDXTypeHandler handler : discover( context, false ) ) {
+				if ( handlers.stream().noneMatch( known -> known.getClass() == handler.getClass() ) ) {
+					handlers.add( handler );
+				}
+			}
+		}
+		return handlers;
+	}
+
+	/**
+	 * Instantiates the handlers contributed through the {@link ServiceLoader} of a class loader
+	 *
+	 * @param strict whether a provider which cannot be loaded is an error. Otherwise discovery stops at the first such
+	 *               provider, as a foreign class loader may see its own copy of the module, whose handlers are not
+	 *               handlers of this registry.
+	 */
+	private static List<IWDDXTypeHandler> discover( ClassLoader loader, boolean strict ) {
+		List<IWDDXTypeHandler>		handlers	= new ArrayList<>();
+		Iterator<IWDDXTypeHandler>	providers	= ServiceLoader.load( IWDDXTypeHandler.class, loader ).iterator();
+		while ( true ) {
+			try {
+				if ( !providers.hasNext() ) {
+					return handlers;
+				}
+				handlers.add( providers.next() );
+			} catch ( ServiceConfigurationError e ) {
+				if ( strict ) {
+					throw e;
+				}
+				return handlers;
+			}
+		}
+	}
+
+	private static boolean isRegistered( Class<?> type ) {
+		for ( IWDDXTypeHandler handler : contributed ) {
+			if ( handler.getClass() == type ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,62 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.Writer;
+
+import ortus.boxlang.runtime.context.IBoxContext;
+
+/**
+ * A {@link Writer} which appends to the output buffer of a BoxLang context, so that serialized content reaches the
+ * response as it is produced rather than being assigned to a variable first. Each {@link #flush()} flushes the context
+ * buffer to the response, unless the output is being captured, e.g. by `savecontent`.
+ */
+public class BufferWriter extends Writer {
+
+	private final IBoxContext context;
+
+	/**
+	 * Creates a writer over the output buffer of the given context
+	 *
+	 * @param context the context whose buffer receives the output
+	 */
+	public BufferWriter( IBoxContext context ) {
+		this.context = context;
+	}
+
+	@Override
+	public void write( char[] cbuf, int off, int len ) {
+		context.writeToBuffer( new String( cbuf, off, len ) );
+	}
+
+	@Override
+	public void write( String str ) {
+		context.writeToBuffer( str );
+	}
+
+	@Override
+	public void flush() {
+		context.flushBuffer( false );
+	}
+
+	@Override
+	public void close() {
+		// The context buffer is owned by the runtime
+	}
+
+}
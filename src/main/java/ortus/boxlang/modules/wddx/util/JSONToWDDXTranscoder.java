@@ -0,0 +1,731 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Transcodes JSON directly to a WDDX packet, reading the JSON text token by token and writing each value to a
+ * {@link WDDXSerializer} as it is read, without building the BoxLang representation of the document.
+ *
+ * Objects whose first key is `columns`, holding an array of names, followed by `rowCount` or `data` are written as
+ * recordsets. The data may be in row form, `"data":[[...],...]`, or column form, `"data":{"name":[...],...}`. Column
+ * form data is streamed straight in to the recordset when `rowCount` precedes it, in which case every column of the
+ * data must be one of the declared columns. Otherwise, as WDDX stores recordsets by column, the encoded cells are
+ * buffered per column until the data has been read. A recordset has as many rows as its longest column, up to a
+ * `rowCount` which precedes the data.
+ *
+ * As the length of a WDDX array precedes its items, each JSON array is buffered until it has been read, and a nested
+ * array is copied again in to the buffer of the array containing it. Only column form recordsets with a leading
+ * `rowCount` are written without buffering.
+ *
+ * The {@link WDDXLimits} on nesting depth, the number of values, the length of strings and the number of recordset
+ * rows apply to the JSON as they do to a parsed packet.
+ */
+public class JSONToWDDXTranscoder {
+
+	private static final String		QUERY_TYPE	= "ortus.boxlang.runtime.types.Query";
+	private static final Pattern	NUMBER		= Pattern.compile( "-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?" );
+
+	private final Reader			source;
+	private final WDDXLimits		limits;
+	private final char[]			buffer		= new char[ 8192 ];
+	private int						position;
+	private int						limit;
+	private long					elements;
+	private int						depth;
+	private WDDXSerializer			out;
+
+	/**
+	 * Creates a transcoder
+	 *
+	 * @param source the reader supplying the JSON
+	 * @param out    the serializer receiving the packet
+	 */
+	public JSONToWDDXTranscoder( Reader source, WDDXSerializer out ) {
+		this( source, out, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Creates a transcoder
+	 *
+	 * @param source the reader supplying the JSON
+	 * @param out    the serializer receiving the packet
+	 * @param limits the limits enforced while the JSON is read
+	 */
+	public JSONToWDDXTranscoder( Reader source, WDDXSerializer out, WDDXLimits limits ) {
+		this.source	= source;
+		this.out	= out;
+		this.limits	= limits;
+	}
+
+	/**
+	 * Transcodes a JSON document to a WDDX packet
+	 *
+	 * @param json the JSON text
+	 *
+	 * @return the WDDX packet
+	 */
+	public static String translate( String json ) {
+		WDDXSerializer out = new WDDXSerializer( json.length() + 128 );
+		new JSONToWDDXTranscoder( new StringReader( json ), out ).transcode();
+		return out.toString();
+	}
+
+	/**
+	 * Reads the JSON document and writes it as a complete packet
+	 */
+	public void transcode() {
+		try {
+			out.beginPacket();
+			writeValue();
+			if ( peek() != -1 ) {
+				throw error( "unexpected content after the JSON value" );
+			}
+			out.endPacket().flush();
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to read the JSON: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Reads and writes a single JSON value
+	 */
+	private void writeValue() throws IOException {
+		limits.checkElements( ++elements );
+		limits.checkDepth( ++depth );
+		switch ( peek() ) {
+			case '{' -> writeObject();
+			case '[' -> writeArray();
+			case '"' -> out.writeValue( readString() );
+			case 't', 'f', 'n' -> out.writeValue( readLiteral() );
+			case -1 -> throw error( "unexpected end of the JSON" );
+			default -> out.append( "<number>" ).append( readNumber() ).append( "</number>" );
+		}
+		depth--;
+	}
+
+	/**
+	 * Writes an object as a struct, or as a recordset if it has the shape of a serialized query
+	 */
+	private void writeObject() throws IOException {
+		position++;
+		String	key		= firstKey();
+		Object	columns	= null;
+		if ( "columns".equals( key ) ) {
+			// column names are small, so they are read ahead to decide whether this object is a query
+			columns	= readValue();
+			key		= nextKey();
+			if ( ( "rowCount".equals( key ) || "data".equals( key ) ) && isNames( columns ) ) {
+				writeRecordset( ( Array ) columns, key );
+				return;
+			}
+		}
+
+		out.append( "<struct>" );
+		if ( columns != null ) {
+			out.append( "<var name=\"columns\">" ).writeValue( columns ).append( "</var>" );
+		}
+		while ( key != null ) {
+			out.appendVar( key );
+			writeValue();
+			out.append( "</var>" );
+			key = nextKey();
+		}
+		out.append( "</struct>" );
+	}
+
+	/**
+	 * Writes an array. The length of a WDDX array precedes its items, so the items are buffered, and the buffer is then
+	 * copied in to the output.
+	 */
+	private void writeArray() throws IOException {
+		position++;
+		WDDXSerializer	target	= out;
+		WDDXSerializer	items	= new WDDXSerializer();
+		int				length	= 0;
+		out = items;
+		try {
+			if ( firstItem( ']' ) ) {
+				do {
+					writeValue();
+					length++;
+				} while ( nextItem() );
+			}
+		} finally {
+			out = target;
+		}
+		out.append( "<array length=\"" ).append( String.valueOf( length ) ).append( "\">" ).append( items ).append( "</array>" );
+	}
+
+	/**
+	 * Writes the remainder of a query shaped object as a recordset
+	 *
+	 * @param columns the declared column names
+	 * @param key     the key following `columns`, either `rowCount` or `data`
+	 */
+	private void writeRecordset( Array columns, String key ) throws IOException {
+		Integer		rowCount	= null;
+		List<Field>	fields		= new ArrayList<>();
+		for ( Object column : columns ) {
+			fields.add( new Field( column.toString() ) );
+		}
+		for ( ; key != null; key = nextKey() ) {
+			if ( key.equals( "rowCount" ) && ( peek() >= '0' && peek() <= '9' ) ) {
+				rowCount = readRowCount();
+			} else if ( key.equals( "data" ) && peek() == '{' && rowCount != null ) {
+				writeColumns( fields, rowCount );
+				while ( nextKey() != null ) {
+					skipValue();
+				}
+				return;
+			} else if ( key.equals( "data" ) && peek() == '{' ) {
+				readColumns( fields, rowCount );
+			} else if ( key.equals( "data" ) && peek() == '[' ) {
+				readRows( fields, rowCount );
+			} else {
+				skipValue();
+			}
+		}
+
+		int rows = 0;
+		for ( Field field : fields ) {
+			rows = Math.max( rows, field.size );
+		}
+		writeRecordsetStart( fields, rows );
+		for ( Field field : fields ) {
+			writeField( field, rows );
+		}
+		out.append( "</recordset>" );
+	}
+
+	/**
+	 * Reads a declared row count, checking it against the row limit
+	 */
+	private int readRowCount() throws IOException {
+		String number = readNumber();
+		try {
+			int rowCount = Integer.parseInt( number );
+			limits.checkRows( rowCount );
+			return rowCount;
+		} catch ( NumberFormatException e ) {
+			throw error( "invalid rowCount [" + number + "]" );
+		}
+	}
+
+	/**
+	 * Writes a null which pads a field to the declared row count, counting it against the element limit so that a
+	 * large row count cannot amplify a small document
+	 */
+	private void writeNull() {
+		limits.checkElements( ++elements );
+		out.writeValue( null );
+	}
+
+	/**
+	 * Writes the buffered cells of a field, padded with nulls to the given number of rows
+	 */
+	private void writeField( Field field, int rows ) {
+		out.appendField( field.name ).append( field.cells );
+		for ( int row = field.size; row < rows; row++ ) {
+			writeNull();
+		}
+		out.append( "</field>" );
+	}
+
+	/**
+	 * Streams column form data straight in to a recordset whose row count is known. The fields are written in the
+	 * order of the declared columns, so a column which arrives ahead of its turn is buffered until the columns before
+	 * it have been written, and a declared column missing from the data is written as nulls.
+	 */
+	private void writeColumns( List<Field> declared, int rowCount ) throws IOException {
+		writeRecordsetStart( declared, rowCount );
+		position++;
+		int written = 0;
+		for ( String name = firstKey(); name != null; name = nextKey() ) {
+			Field field = find( declared, name );
+			if ( field == null ) {
+				throw error( "the data column [" + name + "] is not one of the columns" );
+			}
+			if ( field.read ) {
+				throw error( "the data column [" + name + "] is repeated" );
+			}
+			field.read = true;
+			if ( field != declared.get( written ) ) {
+				readColumn( field, rowCount );
+				continue;
+			}
+			out.appendField( name );
+			int rows = 0;
+			expect( '[' );
+			if ( firstItem( ']' ) ) {
+				do {
+					if ( rows++ < rowCount ) {
+						writeValue();
+					} else {
+						skipValue();
+					}
+				} while ( nextItem() );
+			}
+			for ( ; rows < rowCount; rows++ ) {
+				writeNull();
+			}
+			out.append( "</field>" );
+			for ( written++; written < declared.size() && declared.get( written ).read; written++ ) {
+				writeField( declared.get( written ), rowCount );
+			}
+		}
+		for ( ; written < declared.size(); written++ ) {
+			writeField( declared.get( written ), rowCount );
+		}
+		out.append( "</recordset>" );
+	}
+
+	/**
+	 * Buffers column form data in to the fields, adding any columns which were not declared
+	 *
+	 * @param rowCount the declared row count, beyond which cells are skipped, or null if it was not declared
+	 */
+	private void readColumns( List<Field> fields, Integer rowCount ) throws IOException {
+		position++;
+		for ( String name = firstKey(); name != null; name = nextKey() ) {
+			Field field = find( fields, name );
+			if ( field == null ) {
+				field = new Field( name );
+				fields.add( field );
+			}
+			readColumn( field, rowCount == null ? Integer.MAX_VALUE : rowCount );
+		}
+	}
+
+	/**
+	 * Buffers the array of cells of a column in to a field, skipping any cells beyond the given number of rows
+	 */
+	private void readColumn( Field field, int rowCount ) throws IOException {
+		expect( '[' );
+		if ( firstItem( ']' ) ) {
+			do {
+				if ( field.size < rowCount ) {
+					writeCell( field );
+				} else {
+					skipValue();
+				}
+			} while ( nextItem() );
+		}
+	}
+
+	/**
+	 * The field of the given name, or null if there is none
+	 */
+	private static Field find( List<Field> fields, String name ) {
+		for ( Field field : fields ) {
+			if ( field.name.equals( name ) ) {
+				return field;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Buffers row form data in to the fields. Short rows are padded with nulls and surplus cells are skipped.
+	 *
+	 * @param rowCount the declared row count, beyond which rows are skipped, or null if it was not declared
+	 */
+	private void readRows( List<Field> fields, Integer rowCount ) throws IOException {
+		position++;
+		int rows = 0;
+		if ( firstItem( ']' ) ) {
+			do {
+				if ( rowCount != null && rows == rowCount ) {
+					skipValue();
+					continue;
+				}
+				expect( '[' );
+				int col = 0;
+				if ( firstItem( ']' ) ) {
+					do {
+						if ( col < fields.size() ) {
+							writeCell( fields.get( col++ ) );
+						} else {
+							skipValue();
+						}
+					} while ( nextItem() );
+				}
+				limits.checkRows( ++rows );
+				for ( Field field : fields ) {
+					while ( field.size < rows ) {
+						field.cells.writeValue( null );
+						field.size++;
+					}
+				}
+			} while ( nextItem() );
+		}
+	}
+
+	/**
+	 * Writes the next value in to the buffer of a field
+	 */
+	private void writeCell( Field field ) throws IOException {
+		limits.checkRows( field.size + 1 );
+		WDDXSerializer target = out;
+		out = field.cells;
+		try {
+			writeValue();
+			field.size++;
+		} finally {
+			out = target;
+		}
+	}
+
+	private void writeRecordsetStart( List<Field> fields, int rowCount ) {
+		StringBuilder fieldNames = new StringBuilder();
+		for ( Field field : fields ) {
+			if ( fieldNames.length() > 0 ) {
+				fieldNames.append( ',' );
+			}
+			fieldNames.append( field.name );
+		}
+		out.append( "<recordset rowCount=\"" ).append( String.valueOf( rowCount ) ).append( "\" fieldNames=\"" )
+		    .appendAttribute( fieldNames.toString() ).append( "\" type=\"" ).append( QUERY_TYPE ).append( "\">" );
+	}
+
+	/**
+	 * Reads a JSON value in to its BoxLang representation. Only used for the small values read ahead.
+	 */
+	private Object readValue() throws IOException {
+		limits.checkDepth( ++depth );
+		try {
+			return readValueAt();
+		} finally {
+			depth--;
+		}
+	}
+
+	/**
+	 * Reads the JSON value at the current position
+	 */
+	private Object readValueAt() throws IOException {
+		switch ( peek() ) {
+			case '{' -> {
+				position++;
+				IStruct result = new Struct();
+				for ( String key = firstKey(); key != null; key = nextKey() ) {
+					result.put( Key.of( key ), readValue() );
+				}
+				return result;
+			}
+			case '[' -> {
+				position++;
+				Array result = new Array();
+				if ( firstItem( ']' ) ) {
+					do {
+						result.add( readValue() );
+					} while ( nextItem() );
+				}
+				return result;
+			}
+			case '"' -> {
+				return readString();
+			}
+			case 't', 'f', 'n' -> {
+				return readLiteral();
+			}
+			case -1 -> throw error( "unexpected end of the JSON" );
+			default -> {
+				return WDDXDecoders.decode( "number", readNumber(), WDDXDecoders.NO_ATTRIBUTES );
+			}
+		}
+	}
+
+	/**
+	 * Skips a JSON value
+	 */
+	private void skipValue() throws IOException {
+		limits.checkDepth( ++depth );
+		switch ( peek() ) {
+			case '{' -> {
+				position++;
+				for ( String key = firstKey(); key != null; key = nextKey() ) {
+					skipValue();
+				}
+			}
+			case '[' -> {
+				position++;
+				if ( firstItem( ']' ) ) {
+					do {
+						skipValue();
+					} while ( nextItem() );
+				}
+			}
+			case '"' -> readString();
+			case 't', 'f', 'n' -> readLiteral();
+			case -1 -> throw error( "unexpected end of the JSON" );
+			default -> readNumber();
+		}
+		depth--;
+	}
+
+	private static boolean isNames( Object columns ) {
+		if ( ! ( columns instanceof Array names ) ) {
+			return false;
+		}
+		for ( Object name : names ) {
+			if ( ! ( name instanceof String ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the first key of an object whose `{` has been consumed
+	 *
+	 * @return the key, or null if the object is empty
+	 */
+	private String firstKey() throws IOException {
+		return firstItem( '}' ) ? readKey() : null;
+	}
+
+	/**
+	 * Reads the next key of an object, after one of its values
+	 *
+	 * @return the key, or null if the end of the object was reached
+	 */
+	private String nextKey() throws IOException {
+		return nextItem() ? readKey() : null;
+	}
+
+	/**
+	 * Reads a key and the following colon
+	 */
+	private String readKey() throws IOException {
+		if ( peek() != '"' ) {
+			throw error( "expected a quoted key" );
+		}
+		String key = readString();
+		expect( ':' );
+		return key;
+	}
+
+	/**
+	 * Checks for the end of a container whose opening bracket has just been consumed
+	 *
+	 * @return false, consuming the closing bracket, if the container is empty
+	 */
+	private boolean firstItem( char close ) throws IOException {
+		if ( peek() == close ) {
+			position++;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the separator following an item of a container
+	 *
+	 * @return true if another item follows, false if the end of the container was consumed
+	 */
+	private boolean nextItem() throws IOException {
+		int c = peek();
+		position++;
+		if ( c == ',' ) {
+			return true;
+		} else if ( c == '}' || c == ']' ) {
+			return false;
+		}
+		throw error( c == -1 ? "unexpected end of the JSON" : "unexpected character [" + ( char ) c + "]" );
+	}
+
+	private void expect( char expected ) throws IOException {
+		if ( peek() != expected ) {
+			throw error( "expected [" + expected + "]" );
+		}
+		position++;
+	}
+
+	/**
+	 * Reads a true, false or null literal
+	 */
+	private Boolean readLiteral() throws IOException {
+		String literal = readToken();
+		return switch ( literal ) {
+			case "true" -> Boolean.TRUE;
+			case "false" -> Boolean.FALSE;
+			case "null" -> null;
+			default -> throw error( "unexpected token [" + literal + "]" );
+		};
+	}
+
+	/**
+	 * Reads a number, returning its text
+	 */
+	private String readNumber() throws IOException {
+		String number = readToken();
+		if ( !NUMBER.matcher( number ).matches() ) {
+			throw error( "invalid number [" + number + "]" );
+		}
+		return number;
+	}
+
+	/**
+	 * Reads the characters of a bare token, up to the next delimiter
+	 */
+	private String readToken() throws IOException {
+		StringBuilder token = new StringBuilder();
+		while ( fill() ) {
+			char c = buffer[ position ];
+			if ( c == ',' || c == '}' || c == ']' || c == ':' || Character.isWhitespace( c ) ) {
+				break;
+			}
+			token.append( c );
+			position++;
+		}
+		return token.toString();
+	}
+
+	/**
+	 * Reads a quoted string, expanding its escapes
+	 */
+	private String readString() throws IOException {
+		position++;
+		StringBuilder result = new StringBuilder();
+		while ( true ) {
+			if ( !fill() ) {
+				throw error( "unterminated string" );
+			}
+			int start = position;
+			while ( position < limit && buffer[ position ] != '"' && buffer[ position ] != '\\' ) {
+				position++;
+			}
+			result.append( buffer, start, position - start );
+			limits.checkStringLength( result.length() );
+			if ( position == limit ) {
+				continue;
+			}
+			if ( buffer[ position++ ] == '"' ) {
+				return result.toString();
+			}
+			result.append( readEscape() );
+		}
+	}
+
+	/**
+	 * Reads the escape sequence following a backslash
+	 */
+	private char readEscape() throws IOException {
+		if ( !fill() ) {
+			throw error( "unterminated string" );
+		}
+		char c = buffer[ position++ ];
+		switch ( c ) {
+			case '"', '\\', '/' :
+				return c;
+			case 'b' :
+				return '\b';
+			case 'f' :
+				return '\f';
+			case 'n' :
+				return '\n';
+			case 'r' :
+				return '\r';
+			case 't' :
+				return '\t';
+			case 'u' : {
+				int code = 0;
+				for ( int i = 0; i < 4; i++ ) {
+					if ( !fill() ) {
+						throw error( "unterminated string" );
+					}
+					int digit = Character.digit( buffer[ position++ ], 16 );
+					if ( digit < 0 ) {
+						throw error( "invalid unicode escape" );
+					}
+					code = code * 16 + digit;
+				}
+				return ( char ) code;
+			}
+			default :
+				throw error( "invalid escape [\\" + c + "]" );
+		}
+	}
+
+	/**
+	 * Skips whitespace and returns the next character without consuming it
+	 *
+	 * @return the next character, or -1 at the end of the JSON
+	 */
+	private int peek() throws IOException {
+		while ( fill() ) {
+			char c = buffer[ position ];
+			if ( c != ' ' && c != '\n' && c != '\r' && c != '\t' ) {
+				return c;
+			}
+			position++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Ensures the buffer holds at least one unread character
+	 *
+	 * @return false at the end of the JSON
+	 */
+	private boolean fill() throws IOException {
+		if ( position < limit ) {
+			return true;
+		}
+		limit		= source.read( buffer, 0, buffer.length );
+		position	= 0;
+		if ( limit <= 0 ) {
+			limit = 0;
+			return false;
+		}
+		return true;
+	}
+
+	private BoxRuntimeException error( String message ) {
+		return new BoxRuntimeException( "The JSON provided is not valid: " + message );
+	}
+
+	/**
+	 * The buffered cells of a recordset field
+	 */
+	private static class Field {
+
+		private final String			name;
+		private final WDDXSerializer	cells	= new WDDXSerializer();
+		private int						size;
+		private boolean					read;
+
+		Field( String name ) {
+			this.name = name;
+		}
+	}
+
+}
@@ -0,0 +1,269 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import ortus.boxlang.modules.wddx.util.WDDXPacketScanner.Region;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.types.Function;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+
+/**
+ * A struct produced by {@link WDDXLazyParser}, whose members are held as undecoded packet regions until they are
+ * first read. Every accessor which returns a member value decodes that member first, and enumerating, copying or
+ * exposing the wrapped map of the struct decodes every remaining member, so a region is never returned.
+ *
+ * An unread lazy struct retains the text of the packet it was parsed from. It is serialized as a plain struct, with
+ * every member decoded, so the packet text and limits are never written.
+ */
+public class LazyStruct extends Struct {
+
+	private static final long			serialVersionUID	= 1L;
+
+	private final transient WDDXLimits	limits;
+	private final int					depth;
+
+	/**
+	 * Creates an empty lazy struct
+	 *
+	 * @param limits the limits enforced when members are decoded
+	 * @param depth  the depth of the members within the packet
+	 */
+	LazyStruct( WDDXLimits limits, int depth ) {
+		super();
+		this.limits	= limits;
+		this.depth	= depth;
+	}
+
+	/**
+	 * Adds a member whose value is decoded when first read
+	 *
+	 * @param key    the member key
+	 * @param region the region of the member value, or null for an empty member
+	 */
+	void defer( Key key, Region region ) {
+		super.put( key, region );
+	}
+
+	/**
+	 * Whether the value of the given member has been decoded
+	 *
+	 * @param key the member key
+	 *
+	 * @return false if the member is still held as an undecoded packet region
+	 */
+	public boolean isDecoded( Key key ) {
+		return ! ( super.get( key ) instanceof Region );
+	}
+
+	@Override
+	public Object get( Object key ) {
+		return resolve( key, super.get( key ) );
+	}
+
+	@Override
+	public Object getRaw( Key key ) {
+		return resolve( key, super.getRaw( key ) );
+	}
+
+	@Override
+	public Object getOrDefault( Key key, Object defaultValue ) {
+		resolve( key, super.get( key ) );
+		return super.getOrDefault( key, defaultValue );
+	}
+
+	@Override
+	public Object getOrDefault( Object key, Object defaultValue ) {
+		resolve( key, super.get( key ) );
+		return super.getOrDefault( key, defaultValue );
+	}
+
+	@Override
+	public String getAsString( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsString( key );
+	}
+
+	@Override
+	public Boolean getAsBoolean( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsBoolean( key );
+	}
+
+	@Override
+	public Integer getAsInteger( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsInteger( key );
+	}
+
+	@Override
+	public Long getAsLong( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsLong( key );
+	}
+
+	@Override
+	public Double getAsDouble( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsDouble( key );
+	}
+
+	@Override
+	public Key getAsKey( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsKey( key );
+	}
+
+	@Override
+	public IStruct getAsStruct( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsStruct( key );
+	}
+
+	@Override
+	public Array getAsArray( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsArray( key );
+	}
+
+	@Override
+	public Query getAsQuery( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsQuery( key );
+	}
+
+	@Override
+	public DateTime getAsDateTime( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsDateTime( key );
+	}
+
+	@Override
+	public Function getAsFunction( Key key ) {
+		resolve( key, super.get( key ) );
+		return super.getAsFunction( key );
+	}
+
+	@Override
+	public Object dereference( IBoxContext context, Key name, Boolean safe ) {
+		resolve( name, super.get( name ) );
+		return super.dereference( context, name, safe );
+	}
+
+	@Override
+	public boolean containsValue( Object value ) {
+		decodeAll();
+		return super.containsValue( value );
+	}
+
+	@Override
+	public void forEach( BiConsumer<? super Key, ? super Object> action ) {
+		decodeAll();
+		super.forEach( action );
+	}
+
+	/**
+	 * The wrapped map, with every member decoded first, so that copies taken from it, e.g. by `duplicate()`, never
+	 * hold a packet region
+	 */
+	@Override
+	public Map<Key, Object> getWrapped() {
+		decodeAll();
+		return super.getWrapped();
+	}
+
+	@Override
+	public Set<Entry<Key, Object>> entrySet() {
+		decodeAll();
+		return super.entrySet();
+	}
+
+	@Override
+	public Collection<Object> values() {
+		decodeAll();
+		return super.values();
+	}
+
+	@Override
+	public boolean equals( Object other ) {
+		decodeAll();
+		return super.equals( other );
+	}
+
+	@Override
+	public int hashCode() {
+		decodeAll();
+		return super.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		decodeAll();
+		return super.toString();
+	}
+
+	/**
+	 * Serializes the struct as a plain struct with every member decoded, as the packet regions and limits it holds
+	 * are not serializable
+	 *
+	 * @return the struct written in place of this one
+	 */
+	@Serial
+	private Object writeReplace() {
+		return new Struct( getWrapped() );
+	}
+
+	/**
+	 * Decodes every member which has not yet been read
+	 */
+	private void decodeAll() {
+		for ( Key key : new ArrayList<>( keySet() ) ) {
+			resolve( key, super.get( key ) );
+		}
+	}
+
+	/**
+	 * Decodes a member value if it is still an undecoded region, replacing the region with the decoded value
+	 */
+	private Object resolve( Object key, Object value ) {
+		if ( ! ( value instanceof Region ) ) {
+			return value;
+		}
+		synchronized ( this ) {
+			Key		name	= key instanceof Key k ? k : Key.of( key );
+			Object	current	= super.get( name );
+			if ( current instanceof Region region ) {
+				current = WDDXLazyParser.decode( region, limits, depth );
+				super.put( name, current );
+			}
+			return current;
+		}
+	}
+
+}
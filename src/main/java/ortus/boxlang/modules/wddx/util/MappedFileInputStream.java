@@ -0,0 +1,132 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@link InputStream} over a file which is memory-mapped rather than read, so the content of the file is paged in
+ * by the operating system on demand instead of being copied through heap buffers. Files larger than a single mapping
+ * are mapped in consecutive windows, each released to the garbage collector once it has been read.
+ *
+ * A stream instance is not thread-safe.
+ */
+public class MappedFileInputStream extends InputStream {
+
+	/**
+	 * The largest region of the file mapped at once
+	 */
+	private static final long	WINDOW	= 1L << 30;
+
+	private final FileChannel	channel;
+	private final long			size;
+	private long				mapped;
+	private MappedByteBuffer	buffer;
+
+	/**
+	 * Opens a stream over the given file
+	 *
+	 * @param path the file to read
+	 *
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public MappedFileInputStream( Path path ) throws IOException {
+		this( path, 0 );
+	}
+
+	/**
+	 * Opens a stream over the given file, starting at a byte offset
+	 *
+	 * @param path     the file to read
+	 * @param position the offset of the first byte read
+	 *
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	public MappedFileInputStream( Path path, long position ) throws IOException {
+		this.channel	= FileChannel.open( path, StandardOpenOption.READ );
+		this.size		= channel.size();
+		this.mapped		= Math.min( position, size );
+		try {
+			nextWindow();
+		} catch ( IOException e ) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * The length of the file
+	 *
+	 * @return the length in bytes
+	 */
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if ( !buffer.hasRemaining() && !nextWindow() ) {
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	@Override
+	public int read( byte[] bytes, int off, int len ) throws IOException {
+		if ( len == 0 ) {
+			return 0;
+		}
+		if ( !buffer.hasRemaining() && !nextWindow() ) {
+			return -1;
+		}
+		int count = Math.min( len, buffer.remaining() );
+		buffer.get( bytes, off, count );
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return ( int ) Math.min( Integer.MAX_VALUE, size - mapped + buffer.remaining() );
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Maps the next window of the file
+	 *
+	 * @return false if the whole file has already been mapped
+	 */
+	private boolean nextWindow() throws IOException {
+		if ( buffer != null && mapped == size ) {
+			return false;
+		}
+		long length = Math.min( WINDOW, size - mapped );
+		buffer	= channel.map( FileChannel.MapMode.READ_ONLY, mapped, length );
+		mapped	+= length;
+		return true;
+	}
+
+}
@@ -0,0 +1,79 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * A memory-mapped UTF-8 file viewed as a sequence of chars, one per byte, so that {@link WDDXPacketScanner} can locate
+ * the elements of a file packet by their byte offsets without reading the file in to the heap. Markup characters are
+ * ASCII, and the bytes of multi-byte UTF-8 characters never match them, so tags are found exactly as they would be
+ * in the decoded text. Sub-sequences, such as attribute values, are decoded from UTF-8.
+ *
+ * Files of up to 2GB can be viewed.
+ */
+final class MappedText implements CharSequence {
+
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Maps the given file
+	 *
+	 * @param path the file to view
+	 *
+	 * @throws IOException if the file cannot be opened or mapped
+	 */
+	MappedText( Path path ) throws IOException {
+		try ( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ ) ) {
+			if ( channel.size() > Integer.MAX_VALUE ) {
+				throw new BoxRuntimeException( "The WDDX file [" + path + "] is too large to be read a row at a time" );
+			}
+			this.buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size() );
+		}
+	}
+
+	@Override
+	public int length() {
+		return buffer.limit();
+	}
+
+	@Override
+	public char charAt( int index ) {
+		return ( char ) ( buffer.get( index ) & 0xFF );
+	}
+
+	@Override
+	public CharSequence subSequence( int start, int end ) {
+		byte[] bytes = new byte[ end - start ];
+		buffer.get( start, bytes );
+		return new String( bytes, StandardCharsets.UTF_8 );
+	}
+
+	@Override
+	public String toString() {
+		return subSequence( 0, length() ).toString();
+	}
+
+}
@@ -0,0 +1,241 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Accumulates the fields of a WDDX recordset column by column, in the order they appear in the packet, and assembles
+ * the resulting {@link Query} once every field has been read.
+ *
+ * Column storage is presized from the declared `rowCount` of the recordset, so a well-formed recordset is decoded
+ * without any intermediate row structs or per-cell key lookups. Numbers fed as text through
+ * {@link #appendNumber(String)} are held in primitive `long` or `double` storage for as long as every cell of the
+ * column is of the same kind, and are only boxed as the query is assembled.
+ */
+public class RecordsetDecoder {
+
+	/**
+	 * The largest column presize honoured from a declared row count. Columns beyond this grow as values arrive.
+	 */
+	private static final int	MAX_PRESIZE	= 65536;
+
+	private final Integer		declaredRowCount;
+	private final WDDXLimits	limits;
+	private final Array			columnNames	= new Array();
+	private final Array			columnTypes	= new Array();
+	private final List<Column>	columns		= new ArrayList<>();
+	private Column				current;
+
+	/**
+	 * Creates a decoder for a recordset, enforcing the module limits
+	 *
+	 * @param declaredRowCount the `rowCount` declared by the recordset, or null if none was declared
+	 */
+	public RecordsetDecoder( Integer declaredRowCount ) {
+		this( declaredRowCount, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Creates a decoder for a recordset
+	 *
+	 * @param declaredRowCount the `rowCount` declared by the recordset, or null if none was declared
+	 * @param limits           the limits enforced on the declared and actual row counts
+	 */
+	public RecordsetDecoder( Integer declaredRowCount, WDDXLimits limits ) {
+		if ( declaredRowCount != null ) {
+			limits.checkRows( declaredRowCount );
+		}
+		this.declaredRowCount	= declaredRowCount;
+		this.limits				= limits;
+	}
+
+	/**
+	 * Reads the `rowCount` attribute of a recordset
+	 *
+	 * @param rowCount the attribute value, or null if the recordset does not declare its row count
+	 *
+	 * @return the declared row count, or null if none was declared
+	 */
+	static Integer rowCount( String rowCount ) {
+		if ( rowCount == null ) {
+			return null;
+		}
+		Integer rows = IntegerCaster.cast( rowCount, false );
+		if ( rows == null || rows < 0 ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: invalid recordset rowCount [" + rowCount + "]" );
+		}
+		return rows;
+	}
+
+	/**
+	 * Starts a new column. Subsequent values are appended to this column.
+	 *
+	 * @param name the field name
+	 * @param type the declared field type, or null for the default of `string`
+	 */
+	public void addColumn( String name, String type ) {
+		columnNames.add( name );
+		columnTypes.add( type != null ? type : "string" );
+		current = new Column( declaredRowCount == null ? 16 : Math.max( 0, Math.min( declaredRowCount, MAX_PRESIZE ) ) );
+		columns.add( current );
+	}
+
+	/**
+	 * Appends the next value of the current column
+	 *
+	 * @param value the cell value
+	 */
+	public void append( Object value ) {
+		current.append( value );
+	}
+
+	/**
+	 * Appends the next value of the current column from the text of a WDDX `number` element. Whole numbers and
+	 * decimals are stored without boxing, see {@link WDDXNumberCodec}.
+	 *
+	 * @param text the number text
+	 */
+	public void appendNumber( String text ) {
+		switch ( WDDXNumberCodec.classify( text ) ) {
+			case WDDXNumberCodec.LONG -> current.appendLong( WDDXNumberCodec.parseLong( text ) );
+			case WDDXNumberCodec.DOUBLE -> current.appendDouble( Double.parseDouble( text ) );
+			default -> current.append( WDDXDecoders.decode( "number", text, WDDXDecoders.NO_ATTRIBUTES ) );
+		}
+	}
+
+	/**
+	 * Assembles the decoded columns in to a query with as many rows as its longest column, but no more than the
+	 * declared row count. Missing cells in short columns are left null.
+	 *
+	 * @return the decoded query
+	 */
+	public Query toQuery() {
+		int rowCount = 0;
+		for ( Column column : columns ) {
+			rowCount = Math.max( rowCount, column.size );
+		}
+		if ( declaredRowCount != null ) {
+			rowCount = Math.max( 0, Math.min( rowCount, declaredRowCount ) );
+		}
+
+		Query	result		= Query.fromArray( columnNames, columnTypes, null );
+		int		columnCount	= columns.size();
+		for ( int row = 0; row < rowCount; row++ ) {
+			Object[] rowData = new Object[ columnCount ];
+			for ( int col = 0; col < columnCount; col++ ) {
+				rowData[ col ] = columns.get( col ).get( row );
+			}
+			result.addRow( rowData );
+		}
+		return result;
+	}
+
+	/**
+	 * The cells of a single field, held in primitive storage while every cell is a whole number, or every cell a
+	 * double, and in object storage otherwise
+	 */
+	private final class Column {
+
+		private final int	presize;
+		private long[]		longs;
+		private double[]	doubles;
+		private Object[]	objects;
+		private int			size;
+
+		Column( int presize ) {
+			this.presize = presize;
+		}
+
+		void appendLong( long value ) {
+			limits.checkRows( size + 1 );
+			if ( size == 0 && doubles == null && objects == null && longs == null ) {
+				longs = new long[ presize ];
+			}
+			if ( longs == null ) {
+				append( WDDXNumberCodec.box( value ) );
+				return;
+			}
+			if ( size == longs.length ) {
+				longs = Arrays.copyOf( longs, grow() );
+			}
+			longs[ size++ ] = value;
+		}
+
+		void appendDouble( double value ) {
+			limits.checkRows( size + 1 );
+			if ( size == 0 && doubles == null && objects == null && longs == null ) {
+				doubles = new double[ presize ];
+			}
+			if ( doubles == null ) {
+				append( Double.valueOf( value ) );
+				return;
+			}
+			if ( size == doubles.length ) {
+				doubles = Arrays.copyOf( doubles, grow() );
+			}
+			doubles[ size++ ] = value;
+		}
+
+		void append( Object value ) {
+			limits.checkRows( size + 1 );
+			if ( objects == null ) {
+				objects = new Object[ Math.max( presize, size ) ];
+				for ( int row = 0; row < size; row++ ) {
+					objects[ row ] = get( row );
+				}
+				longs	= null;
+				doubles	= null;
+			}
+			if ( size == objects.length ) {
+				objects = Arrays.copyOf( objects, grow() );
+			}
+			objects[ size++ ] = value;
+		}
+
+		/**
+		 * The cell of a row, or null past the end of the column
+		 */
+		Object get( int row ) {
+			if ( row >= size ) {
+				return null;
+			} else if ( longs != null ) {
+				return WDDXNumberCodec.box( longs[ row ] );
+			} else if ( doubles != null ) {
+				return doubles[ row ];
+			}
+			return objects[ row ];
+		}
+
+		/**
+		 * The capacity to grow the full column to
+		 */
+		private int grow() {
+			return Math.max( 16, size + ( size >> 1 ) );
+		}
+
+	}
+
+}
@@ -0,0 +1,150 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A {@link Writer} which encodes straight in to a UTF-8 byte buffer, and writes the buffer to an output stream each
+ * time it fills. Unlike an {@link java.io.OutputStreamWriter} there is no charset encoder, lock or intermediate char
+ * buffer, so each char of the packet is visited once on its way to the stream.
+ *
+ * Unpaired surrogates, which the escaper never writes, are encoded as U+FFFD. A writer instance is not thread-safe.
+ */
+public class UTF8Writer extends Writer {
+
+	private static final char	REPLACEMENT	= '\uFFFD';
+
+	private final OutputStream	stream;
+	private final byte[]		buffer;
+	private int					position;
+	private char				highSurrogate;
+
+	/**
+	 * Creates a writer over the given stream
+	 *
+	 * @param stream the stream receiving the encoded bytes
+	 */
+	public UTF8Writer( OutputStream stream ) {
+		this.stream	= stream;
+		this.buffer	= new byte[ 16384 ];
+	}
+
+	@Override
+	public void write( char[] cbuf, int off, int len ) throws IOException {
+		for ( int i = off; i < off + len; i++ ) {
+			write( cbuf[ i ] );
+		}
+	}
+
+	@Override
+	public void write( String str, int off, int len ) throws IOException {
+		for ( int i = off; i < off + len; i++ ) {
+			char c = str.charAt( i );
+			if ( c < 0x80 && position < buffer.length && highSurrogate == 0 ) {
+				buffer[ position++ ] = ( byte ) c;
+			} else {
+				write( c );
+			}
+		}
+	}
+
+	@Override
+	public void write( int c ) throws IOException {
+		write( ( char ) c );
+	}
+
+	/**
+	 * Encodes a single char, holding a high surrogate back until its low surrogate arrives
+	 */
+	private void write( char c ) throws IOException {
+		if ( position > buffer.length - 4 ) {
+			drain();
+		}
+		if ( c < 0x80 && highSurrogate == 0 ) {
+			buffer[ position++ ] = ( byte ) c;
+			return;
+		}
+		if ( highSurrogate != 0 ) {
+			char high = highSurrogate;
+			highSurrogate = 0;
+			if ( Character.isLowSurrogate( c ) ) {
+				int codePoint = Character.toCodePoint( high, c );
+				buffer[ position++ ]	= ( byte ) ( 0xF0 | ( codePoint >> 18 ) );
+				buffer[ position++ ]	= ( byte ) ( 0x80 | ( ( codePoint >> 12 ) & 0x3F ) );
+				buffer[ position++ ]	= ( byte ) ( 0x80 | ( ( codePoint >> 6 ) & 0x3F ) );
+				buffer[ position++ ]	= ( byte ) ( 0x80 | ( codePoint & 0x3F ) );
+				return;
+			}
+			encode( REPLACEMENT );
+			write( c );
+			return;
+		}
+		if ( Character.isHighSurrogate( c ) ) {
+			highSurrogate = c;
+		} else {
+			encode( Character.isLowSurrogate( c ) ? REPLACEMENT : c );
+		}
+	}
+
+	/**
+	 * Encodes a char of the basic multilingual plane which is not a surrogate
+	 */
+	private void encode( char c ) {
+		if ( c < 0x80 ) {
+			buffer[ position++ ] = ( byte ) c;
+		} else if ( c < 0x800 ) {
+			buffer[ position++ ]	= ( byte ) ( 0xC0 | ( c >> 6 ) );
+			buffer[ position++ ]	= ( byte ) ( 0x80 | ( c & 0x3F ) );
+		} else {
+			buffer[ position++ ]	= ( byte ) ( 0xE0 | ( c >> 12 ) );
+			buffer[ position++ ]	= ( byte ) ( 0x80 | ( ( c >> 6 ) & 0x3F ) );
+			buffer[ position++ ]	= ( byte ) ( 0x80 | ( c & 0x3F ) );
+		}
+	}
+
+	/**
+	 * Writes the encoded bytes to the stream and empties the buffer
+	 */
+	private void drain() throws IOException {
+		stream.write( buffer, 0, position );
+		position = 0;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+		stream.flush();
+	}
+
+	/**
+	 * Flushes the writer and closes the stream. A dangling high surrogate is written as U+FFFD.
+	 */
+	@Override
+	public void close() throws IOException {
+		if ( highSurrogate != 0 ) {
+			highSurrogate = 0;
+			encode( REPLACEMENT );
+		}
+		flush();
+		stream.close();
+	}
+
+}
@@ -0,0 +1,195 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import ortus.boxlang.runtime.context.RequestBoxContext;
+import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
+import ortus.boxlang.runtime.dynamic.casters.StringCaster;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Parses or serializes a batch of values concurrently, each on its own virtual thread, with at most a bounded number
+ * of items in flight at once. Every item goes through {@link WDDXUtil}, so the parse cache, limits and metrics apply to
+ * each one.
+ *
+ * Results are returned in input order. An item which fails does not abort the batch: its result is null and the
+ * failure is reported alongside the results. Errors of the virtual machine, other than a stack overflow, are not
+ * caught, and are rethrown to the caller.
+ *
+ * The workers run in the request of the caller, so that the request timezone, settings and interceptors apply to
+ * each item as they would on the calling thread.
+ *
+ * The shared instance is configured from the `batch` group of the module settings.
+ */
+public class WDDXBatch {
+
+	private static volatile WDDXBatch	instance;
+
+	private final int					maxConcurrency;
+
+	/**
+	 * Creates a batch processor
+	 *
+	 * @param maxConcurrency the maximum number of items processed at once, or 0 for the number of available processors
+	 */
+	public WDDXBatch( int maxConcurrency ) {
+		this.maxConcurrency = maxConcurrency > 0 ? maxConcurrency : Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Returns the shared batch processor, configured from the module settings on first use
+	 *
+	 * @return the shared batch processor
+	 */
+	public static WDDXBatch getInstance() {
+		if ( instance == null ) {
+			synchronized ( WDDXBatch.class ) {
+				if ( instance == null ) {
+					IStruct settings = WDDXSettings.getGroup( WDDXKeys.batch );
+					instance = new WDDXBatch( IntegerCaster.cast( settings.getOrDefault( WDDXKeys.maxConcurrency, 0 ) ) );
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Discards the shared batch configuration, so that it is configured from the module settings again on next use
+	 */
+	public static void clearInstance() {
+		synchronized ( WDDXBatch.class ) {
+			instance = null;
+		}
+	}
+
+	/**
+	 * The maximum number of items processed at once
+	 *
+	 * @return the concurrency bound
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * Parses each packet of a batch
+	 *
+	 * @param packets the WDDX packets
+	 * @param lazy    whether struct members should be decoded on first read
+	 *
+	 * @return a struct of the `results`, in input order, and the `errors` of the packets which failed
+	 */
+	public IStruct parseAll( List<?> packets, boolean lazy ) {
+		return apply( packets, packet -> WDDXUtil.parse( StringCaster.cast( packet ), lazy ) );
+	}
+
+	/**
+	 * Serializes each value of a batch to a packet
+	 *
+	 * @param values the values to serialize
+	 *
+	 * @return a struct of the `results`, in input order, and the `errors` of the values which failed
+	 */
+	public IStruct serializeAll( List<?> values ) {
+		return apply( values, WDDXUtil::serialize );
+	}
+
+	/**
+	 * Applies an operation to every item of a batch. Small batches, or a concurrency of one, run on the calling thread.
+	 *
+	 * @param items     the items
+	 * @param operation the operation applied to each item
+	 *
+	 * @return a struct of the `results`, in input order, and the `errors` of the items which failed. Each error holds
+	 *         the one-based `index` of its item and the `message` of the failure.
+	 */
+	public IStruct apply( List<?> items, Function<Object, Object> operation ) {
+		int				size		= items.size();
+		Object[]		results		= new Object[ size ];
+		Throwable[]		failures	= new Throwable[ size ];
+		List<Object>	inputs		= new ArrayList<>( items );
+
+		if ( size < 2 || maxConcurrency == 1 ) {
+			for ( int i = 0; i < size; i++ ) {
+				run( inputs, i, operation, results, failures );
+			}
+		} else {
+			RequestBoxContext		context	= RequestBoxContext.getCurrent();
+			AtomicReference<Error>	fatal	= new AtomicReference<>();
+			Semaphore				permits	= new Semaphore( maxConcurrency );
+			try ( ExecutorService executor = Executors.newThreadPerTaskExecutor( Thread.ofVirtual().name( "wddx-batch-", 0 ).factory() ) ) {
+				for ( int i = 0; i < size && fatal.get() == null; i++ ) {
+					int index = i;
+					permits.acquire();
+					executor.execute( () -> {
+						if ( context != null ) {
+							RequestBoxContext.setCurrent( context );
+						}
+						try {
+							run( inputs, index, operation, results, failures );
+						} catch ( Error e ) {
+							fatal.compareAndSet( null, e );
+						} finally {
+							RequestBoxContext.removeCurrent();
+							permits.release();
+						}
+					} );
+				}
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				throw new BoxRuntimeException( "The WDDX batch was interrupted", e );
+			}
+			if ( fatal.get() != null ) {
+				throw fatal.get();
+			}
+		}
+
+		Array errors = new Array();
+		for ( int i = 0; i < size; i++ ) {
+			if ( failures[ i ] != null ) {
+				String message = failures[ i ].getMessage();
+				errors.add( Struct.of( "index", i + 1, "message", message != null ? message : failures[ i ].getClass().getName() ) );
+			}
+		}
+		return Struct.of( "results", Array.fromArray( results ), "errors", errors );
+	}
+
+	/**
+	 * Processes a single item, capturing an exception or a stack overflow, such as from a deeply nested value, so that
+	 * it is reported with the item. Other errors leave the virtual machine in an unknown state, so they are not caught.
+	 */
+	private static void run( List<Object> inputs, int index, Function<Object, Object> operation, Object[] results, Throwable[] failures ) {
+		try {
+			results[ index ] = operation.apply( inputs.get( index ) );
+		} catch ( Exception | StackOverflowError e ) {
+			failures[ index ] = e;
+		}
+	}
+
+}
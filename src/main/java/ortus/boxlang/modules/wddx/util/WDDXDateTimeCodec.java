@@ -0,0 +1,305 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.RequestBoxContext;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.util.LocalizationUtil;
+
+/**
+ * Encodes and decodes the text of WDDX `dateTime` elements, which hold ISO-8601 date times such as
+ * `2024-01-05T03:04:05-05:00`.
+ *
+ * Date times are written digit by digit straight in to the output buffer. They are read by scanning the fields in
+ * order, without a formatter or regular expression. The canonical padded form and the unpadded form written by some
+ * WDDX implementations, such as `2024-1-5T3:4:5-5:0`, are both accepted. A date time without an offset is in the
+ * timezone of the current request, or of the runtime outside of a request.
+ */
+public final class WDDXDateTimeCodec {
+
+	private WDDXDateTimeCodec() {
+	}
+
+	/**
+	 * Appends the ISO-8601 text of a date time. Fractional seconds are written only when present, with 3, 6 or 9
+	 * digits.
+	 *
+	 * @param out          the buffer to append to
+	 * @param value        the date time
+	 * @param timezoneInfo whether the offset from UTC is written, or only the local date and time
+	 */
+	public static void append( StringBuilder out, ZonedDateTime value, boolean timezoneInfo ) {
+		int year = value.getYear();
+		if ( year < 0 || year > 9999 ) {
+			out.append( year );
+		} else {
+			pad( out, year, 4 );
+		}
+		out.append( '-' );
+		pad( out, value.getMonthValue(), 2 );
+		out.append( '-' );
+		pad( out, value.getDayOfMonth(), 2 );
+		out.append( 'T' );
+		pad( out, value.getHour(), 2 );
+		out.append( ':' );
+		pad( out, value.getMinute(), 2 );
+		out.append( ':' );
+		pad( out, value.getSecond(), 2 );
+
+		int nanos = value.getNano();
+		if ( nanos != 0 ) {
+			out.append( '.' );
+			if ( nanos % 1_000_000 == 0 ) {
+				pad( out, nanos / 1_000_000, 3 );
+			} else if ( nanos % 1_000 == 0 ) {
+				pad( out, nanos / 1_000, 6 );
+			} else {
+				pad( out, nanos, 9 );
+			}
+		}
+
+		if ( timezoneInfo ) {
+			int offset = value.getOffset().getTotalSeconds();
+			if ( offset == 0 ) {
+				out.append( 'Z' );
+			} else {
+				out.append( offset < 0 ? '-' : '+' );
+				offset = Math.abs( offset );
+				pad( out, offset / 3600, 2 );
+				out.append( ':' );
+				pad( out, offset / 60 % 60, 2 );
+				if ( offset % 60 != 0 ) {
+					out.append( ':' );
+					pad( out, offset % 60, 2 );
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decodes the text of a date time. A date without a time is midnight, and a date time without an offset is in
+	 * the timezone of the current request, or of the runtime outside of a request.
+	 *
+	 * @param text the date time text, optionally surrounded by whitespace
+	 *
+	 * @return the date time, or null if the text is not an ISO-8601 date time
+	 */
+	public static DateTime decode( String text ) {
+		return decode( text, null );
+	}
+
+	/**
+	 * Decodes the text of a date time. A date without a time is midnight, and a date time without an offset is in
+	 * the given timezone, which a parser resolves once per packet with {@link #defaultZone()}.
+	 *
+	 * @param text the date time text, optionally surrounded by whitespace
+	 * @param zone the timezone of a date time without an offset, or null for that of the current request
+	 *
+	 * @return the date time, or null if the text is not an ISO-8601 date time
+	 */
+	public static DateTime decode( String text, ZoneId zone ) {
+		Scanner scanner = new Scanner( text, zone );
+		try {
+			int year = scanner.number( 4, 4 );
+			scanner.expect( '-' );
+			int month = scanner.number( 1, 2 );
+			scanner.expect( '-' );
+			int	day		= scanner.number( 1, 2 );
+			int	hour	= 0;
+			int	minute	= 0;
+			int	second	= 0;
+			int	nanos	= 0;
+			if ( scanner.skip( 'T' ) || scanner.skip( ' ' ) ) {
+				hour = scanner.number( 1, 2 );
+				scanner.expect( ':' );
+				minute = scanner.number( 1, 2 );
+				if ( scanner.skip( ':' ) ) {
+					second = scanner.number( 1, 2 );
+					if ( scanner.skip( '.' ) ) {
+						nanos = scanner.fraction();
+					}
+				}
+			}
+			ZoneId offset = scanner.offset();
+			if ( offset == null || !scanner.atEnd() ) {
+				return null;
+			}
+			return new DateTime( ZonedDateTime.of( year, month, day, hour, minute, second, nanos, offset ) );
+		} catch ( DateTimeException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * The timezone of a date time written without an offset: that of the current request, or of the runtime outside
+	 * of a request
+	 *
+	 * @return the timezone
+	 */
+	public static ZoneId defaultZone() {
+		IBoxContext context = RequestBoxContext.getCurrent();
+		return LocalizationUtil.parseZoneId( null, context != null ? context : BoxRuntime.getInstance().getRuntimeContext() );
+	}
+
+	/**
+	 * Appends a number left-padded with zeros to the given width
+	 */
+	private static void pad( StringBuilder out, int value, int width ) {
+		for ( int limit = 10, digits = 1; digits < width; limit *= 10, digits++ ) {
+			if ( value < limit ) {
+				out.append( '0' );
+			}
+		}
+		out.append( value );
+	}
+
+	/**
+	 * Reads the fields of a date time in order. A malformed field throws a {@link DateTimeException}.
+	 */
+	private static final class Scanner {
+
+		private final String	text;
+		private final ZoneId	zone;
+		private final int		end;
+		private int				pos;
+
+		Scanner( String text, ZoneId zone ) {
+			int	start	= 0;
+			int	limit	= text.length();
+			while ( start < limit && Character.isWhitespace( text.charAt( start ) ) ) {
+				start++;
+			}
+			while ( limit > start && Character.isWhitespace( text.charAt( limit - 1 ) ) ) {
+				limit--;
+			}
+			this.text	= text;
+			this.zone	= zone;
+			this.pos	= start;
+			this.end	= limit;
+		}
+
+		/**
+		 * Reads an unsigned number of between min and max digits
+		 */
+		int number( int min, int max ) {
+			int	value	= 0;
+			int	digits	= 0;
+			while ( pos < end && digits < max ) {
+				char c = text.charAt( pos );
+				if ( c < '0' || c > '9' ) {
+					break;
+				}
+				value = value * 10 + ( c - '0' );
+				digits++;
+				pos++;
+			}
+			if ( digits < min ) {
+				throw new DateTimeException( "Expected a number at [" + pos + "]" );
+			}
+			return value;
+		}
+
+		/**
+		 * Reads a fraction of a second, of up to nine significant digits, as nanoseconds
+		 */
+		int fraction() {
+			int	value	= 0;
+			int	digits	= 0;
+			while ( pos < end && text.charAt( pos ) >= '0' && text.charAt( pos ) <= '9' ) {
+				if ( digits < 9 ) {
+					value = value * 10 + ( text.charAt( pos ) - '0' );
+					digits++;
+				}
+				pos++;
+			}
+			if ( digits == 0 ) {
+				throw new DateTimeException( "Expected a fraction of a second" );
+			}
+			for ( ; digits < 9; digits++ ) {
+				value *= 10;
+			}
+			return value;
+		}
+
+		/**
+		 * Reads an optional offset: `Z`, or a sign and hours, optionally followed by minutes with or without a colon
+		 *
+		 * @return the offset, the given or request timezone if there is none, or null if the text is not an offset
+		 */
+		ZoneId offset() {
+			if ( pos == end ) {
+				return zone != null ? zone : defaultZone();
+			}
+			char c = text.charAt( pos++ );
+			if ( c == 'Z' || c == 'z' ) {
+				return ZoneOffset.UTC;
+			}
+			if ( c != '+' && c != '-' ) {
+				return null;
+			}
+			int	hours	= number( 1, 2 );
+			int	minutes	= 0;
+			if ( skip( ':' ) ) {
+				minutes = number( 1, 2 );
+			} else if ( pos < end ) {
+				minutes = number( 2, 2 );
+			}
+			if ( hours > 18 || minutes > 59 ) {
+				return null;
+			}
+			int seconds = hours * 3600 + minutes * 60;
+			// the JDK caches the quarter-hour offsets
+			return ZoneOffset.ofTotalSeconds( c == '-' ? -seconds : seconds );
+		}
+
+		/**
+		 * Skips the given char, which must be next
+		 */
+		void expect( char c ) {
+			if ( !skip( c ) ) {
+				throw new DateTimeException( "Expected [" + c + "] at [" + pos + "]" );
+			}
+		}
+
+		/**
+		 * Skips the given char if it is next
+		 *
+		 * @return whether the char was skipped
+		 */
+		boolean skip( char c ) {
+			if ( pos < end && text.charAt( pos ) == c ) {
+				pos++;
+				return true;
+			}
+			return false;
+		}
+
+		boolean atEnd() {
+			return pos == end;
+		}
+
+	}
+
+}
@@ -0,0 +1,166 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.dynamic.casters.BooleanCaster;
+import ortus.boxlang.runtime.dynamic.casters.DateTimeCaster;
+import ortus.boxlang.runtime.dynamic.casters.GenericCaster;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * The table of decoders for WDDX simple value elements. Each decoder parses the element text directly in to its
+ * target type; elements without a decoder, or text a decoder cannot parse, fall back to the {@link GenericCaster}.
+ */
+public class WDDXDecoders {
+
+	/**
+	 * Decodes the content of a single simple value element
+	 */
+	@FunctionalInterface
+	public interface ElementDecoder {
+
+		/**
+		 * @param text       the text content of the element
+		 * @param attributes a lookup of the element's attributes by name
+		 *
+		 * @return the decoded value
+		 */
+		Object decode( String text, UnaryOperator<String> attributes );
+	}
+
+	/**
+	 * An attribute lookup for elements which have no attributes
+	 */
+	public static final UnaryOperator<String>			NO_ATTRIBUTES	= name -> null;
+
+	private static final IBoxContext					context			= BoxRuntime.getInstance().getRuntimeContext();
+
+	private static final Map<String, ElementDecoder>	decoders		= Map.of(
+	    "string", ( text, attributes ) -> text,
+	    "number", ( text, attributes ) -> decodeNumber( text ),
+	    "dateTime", ( text, attributes ) -> decodeDateTime( text, null ),
+	    "boolean", ( text, attributes ) -> decodeBoolean( attributes.apply( "value" ) ),
+	    "null", ( text, attributes ) -> null,
+	    "char", ( text, attributes ) -> String.valueOf( decodeChar( attributes.apply( "code" ) ) ),
+	    "binary", ( text, attributes ) -> decodeBinary( text )
+	);
+
+	private WDDXDecoders() {
+	}
+
+	/**
+	 * Decodes a simple value element
+	 *
+	 * @param element    the element name
+	 * @param text       the text content of the element
+	 * @param attributes a lookup of the element's attributes by name
+	 *
+	 * @return the decoded value
+	 */
+	public static Object decode( String element, String text, UnaryOperator<String> attributes ) {
+		return decode( element, text, attributes, null );
+	}
+
+	/**
+	 * Decodes a simple value element of a packet whose timezone has already been resolved
+	 *
+	 * @param element    the element name
+	 * @param text       the text content of the element
+	 * @param attributes a lookup of the element's attributes by name
+	 * @param zone       the timezone of a date time without an offset, or null for that of the current request
+	 *
+	 * @return the decoded value
+	 */
+	public static Object decode( String element, String text, UnaryOperator<String> attributes, ZoneId zone ) {
+		if ( zone != null && element.equals( "dateTime" ) ) {
+			return decodeDateTime( text, zone );
+		}
+		ElementDecoder decoder = decoders.get( element );
+		if ( decoder == null ) {
+			return GenericCaster.cast( context, text, element );
+		}
+		return decoder.decode( text, attributes );
+	}
+
+	/**
+	 * Decodes a WDDX number, falling back to the generic caster for text which is not a plain decimal number
+	 */
+	private static Object decodeNumber( String text ) {
+		Number value = WDDXNumberCodec.decode( text );
+		return value != null ? value : GenericCaster.cast( context, text, "number" );
+	}
+
+	/**
+	 * Decodes an ISO-8601 WDDX dateTime, falling back to the generic date caster for other formats
+	 */
+	private static Object decodeDateTime( String text, ZoneId zone ) {
+		DateTime value = WDDXDateTimeCodec.decode( text, zone );
+		return value != null ? value : DateTimeCaster.cast( text.trim() );
+	}
+
+	/**
+	 * Decodes the value attribute of a WDDX boolean
+	 */
+	private static Boolean decodeBoolean( String value ) {
+		if ( "true".equalsIgnoreCase( value ) ) {
+			return Boolean.TRUE;
+		} else if ( "false".equalsIgnoreCase( value ) ) {
+			return Boolean.FALSE;
+		}
+		return BooleanCaster.cast( value );
+	}
+
+	/**
+	 * Decodes the hexadecimal code of a WDDX `char` element
+	 *
+	 * @param code the code attribute of the element
+	 *
+	 * @return the character
+	 */
+	static char decodeChar( String code ) {
+		try {
+			int value = Integer.parseInt( code, 16 );
+			if ( value >= 0 && value <= Character.MAX_VALUE ) {
+				return ( char ) value;
+			}
+		} catch ( NumberFormatException e ) {
+			// reported below
+		}
+		throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: invalid char code [" + code + "]" );
+	}
+
+	/**
+	 * Decodes the base64 content of a WDDX binary
+	 */
+	private static byte[] decodeBinary( String text ) {
+		try {
+			return Base64.getMimeDecoder().decode( text.trim() );
+		} catch ( IllegalArgumentException e ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: invalid binary data", e );
+		}
+	}
+
+}
@@ -0,0 +1,207 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+/**
+ * Single pass XML escaping for WDDX packets. Each value is scanned once, runs of characters which need no escaping are
+ * copied in bulk, and a value which needs no escaping at all is returned (or appended) as-is without any copy.
+ *
+ * Characters which XML 1.0 does not allow are never written as-is. In text content they are written as WDDX
+ * `<char code="..."/>` elements, which every WDDX parser expands back to the original character, along with carriage
+ * returns, which XML parsers would otherwise normalize away. In attribute values, where elements are not allowed, tabs,
+ * line feeds and carriage returns are written as character references and any other illegal character is replaced by
+ * U+FFFD.
+ */
+public final class WDDXEscaper {
+
+	private static final char[]	HEX					= "0123456789abcdef".toCharArray();
+	private static final char	REPLACEMENT			= '\uFFFD';
+
+	/**
+	 * The characters below 64 which need escaping in text and attributes respectively, as bit sets. Every control
+	 * character needs escaping, other than tabs and line feeds in text.
+	 */
+	private static final long	CONTROL				= ( 1L << 32 ) - 1;
+	private static final long	TEXT_UNSAFE			= CONTROL & ~ ( 1L << '\t' | 1L << '\n' ) | unsafe( "&<>" );
+	private static final long	ATTRIBUTE_UNSAFE	= CONTROL | unsafe( "&<>\"'" );
+
+	private WDDXEscaper() {
+	}
+
+	/**
+	 * Escapes a value for use as XML text content
+	 *
+	 * @param value the value to escape
+	 *
+	 * @return the escaped value, which is the value itself if nothing needed escaping, or an empty string for null
+	 */
+	public static String escapeText( String value ) {
+		if ( value == null ) {
+			return "";
+		}
+		int first = firstUnsafe( value, TEXT_UNSAFE );
+		if ( first < 0 ) {
+			return value;
+		}
+		StringBuilder out = new StringBuilder( value.length() + 16 );
+		escape( out, value, first, TEXT_UNSAFE );
+		return out.toString();
+	}
+
+	/**
+	 * Escapes a value for use as an XML attribute value
+	 *
+	 * @param value the value to escape
+	 *
+	 * @return the escaped value, which is the value itself if nothing needed escaping, or an empty string for null
+	 */
+	public static String escapeAttribute( String value ) {
+		if ( value == null ) {
+			return "";
+		}
+		int first = firstUnsafe( value, ATTRIBUTE_UNSAFE );
+		if ( first < 0 ) {
+			return value;
+		}
+		StringBuilder out = new StringBuilder( value.length() + 16 );
+		escape( out, value, first, ATTRIBUTE_UNSAFE );
+		return out.toString();
+	}
+
+	/**
+	 * Appends a value to a buffer as escaped XML text content
+	 *
+	 * @param out   the buffer
+	 * @param value the value to append, where null appends nothing
+	 */
+	public static void appendText( StringBuilder out, String value ) {
+		if ( value != null ) {
+			escape( out, value, firstUnsafe( value, TEXT_UNSAFE ), TEXT_UNSAFE );
+		}
+	}
+
+	/**
+	 * Appends a value to a buffer as an escaped XML attribute value
+	 *
+	 * @param out   the buffer
+	 * @param value the value to append, where null appends nothing
+	 */
+	public static void appendAttribute( StringBuilder out, String value ) {
+		if ( value != null ) {
+			escape( out, value, firstUnsafe( value, ATTRIBUTE_UNSAFE ), ATTRIBUTE_UNSAFE );
+		}
+	}
+
+	/**
+	 * Finds the first character which needs escaping
+	 *
+	 * @return its index, or -1 if the value can be written as-is
+	 */
+	private static int firstUnsafe( String value, long unsafe ) {
+		int length = value.length();
+		for ( int i = 0; i < length; i++ ) {
+			char c = value.charAt( i );
+			if ( isUnsafe( value, i, c, unsafe ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Appends the value, escaping from the first unsafe character onwards
+	 */
+	private static void escape( StringBuilder out, String value, int first, long unsafe ) {
+		if ( first < 0 ) {
+			out.append( value );
+			return;
+		}
+		boolean	attribute	= unsafe == ATTRIBUTE_UNSAFE;
+		int		length		= value.length();
+		int		run			= 0;
+		for ( int i = first; i < length; i++ ) {
+			char c = value.charAt( i );
+			if ( !isUnsafe( value, i, c, unsafe ) ) {
+				continue;
+			}
+			out.append( value, run, i );
+			run = i + 1;
+			switch ( c ) {
+				case '&' -> out.append( "&amp;" );
+				case '<' -> out.append( "&lt;" );
+				case '>' -> out.append( "&gt;" );
+				case '"' -> out.append( "&quot;" );
+				case '\'' -> out.append( "&apos;" );
+				case '\t' -> out.append( "&#x9;" );
+				case '\n' -> out.append( "&#xA;" );
+				default -> {
+					if ( attribute ) {
+						out.append( c == '\r' ? "&#xD;" : String.valueOf( REPLACEMENT ) );
+					} else {
+						appendChar( out, c );
+					}
+				}
+			}
+		}
+		out.append( value, run, length );
+	}
+
+	/**
+	 * Whether the character at the given index needs escaping
+	 */
+	private static boolean isUnsafe( String value, int i, char c, long unsafe ) {
+		return c < 64 ? ( unsafe & ( 1L << c ) ) != 0 : c >= '\uD800' && needsEscape( value, i, c );
+	}
+
+	/**
+	 * Whether a character at or above the surrogate range must be escaped: an unpaired surrogate, or one of the
+	 * non-characters U+FFFE and U+FFFF
+	 */
+	private static boolean needsEscape( String value, int i, char c ) {
+		if ( Character.isHighSurrogate( c ) ) {
+			return i + 1 == value.length() || !Character.isLowSurrogate( value.charAt( i + 1 ) );
+		}
+		if ( Character.isLowSurrogate( c ) ) {
+			return i == 0 || !Character.isHighSurrogate( value.charAt( i - 1 ) );
+		}
+		return c == '\uFFFE' || c == '\uFFFF';
+	}
+
+	/**
+	 * Appends a WDDX char element for a character which cannot be written as XML text
+	 */
+	private static void appendChar( StringBuilder out, char c ) {
+		out.append( "<char code=\"" );
+		if ( c > 0xFF ) {
+			out.append( HEX[ ( c >> 12 ) & 0xF ] ).append( HEX[ ( c >> 8 ) & 0xF ] );
+		}
+		out.append( HEX[ ( c >> 4 ) & 0xF ] ).append( HEX[ c & 0xF ] ).append( "\"/>" );
+	}
+
+	/**
+	 * A bit set of the given characters, each of which must be below 64
+	 */
+	private static long unsafe( String chars ) {
+		long bits = 0;
+		for ( char c : chars.toCharArray() ) {
+			bits |= 1L << c;
+		}
+		return bits;
+	}
+
+}
@@ -0,0 +1,370 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Transcodes a WDDX packet directly to a JavaScript variable assignment, in a single pass over the packet's StAX
+ * events, without building either an XML DOM or the BoxLang representation of the packet.
+ *
+ * Structs and arrays are written as object and array literals as they are read. Recordsets are written in the row
+ * oriented `{"columns":[...],"data":[[...]]}` format, so as WDDX stores them by column the encoded cells of a recordset
+ * are buffered until its last field has been read. The column oriented format can be streamed without buffering.
+ * No `Query` is created.
+ *
+ * The same transcoder writes plain JSON when no variable name is given. The {@link WDDXLimits} apply to the packet as
+ * they do when it is parsed.
+ */
+public class WDDXJavascriptTranscoder {
+
+	private final WDDXParser		parser;
+	private final boolean			columnQueries;
+	private WDDXJavascriptWriter	out;
+
+	/**
+	 * Creates a transcoder
+	 *
+	 * @param source the reader supplying the WDDX xml
+	 * @param out    the writer receiving the JavaScript
+	 */
+	public WDDXJavascriptTranscoder( Reader source, WDDXJavascriptWriter out ) {
+		this( source, out, false );
+	}
+
+	/**
+	 * Creates a transcoder
+	 *
+	 * @param source        the reader supplying the WDDX xml
+	 * @param out           the writer receiving the JavaScript
+	 * @param columnQueries whether recordsets are written in the column oriented
+	 *                      `{"columns":[...],"rowCount":n,"data":{"name":[...]}}` format rather than by row
+	 */
+	public WDDXJavascriptTranscoder( Reader source, WDDXJavascriptWriter out, boolean columnQueries ) {
+		this( source, out, columnQueries, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Creates a transcoder
+	 *
+	 * @param source        the reader supplying the WDDX xml
+	 * @param out           the writer receiving the JavaScript
+	 * @param columnQueries whether recordsets are written by column rather than by row
+	 * @param limits        the limits enforced while the packet is read
+	 */
+	public WDDXJavascriptTranscoder( Reader source, WDDXJavascriptWriter out, boolean columnQueries, WDDXLimits limits ) {
+		this.parser			= new WDDXParser( source, limits );
+		this.out			= out;
+		this.columnQueries	= columnQueries;
+	}
+
+	/**
+	 * Translates a WDDX packet to a JavaScript variable assignment
+	 *
+	 * @param wddx         the WDDX xml
+	 * @param variableName the name of the variable to assign
+	 *
+	 * @return the JavaScript statement
+	 */
+	public static String translate( String wddx, String variableName ) {
+		WDDXJavascriptWriter out = new WDDXJavascriptWriter();
+		new WDDXJavascriptTranscoder( new StringReader( wddx ), out ).transcode( variableName );
+		return out.toString();
+	}
+
+	/**
+	 * Translates a WDDX packet to JSON
+	 *
+	 * @param wddx          the WDDX xml
+	 * @param columnQueries whether recordsets are written by column rather than by row
+	 *
+	 * @return the JSON
+	 */
+	public static String toJSON( String wddx, boolean columnQueries ) {
+		WDDXJavascriptWriter out = new WDDXJavascriptWriter();
+		new WDDXJavascriptTranscoder( new StringReader( wddx ), out, columnQueries ).transcode( null );
+		return out.toString();
+	}
+
+	/**
+	 * Reads the packet and writes the assignment of its value to the given variable
+	 *
+	 * @param variableName the name of the variable to assign, or null to write the value alone as JSON
+	 */
+	public void transcode( String variableName ) {
+		try {
+			if ( !parser.nextChildElement() || !parser.localName().equals( "wddxPacket" ) ) {
+				throw new BoxRuntimeException( "The object provided is not a valid WDDX packet" );
+			}
+			if ( variableName != null ) {
+				out.append( variableName ).append( " = " );
+			}
+			boolean written = false;
+			while ( parser.nextChildElement() ) {
+				if ( parser.localName().equals( "data" ) && !written ) {
+					writeWrappedValue();
+					written = true;
+				} else {
+					parser.skipElement();
+				}
+			}
+			parser.endDocument();
+			if ( !written ) {
+				out.append( "null" );
+			}
+			if ( variableName != null ) {
+				out.append( ';' );
+			}
+			out.flush();
+		} catch ( XMLStreamException e ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: " + e.getMessage(), e );
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Writes the value element the parser is positioned on, leaving the parser on its end tag
+	 */
+	private void writeValue() throws XMLStreamException {
+		switch ( parser.localName() ) {
+			case "struct" : {
+				parser.enter();
+				out.append( '{' );
+				boolean first = true;
+				while ( parser.nextChildElement() ) {
+					if ( !first ) {
+						out.append( ',' );
+					}
+					first = false;
+					out.writeString( parser.requiredAttribute( "name" ) ).append( ':' );
+					writeWrappedValue();
+				}
+				out.append( '}' );
+				parser.exit();
+				break;
+			}
+			case "array" : {
+				parser.enter();
+				out.append( '[' );
+				boolean first = true;
+				while ( parser.nextChildElement() ) {
+					if ( !first ) {
+						out.append( ',' );
+					}
+					first = false;
+					writeValue();
+				}
+				out.append( ']' );
+				parser.exit();
+				break;
+			}
+			case "recordset" : {
+				parser.enter();
+				writeRecordset();
+				parser.exit();
+				break;
+			}
+			default : {
+				out.writeSimple( parser.readValue() );
+				break;
+			}
+		}
+		out.drainIfFull();
+	}
+
+	/**
+	 * Writes the single value wrapped by the current element, or null if it is empty
+	 */
+	private void writeWrappedValue() throws XMLStreamException {
+		if ( parser.nextChildElement() ) {
+			writeValue();
+			while ( parser.nextChildElement() ) {
+				parser.skipElement();
+			}
+		} else {
+			out.append( "null" );
+		}
+	}
+
+	/**
+	 * Writes a recordset. Column oriented recordsets which declare their row count and field names are streamed,
+	 * otherwise each field is encoded in to its own buffer, and the buffered cells are written out once the last field
+	 * has been read. A buffered recordset has as many rows as its longest field, up to its declared row count.
+	 */
+	private void writeRecordset() throws XMLStreamException {
+		Integer	rowCount	= RecordsetDecoder.rowCount( parser.attribute( "rowCount" ) );
+		String	fieldNames	= parser.attribute( "fieldNames" );
+		if ( rowCount != null ) {
+			parser.limits().checkRows( rowCount );
+		}
+		if ( columnQueries && rowCount != null && fieldNames != null ) {
+			writeColumns( rowCount, fieldNames.isEmpty() ? new String[ 0 ] : fieldNames.split( "," ) );
+			return;
+		}
+
+		List<Column>			columns	= new ArrayList<>();
+		WDDXJavascriptWriter	target	= out;
+		try {
+			while ( parser.nextChildElement() ) {
+				parser.countElement();
+				Column column = new Column( parser.requiredAttribute( "name" ) );
+				columns.add( column );
+				out = column.cells;
+				while ( parser.nextChildElement() ) {
+					parser.limits().checkRows( column.size + 1 );
+					writeValue();
+					column.endCell();
+				}
+			}
+		} finally {
+			out = target;
+		}
+
+		int rows = 0;
+		for ( Column column : columns ) {
+			rows = Math.max( rows, column.size );
+		}
+		if ( rowCount != null ) {
+			rows = Math.min( rows, rowCount );
+		}
+
+		out.append( "{\"columns\":[" );
+		for ( int col = 0; col < columns.size(); col++ ) {
+			if ( col > 0 ) {
+				out.append( ',' );
+			}
+			out.writeString( columns.get( col ).name );
+		}
+		if ( columnQueries ) {
+			out.append( "],\"rowCount\":" ).append( String.valueOf( rows ) ).append( ",\"data\":{" );
+			for ( int col = 0; col < columns.size(); col++ ) {
+				out.append( col == 0 ? "" : "," ).writeString( columns.get( col ).name ).append( ":[" );
+				for ( int row = 0; row < rows; row++ ) {
+					if ( row > 0 ) {
+						out.append( ',' );
+					}
+					columns.get( col ).writeCell( row, out );
+				}
+				out.append( ']' );
+				out.drainIfFull();
+			}
+			out.append( "}}" );
+			return;
+		}
+		out.append( "],\"data\":[" );
+		for ( int row = 0; row < rows; row++ ) {
+			out.append( row == 0 ? "[" : ",[" );
+			for ( int col = 0; col < columns.size(); col++ ) {
+				if ( col > 0 ) {
+					out.append( ',' );
+				}
+				columns.get( col ).writeCell( row, out );
+			}
+			out.append( ']' );
+			out.drainIfFull();
+		}
+		out.append( "]}" );
+	}
+
+	/**
+	 * Streams a recordset in the column oriented format, as its fields are read. The declared row count, which has
+	 * already been checked against the row limit, is written up front, so short fields are padded with nulls and
+	 * surplus cells are skipped. Each padded null counts against the element limit, so a large declared row count
+	 * cannot amplify a small packet.
+	 */
+	private void writeColumns( int rowCount, String[] fieldNames ) throws XMLStreamException {
+		out.append( "{\"columns\":[" );
+		for ( int col = 0; col < fieldNames.length; col++ ) {
+			if ( col > 0 ) {
+				out.append( ',' );
+			}
+			out.writeString( fieldNames[ col ] );
+		}
+		out.append( "],\"rowCount\":" ).append( String.valueOf( rowCount ) ).append( ",\"data\":{" );
+		boolean firstField = true;
+		while ( parser.nextChildElement() ) {
+			parser.countElement();
+			out.append( firstField ? "" : "," ).writeString( parser.requiredAttribute( "name" ) ).append( ":[" );
+			firstField = false;
+			int rows = 0;
+			while ( parser.nextChildElement() ) {
+				if ( rows == rowCount ) {
+					parser.skipElement();
+					continue;
+				}
+				if ( rows++ > 0 ) {
+					out.append( ',' );
+				}
+				writeValue();
+			}
+			for ( ; rows < rowCount; rows++ ) {
+				parser.countElement();
+				out.append( rows == 0 ? "null" : ",null" );
+				out.drainIfFull();
+			}
+			out.append( ']' );
+		}
+		out.append( "}}" );
+	}
+
+	/**
+	 * The encoded cells of a recordset field
+	 */
+	private static class Column {
+
+		private final String				name;
+		private final WDDXJavascriptWriter	cells	= new WDDXJavascriptWriter();
+		private int[]						ends	= new int[ 16 ];
+		private int							size;
+
+		Column( String name ) {
+			this.name = name;
+		}
+
+		/**
+		 * Marks the end of the cell which has just been written
+		 */
+		void endCell() {
+			if ( size == ends.length ) {
+				ends = Arrays.copyOf( ends, size * 2 );
+			}
+			ends[ size++ ] = cells.length();
+		}
+
+		/**
+		 * Writes the encoded cell of the given row, or null if the field has no such row
+		 */
+		void writeCell( int row, WDDXJavascriptWriter target ) {
+			if ( row < size ) {
+				target.append( cells, row == 0 ? 0 : ends[ row - 1 ], ends[ row ] );
+			} else {
+				target.append( "null" );
+			}
+		}
+	}
+
+}
@@ -0,0 +1,495 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import ortus.boxlang.modules.wddx.types.DateTimeHandler;
+import ortus.boxlang.runtime.dynamic.casters.DateTimeCaster;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Writes JavaScript object literal text (JSON) in to a single growable buffer, optionally draining it to a
+ * {@link Writer} sink each time it fills, in the same way as {@link WDDXSerializer}.
+ *
+ * A writer instance owns its buffer and is not thread-safe.
+ */
+public class WDDXJavascriptWriter {
+
+	/**
+	 * The buffer size, in chars, at which the buffer is drained to the sink
+	 */
+	private static final int		DRAIN_THRESHOLD	= 8192;
+
+	/**
+	 * The buffer capacity, in chars, above which {@link #reset()} releases the buffer
+	 */
+	private static final int		MAX_RETAINED	= 65536;
+
+	private static final char[]		HEX				= "0123456789abcdef".toCharArray();
+
+	/**
+	 * Returned by a frame once every item of its container has been written
+	 */
+	private static final Object		NO_VALUE		= new Object();
+
+	private final StringBuilder		out;
+	private final Writer			sink;
+	private final ArrayDeque<Frame>	frames			= new ArrayDeque<>();
+	private final Set<Object>		ancestors		= Collections.newSetFromMap( new IdentityHashMap<>() );
+
+	/**
+	 * Creates a buffer-only writer
+	 */
+	public WDDXJavascriptWriter() {
+		this.out	= new StringBuilder( 256 );
+		this.sink	= null;
+	}
+
+	/**
+	 * Creates a writer which streams its output to the given writer. The writer is flushed, but not closed, by
+	 * {@link #flush()}.
+	 *
+	 * @param sink the writer to receive the JavaScript
+	 */
+	public WDDXJavascriptWriter( Writer sink ) {
+		this.out	= new StringBuilder( DRAIN_THRESHOLD + 256 );
+		this.sink	= sink;
+	}
+
+	/**
+	 * Appends raw JavaScript text
+	 *
+	 * @param text the text to append
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter append( String text ) {
+		out.append( text );
+		return this;
+	}
+
+	/**
+	 * Appends a single raw character
+	 *
+	 * @param c the character to append
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter append( char c ) {
+		out.append( c );
+		return this;
+	}
+
+	/**
+	 * Appends a range of the buffer of another writer
+	 *
+	 * @param other the writer holding the text
+	 * @param start the start of the range
+	 * @param end   the end of the range, exclusive
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter append( WDDXJavascriptWriter other, int start, int end ) {
+		out.append( other.out, start, end );
+		return this;
+	}
+
+	/**
+	 * Writes a quoted string literal, escaping it for both JSON and inline script content
+	 *
+	 * @param value the string to write
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter writeString( String value ) {
+		out.append( '"' );
+		int	length	= value.length();
+		int	start	= 0;
+		for ( int i = 0; i < length; i++ ) {
+			char	c		= value.charAt( i );
+			String	escape	= null;
+			if ( c < 0x20 || c == '"' || c == '\\' || c == '\u2028' || c == '\u2029' || ( c == '/' && i > 0 && value.charAt( i - 1 ) == '<' ) ) {
+				escape = switch ( c ) {
+					case '"' -> "\\\"";
+					case '\\' -> "\\\\";
+					case '/' -> "\\/";
+					case '\n' -> "\\n";
+					case '\r' -> "\\r";
+					case '\t' -> "\\t";
+					case '\b' -> "\\b";
+					case '\f' -> "\\f";
+					default -> null;
+				};
+				out.append( value, start, i );
+				if ( escape != null ) {
+					out.append( escape );
+				} else {
+					out.append( "\\u" ).append( HEX[ c >> 12 & 0xF ] ).append( HEX[ c >> 8 & 0xF ] ).append( HEX[ c >> 4 & 0xF ] ).append( HEX[ c & 0xF ] );
+				}
+				start = i + 1;
+			}
+		}
+		out.append( value, start, length ).append( '"' );
+		return this;
+	}
+
+	/**
+	 * Writes a BoxLang value. Structs and maps are written as objects, arrays and collections as arrays, and queries
+	 * in the row oriented `{"columns":[...],"data":[[...]]}` format.
+	 *
+	 * Containers are written from an explicit stack rather than by recursion, so nesting depth is not bounded by the
+	 * thread's stack, and a container which contains itself is rejected rather than recursing forever.
+	 *
+	 * @param value the value to write
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter writeValue( Object value ) {
+		int		base	= frames.size();
+		Object	next	= value;
+		while ( true ) {
+			open( next );
+			next = NO_VALUE;
+			while ( frames.size() > base ) {
+				Frame top = frames.peek();
+				next = top.next( this );
+				if ( next != NO_VALUE ) {
+					break;
+				}
+				top.close( this );
+				frames.pop();
+				ancestors.remove( top.container );
+				drainIfFull();
+			}
+			if ( next == NO_VALUE ) {
+				return this;
+			}
+		}
+	}
+
+	/**
+	 * Writes a simple value, or the opening of a container whose items are then written from the stack
+	 */
+	private void open( Object value ) {
+		Frame frame;
+		if ( value instanceof Query query ) {
+			frame = new QueryFrame( query );
+		} else if ( value instanceof Map<?, ?> map ) {
+			frame = new MapFrame( map );
+		} else if ( value instanceof Collection<?> items ) {
+			frame = new ArrayFrame( value, items );
+		} else if ( value instanceof Object[] array ) {
+			frame = new ArrayFrame( value, Arrays.asList( array ) );
+		} else {
+			if ( value != null && DateTimeHandler.isDateTime( value.getClass() ) ) {
+				writeString( DateTimeCaster.cast( value ).toISOString() );
+			} else {
+				writeSimple( value );
+			}
+			drainIfFull();
+			return;
+		}
+		if ( !ancestors.add( value ) ) {
+			throw new BoxRuntimeException( "Unable to write a [" + value.getClass().getSimpleName() + "] as JavaScript because it contains itself" );
+		}
+		frame.open( this );
+		frames.push( frame );
+	}
+
+	/**
+	 * Writes a simple value: a string, number, boolean, date, binary or null
+	 *
+	 * @param value the value to write
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter writeSimple( Object value ) {
+		if ( value == null ) {
+			out.append( "null" );
+		} else if ( value instanceof String string ) {
+			writeString( string );
+		} else if ( value instanceof Boolean bool ) {
+			out.append( bool.booleanValue() );
+		} else if ( value instanceof Double || value instanceof Float ) {
+			double number = ( ( Number ) value ).doubleValue();
+			out.append( Double.isFinite( number ) ? value.toString() : "null" );
+		} else if ( value instanceof BigDecimal decimal ) {
+			out.append( decimal.toPlainString() );
+		} else if ( value instanceof Number ) {
+			out.append( value.toString() );
+		} else if ( value instanceof DateTime date ) {
+			writeString( date.toISOString() );
+		} else if ( value instanceof byte[] bytes ) {
+			writeString( Base64.getEncoder().encodeToString( bytes ) );
+		} else {
+			writeString( value.toString() );
+		}
+		return this;
+	}
+
+	/**
+	 * Clears the buffer so that the writer can be reused, releasing it if it has grown large
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter reset() {
+		out.setLength( 0 );
+		frames.clear();
+		ancestors.clear();
+		if ( out.capacity() > MAX_RETAINED ) {
+			out.trimToSize();
+		}
+		return this;
+	}
+
+	/**
+	 * The number of chars currently held in the buffer
+	 *
+	 * @return the buffer length
+	 */
+	public int length() {
+		return out.length();
+	}
+
+	/**
+	 * Writes any buffered content to the sink and flushes it. This is a no-op for buffer-only writers.
+	 *
+	 * @return this writer
+	 */
+	public WDDXJavascriptWriter flush() {
+		if ( sink != null ) {
+			drain();
+			try {
+				sink.flush();
+			} catch ( IOException e ) {
+				throw new BoxRuntimeException( "Unable to write the JavaScript: " + e.getMessage(), e );
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Drains the buffer to the sink once it has grown past the threshold
+	 */
+	void drainIfFull() {
+		if ( sink != null && out.length() >= DRAIN_THRESHOLD ) {
+			drain();
+		}
+	}
+
+	/**
+	 * Writes the buffer contents to the sink and resets the buffer
+	 */
+	private void drain() {
+		try {
+			sink.append( out );
+			out.setLength( 0 );
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to write the JavaScript: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Returns the JavaScript held in the buffer. For streaming writers this is only the content which has not yet
+	 * been drained to the sink.
+	 *
+	 * @return the buffer contents
+	 */
+	@Override
+	public String toString() {
+		return out.toString();
+	}
+
+	/**
+	 * A container which has been opened and whose items are still being written
+	 */
+	private abstract static class Frame {
+
+		/**
+		 * The value the frame was opened for, exactly as it was added to the ancestors
+		 */
+		final Object container;
+
+		Frame( Object container ) {
+			this.container = container;
+		}
+
+		/**
+		 * Writes the opening of the container
+		 */
+		abstract void open( WDDXJavascriptWriter target );
+
+		/**
+		 * Writes any separator which precedes the next item, and returns the item
+		 *
+		 * @return the next item, or {@link WDDXJavascriptWriter#NO_VALUE} once every item has been written
+		 */
+		abstract Object next( WDDXJavascriptWriter target );
+
+		/**
+		 * Writes the closing of the container
+		 */
+		abstract void close( WDDXJavascriptWriter target );
+
+	}
+
+	private static final class MapFrame extends Frame {
+
+		private final Iterator<? extends Map.Entry<?, ?>>	entries;
+		private boolean										first	= true;
+
+		MapFrame( Map<?, ?> map ) {
+			super( map );
+			this.entries = map.entrySet().iterator();
+		}
+
+		@Override
+		void open( WDDXJavascriptWriter target ) {
+			target.out.append( '{' );
+		}
+
+		@Override
+		Object next( WDDXJavascriptWriter target ) {
+			if ( !entries.hasNext() ) {
+				return NO_VALUE;
+			}
+			Map.Entry<?, ?> entry = entries.next();
+			if ( !first ) {
+				target.out.append( ',' );
+			}
+			first = false;
+			target.writeString( String.valueOf( entry.getKey() ) ).append( ':' );
+			return entry.getValue();
+		}
+
+		@Override
+		void close( WDDXJavascriptWriter target ) {
+			target.out.append( '}' );
+		}
+
+	}
+
+	private static final class ArrayFrame extends Frame {
+
+		private final Iterator<?>	items;
+		private boolean				first	= true;
+
+		/**
+		 * @param container the array or collection being written, which is tracked as an ancestor while it is open
+		 * @param items     the items of the container
+		 */
+		ArrayFrame( Object container, Collection<?> items ) {
+			super( container );
+			this.items = items.iterator();
+		}
+
+		@Override
+		void open( WDDXJavascriptWriter target ) {
+			target.out.append( '[' );
+		}
+
+		@Override
+		Object next( WDDXJavascriptWriter target ) {
+			if ( !items.hasNext() ) {
+				return NO_VALUE;
+			}
+			if ( !first ) {
+				target.out.append( ',' );
+			}
+			first = false;
+			return items.next();
+		}
+
+		@Override
+		void close( WDDXJavascriptWriter target ) {
+			target.out.append( ']' );
+		}
+
+	}
+
+	/**
+	 * Writes a query in the row oriented format
+	 */
+	private static final class QueryFrame extends Frame {
+
+		private final Query					query;
+		private final Iterator<Object[]>	rows;
+		private Object[]					row;
+		private int							col;
+
+		QueryFrame( Query query ) {
+			super( query );
+			this.query	= query;
+			this.rows	= query.getData().iterator();
+		}
+
+		@Override
+		void open( WDDXJavascriptWriter target ) {
+			target.out.append( "{\"columns\":[" );
+			boolean first = true;
+			for ( Object column : query.getColumnArray() ) {
+				if ( !first ) {
+					target.out.append( ',' );
+				}
+				first = false;
+				target.writeString( column.toString() );
+			}
+			target.out.append( "],\"data\":[" );
+		}
+
+		@Override
+		Object next( WDDXJavascriptWriter target ) {
+			while ( row == null || col == row.length ) {
+				if ( row != null ) {
+					target.out.append( ']' );
+				}
+				if ( !rows.hasNext() ) {
+					return NO_VALUE;
+				}
+				target.out.append( row == null ? "[" : ",[" );
+				row	= rows.next();
+				col	= 0;
+			}
+			if ( col > 0 ) {
+				target.out.append( ',' );
+			}
+			return row[ col++ ];
+		}
+
+		@Override
+		void close( WDDXJavascriptWriter target ) {
+			target.out.append( "]}" );
+		}
+
+	}
+
+}
@@ -27,9 +27,40 @@ import ortus.boxlang.runtime.scopes.Key;
 public class WDDXKeys {
 
 	public static final Key	_MODULE_NAME		= Key.of( "wddx" );
+	public static final Key	batch				= Key.of( "batch" );
+	public static final Key	chunkSize			= Key.of( "chunkSize" );
+	public static final Key	destination			= Key.of( "destination" );
+	public static final Key	enabled				= Key.of( "enabled" );
+	public static final Key	events				= Key.of( "events" );
+	public static final Key	json				= Key.of( "json" );
+	public static final Key	lazy				= Key.of( "lazy" );
+	public static final Key	limits				= Key.of( "limits" );
+	public static final Key	maxConcurrency		= Key.of( "maxConcurrency" );
+	public static final Key	maxDepth			= Key.of( "maxDepth" );
+	public static final Key	maxElements			= Key.of( "maxElements" );
+	public static final Key	maxEntries			= Key.of( "maxEntries" );
+	public static final Key	maxPacketLength		= Key.of( "maxPacketLength" );
+	public static final Key	maxRows				= Key.of( "maxRows" );
+	public static final Key	maxStringLength		= Key.of( "maxStringLength" );
+	public static final Key	maxTotalLength		= Key.of( "maxTotalLength" );
+	public static final Key	metrics				= Key.of( "metrics" );
+	public static final Key	packets				= Key.of( "packets" );
+	public static final Key	parallel			= Key.of( "parallel" );
+	public static final Key	parallelism			= Key.of( "parallelism" );
+	public static final Key	parseThreshold		= Key.of( "parseThreshold" );
+	public static final Key	parseCache			= Key.of( "parseCache" );
+	public static final Key	postWDDXParse		= Key.of( "postWDDXParse" );
+	public static final Key	postWDDXSerialize	= Key.of( "postWDDXSerialize" );
+	public static final Key	preWDDXParse		= Key.of( "preWDDXParse" );
+	public static final Key	preWDDXSerialize	= Key.of( "preWDDXSerialize" );
+	public static final Key	stream				= Key.of( "stream" );
+	public static final Key	strict				= Key.of( "strict" );
+	public static final Key	threshold			= Key.of( "threshold" );
 	public static final Key	toplevelvariable	= Key.of( "toplevelvariable" );
 	public static final Key	usetimezoneinfo		= Key.of( "usetimezoneinfo" );
 	public static final Key	validate			= Key.of( "validate" );
+	public static final Key	values				= Key.of( "values" );
+	public static final Key	wddx				= Key.of( "wddx" );
 	public static final Key	xmlconform			= Key.of( "xmlconform" );
 
 }
@@ -0,0 +1,100 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.List;
+
+import ortus.boxlang.modules.wddx.util.WDDXPacketScanner.Region;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+
+/**
+ * A lazy WDDX deserializer. Rather than decoding a whole packet up front, the parser only locates element boundaries
+ * within the packet text, and returns structs whose members are decoded the first time they are read.
+ *
+ * Arrays are decoded when they are first read, with any struct elements remaining lazy. Simple values and recordsets
+ * are decoded by {@link WDDXParser} when first read. As unread members are never decoded, malformed content within
+ * them is only reported when, and if, they are read.
+ */
+public final class WDDXLazyParser {
+
+	private WDDXLazyParser() {
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object, deferring the decoding of struct members until they are
+	 * first read
+	 *
+	 * @param wddx the WDDX xml
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	public static Object parse( String wddx ) {
+		return parse( wddx, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object, deferring the decoding of struct members until they are
+	 * first read. The element limit applies to each value which is decoded by {@link WDDXParser}.
+	 *
+	 * @param wddx   the WDDX xml
+	 * @param limits the limits enforced while the packet is decoded
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	public static Object parse( String wddx, WDDXLimits limits ) {
+		limits.checkPacketLength( wddx.length() );
+		Region value = WDDXPacketScanner.dataValue( wddx );
+		return value == null ? null : decode( value, limits, 1 );
+	}
+
+	/**
+	 * Decodes an element region in to its native BoxLang object
+	 *
+	 * @param region the region of the value element
+	 * @param limits the limits enforced while the value is decoded
+	 * @param depth  the depth of the value within the packet
+	 *
+	 * @return the decoded value
+	 */
+	static Object decode( Region region, WDDXLimits limits, int depth ) {
+		switch ( region.name() ) {
+			case "struct" : {
+				limits.checkDepth( depth );
+				LazyStruct result = new LazyStruct( limits, depth + 1 );
+				for ( Region var : region.children() ) {
+					result.defer( Key.of( var.requiredAttribute( "name" ) ), var.firstChild() );
+				}
+				return result;
+			}
+			case "array" : {
+				limits.checkDepth( depth );
+				List<Region>	elements	= region.children();
+				Array			result		= new Array( elements.size() );
+				for ( Region element : elements ) {
+					result.add( decode( element, limits, depth + 1 ) );
+				}
+				return result;
+			}
+			default : {
+				return WDDXParser.parseValue( region.xml(), limits, depth - 1 );
+			}
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
+import ortus.boxlang.runtime.dynamic.casters.LongCaster;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * The resource limits enforced while a packet is parsed, so that a hostile or corrupt packet fails fast instead of
+ * exhausting the heap or stack. Each limit is checked incrementally as the packet is read, and a limit of `0` is
+ * unbounded.
+ *
+ * The shared instance is configured from the `limits` group of the module settings, and may be overridden per call
+ * with {@link #with(IStruct)}.
+ */
+public final class WDDXLimits {
+
+	/**
+	 * Limits which never reject a packet
+	 */
+	public static final WDDXLimits		NONE	= new WDDXLimits( 0, 0, 0, 0, 0 );
+
+	private static volatile WDDXLimits	instance;
+
+	private final long					maxPacketLength;
+	private final int					maxDepth;
+	private final long					maxElements;
+	private final long					maxStringLength;
+	private final long					maxRows;
+
+	/**
+	 * Creates a set of limits
+	 *
+	 * @param maxPacketLength the maximum length of a packet, in chars
+	 * @param maxDepth        the maximum nesting depth of values, where a top level simple value has a depth of 1
+	 * @param maxElements     the maximum number of values in a packet, counting every nested value
+	 * @param maxStringLength the maximum length of a single string value, in chars
+	 * @param maxRows         the maximum number of rows in a recordset, whether declared or read
+	 */
+	public WDDXLimits( long maxPacketLength, int maxDepth, long maxElements, long maxStringLength, long maxRows ) {
+		this.maxPacketLength	= maxPacketLength;
+		this.maxDepth			= maxDepth;
+		this.maxElements		= maxElements;
+		this.maxStringLength	= maxStringLength;
+		this.maxRows			= maxRows;
+	}
+
+	/**
+	 * Returns the shared limits, configured from the module settings on first use
+	 *
+	 * @return the shared limits
+	 */
+	public static WDDXLimits getInstance() {
+		if ( instance == null ) {
+			synchronized ( WDDXLimits.class ) {
+				if ( instance == null ) {
+					instance = new WDDXLimits( 0, 512, 50_000_000, 67_108_864, 0 ).with( WDDXSettings.getGroup( WDDXKeys.limits ) );
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Discards the shared limits, so that it is configured from the module settings again on next use
+	 */
+	public static void clearInstance() {
+		synchronized ( WDDXLimits.class ) {
+			instance = null;
+		}
+	}
+
+	/**
+	 * Returns a copy of these limits with some of them replaced
+	 *
+	 * @param overrides a struct of any of `maxPacketLength`, `maxDepth`, `maxElements`, `maxStringLength` and `maxRows`
+	 *
+	 * @return the overridden limits, or these limits if there are no overrides
+	 */
+	public WDDXLimits with( IStruct overrides ) {
+		if ( overrides == null || overrides.isEmpty() ) {
+			return this;
+		}
+		return new WDDXLimits(
+		    LongCaster.cast( overrides.getOrDefault( WDDXKeys.maxPacketLength, maxPacketLength ) ),
+		    IntegerCaster.cast( overrides.getOrDefault( WDDXKeys.maxDepth, maxDepth ) ),
+		    LongCaster.cast( overrides.getOrDefault( WDDXKeys.maxElements, maxElements ) ),
+		    LongCaster.cast( overrides.getOrDefault( WDDXKeys.maxStringLength, maxStringLength ) ),
+		    LongCaster.cast( overrides.getOrDefault( WDDXKeys.maxRows, maxRows ) )
+		);
+	}
+
+	/**
+	 * Rejects a packet longer than the packet length limit
+	 *
+	 * @param length the packet length, in chars
+	 */
+	public void checkPacketLength( long length ) {
+		if ( maxPacketLength > 0 && length > maxPacketLength ) {
+			throw exceeded( "length of " + maxPacketLength + " characters", length );
+		}
+	}
+
+	/**
+	 * Rejects a value nested deeper than the depth limit
+	 *
+	 * @param depth the depth of the value
+	 */
+	public void checkDepth( int depth ) {
+		if ( maxDepth > 0 && depth > maxDepth ) {
+			throw exceeded( "nesting depth of " + maxDepth, depth );
+		}
+	}
+
+	/**
+	 * Rejects a packet once it holds more values than the element limit
+	 *
+	 * @param elements the number of values read so far
+	 */
+	public void checkElements( long elements ) {
+		if ( maxElements > 0 && elements > maxElements ) {
+			throw exceeded( "number of elements of " + maxElements, elements );
+		}
+	}
+
+	/**
+	 * Rejects a string value longer than the string length limit
+	 *
+	 * @param length the length read so far, in chars
+	 */
+	public void checkStringLength( long length ) {
+		if ( maxStringLength > 0 && length > maxStringLength ) {
+			throw exceeded( "string length of " + maxStringLength + " characters", length );
+		}
+	}
+
+	/**
+	 * Rejects a recordset with more rows than the row limit
+	 *
+	 * @param rows the declared row count, or the number of cells read in to a field so far
+	 */
+	public void checkRows( long rows ) {
+		if ( maxRows > 0 && rows > maxRows ) {
+			throw exceeded( "recordset row count of " + maxRows, rows );
+		}
+	}
+
+	/**
+	 * The error for an exceeded limit
+	 */
+	private static BoxRuntimeException exceeded( String limit, long actual ) {
+		return new BoxRuntimeException( "The WDDX packet exceeds the maximum " + limit + " (found " + actual + ")" );
+	}
+
+}
@@ -0,0 +1,326 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.dynamic.casters.BooleanCaster;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+
+/**
+ * Counters for the WDDX operations, so the cost of WDDX traffic can be observed in production.
+ *
+ * Each operation counts its calls, failures, characters in and out, elapsed time (as a total, a maximum and a
+ * histogram), the deepest nesting and the recordset rows it handled. All counters are striped ({@link LongAdder} and
+ * {@link LongAccumulator}), so recording never contends between threads and can stay enabled under load. Calls are
+ * recorded through a {@link Sample}, which is a no-op when metrics are disabled.
+ *
+ * The shared instance is configured from the `metrics` group of the module settings. It also announces the module's
+ * interception points, unless `events` is disabled.
+ */
+public class WDDXMetrics {
+
+	public static final Key				SERIALIZE				= Key.of( "serialize" );
+	public static final Key				PARSE					= Key.of( "parse" );
+	public static final Key				SERIALIZE_JAVASCRIPT	= Key.of( "serializeToJavascript" );
+	public static final Key				TRANSLATE_JAVASCRIPT	= Key.of( "translateToJavascript" );
+	public static final Key				IS_WDDX					= Key.of( "isWDDX" );
+	public static final Key				WDDX_TO_JSON			= Key.of( "wddxToJSON" );
+	public static final Key				JSON_TO_WDDX			= Key.of( "jsonToWDDX" );
+
+	/**
+	 * The upper bounds, in microseconds, of the latency histogram buckets. Slower calls fall in to a final bucket.
+	 */
+	private static final long[]			LATENCY_BOUNDS			= { 10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000, 500_000, 1_000_000 };
+	private static final String[]		LATENCY_LABELS			= { "10us", "50us", "100us", "500us", "1ms", "5ms", "10ms", "50ms", "100ms", "500ms", "1s",
+	    "slower" };
+
+	private static volatile WDDXMetrics	instance;
+
+	private final boolean				enabled;
+	private final boolean				events;
+	private final Map<Key, Counters>	operations				= new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a metrics registry
+	 *
+	 * @param enabled whether calls are recorded at all
+	 * @param events  whether the module interception points are announced
+	 */
+	public WDDXMetrics( boolean enabled, boolean events ) {
+		this.enabled	= enabled;
+		this.events		= events;
+	}
+
+	/**
+	 * Returns the shared registry, configured from the module settings on first use
+	 *
+	 * @return the shared registry
+	 */
+	public static WDDXMetrics getInstance() {
+		if ( instance == null ) {
+			synchronized ( WDDXMetrics.class ) {
+				if ( instance == null ) {
+					IStruct settings = WDDXSettings.getGroup( WDDXKeys.metrics );
+					instance = new WDDXMetrics(
+					    BooleanCaster.cast( settings.getOrDefault( WDDXKeys.enabled, true ) ),
+					    BooleanCaster.cast( settings.getOrDefault( WDDXKeys.events, true ) )
+					);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Discards the shared metrics, along with their counters, so that it is configured from the module settings again on next use
+	 */
+	public static void clearInstance() {
+		synchronized ( WDDXMetrics.class ) {
+			instance = null;
+		}
+	}
+
+	/**
+	 * Whether calls are recorded
+	 *
+	 * @return true if metrics are enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Starts timing a call of an operation
+	 *
+	 * @param operation the operation key, e.g. {@link #SERIALIZE}
+	 *
+	 * @return the sample to complete once the call returns
+	 */
+	public Sample start( Key operation ) {
+		return enabled ? new Sample( operations.computeIfAbsent( operation, key -> new Counters() ) ) : Sample.NONE;
+	}
+
+	/**
+	 * Times a call of an operation, recording it as failed if it throws
+	 *
+	 * @param operation the operation key, e.g. {@link #SERIALIZE}
+	 * @param call      the call, which may describe itself through the sample it is given
+	 *
+	 * @return the result of the call
+	 */
+	public <T> T time( Key operation, Function<Sample, T> call ) {
+		Sample sample = start( operation );
+		try {
+			T result = call.apply( sample );
+			sample.stop();
+			return result;
+		} catch ( RuntimeException | Error e ) {
+			sample.fail();
+			throw e;
+		}
+	}
+
+	/**
+	 * Announces one of the module interception points, with the given data
+	 *
+	 * @param point the interception point, e.g. {@link WDDXKeys#preWDDXParse}
+	 * @param data  the data passed to the interceptors
+	 */
+	public void announce( Key point, IStruct data ) {
+		if ( events ) {
+			BoxRuntime.getInstance().getInterceptorService().announce( point, data );
+		}
+	}
+
+	/**
+	 * Returns a snapshot of the counters of every operation which has been called, along with the parse cache
+	 * counters
+	 *
+	 * @return a struct of the operation counters, keyed by operation, and the parse cache counters
+	 */
+	public IStruct getStats() {
+		IStruct result = new Struct();
+		operations.forEach( ( operation, counters ) -> result.put( operation, counters.snapshot() ) );
+		return Struct.of(
+		    "enabled", enabled,
+		    "operations", result,
+		    "parseCache", WDDXParseCache.getInstance().getStats()
+		);
+	}
+
+	/**
+	 * Discards all recorded counters
+	 */
+	public void reset() {
+		operations.clear();
+	}
+
+	/**
+	 * A single timed call of an operation. The sizes, nesting depth and row count are optional and may be set at any
+	 * point before the sample is stopped.
+	 */
+	public static final class Sample {
+
+		/**
+		 * The sample handed out when metrics are disabled, which records nothing
+		 */
+		static final Sample		NONE	= new Sample( null );
+
+		private final Counters	counters;
+		private final long		start;
+		private long			charsIn;
+		private long			charsOut;
+		private long			depth;
+		private long			rows;
+
+		private Sample( Counters counters ) {
+			this.counters	= counters;
+			this.start		= counters == null ? 0 : System.nanoTime();
+		}
+
+		/**
+		 * Sets the number of characters read by the call
+		 *
+		 * @param chars the input length
+		 *
+		 * @return this sample
+		 */
+		public Sample in( long chars ) {
+			this.charsIn = chars;
+			return this;
+		}
+
+		/**
+		 * Sets the number of characters written by the call
+		 *
+		 * @param chars the output length
+		 *
+		 * @return this sample
+		 */
+		public Sample out( long chars ) {
+			this.charsOut = chars;
+			return this;
+		}
+
+		/**
+		 * Sets the shape of the value handled by the call
+		 *
+		 * @param depth the deepest nesting of values, where a top level simple value has a depth of 1
+		 * @param rows  the total number of recordset rows
+		 *
+		 * @return this sample
+		 */
+		public Sample shape( long depth, long rows ) {
+			this.depth	= depth;
+			this.rows	= rows;
+			return this;
+		}
+
+		/**
+		 * Records a successful call
+		 */
+		public void stop() {
+			if ( counters != null ) {
+				counters.record( this, false );
+			}
+		}
+
+		/**
+		 * Records a failed call
+		 */
+		public void fail() {
+			if ( counters != null ) {
+				counters.record( this, true );
+			}
+		}
+
+	}
+
+	/**
+	 * The striped counters of a single operation
+	 */
+	private static final class Counters {
+
+		private final LongAdder			calls		= new LongAdder();
+		private final LongAdder			errors		= new LongAdder();
+		private final LongAdder			charsIn		= new LongAdder();
+		private final LongAdder			charsOut	= new LongAdder();
+		private final LongAdder			rows		= new LongAdder();
+		private final LongAdder			totalNanos	= new LongAdder();
+		private final LongAccumulator	maxNanos	= new LongAccumulator( Math::max, 0 );
+		private final LongAccumulator	maxDepth	= new LongAccumulator( Math::max, 0 );
+		private final LongAdder[]		latency		= new LongAdder[ LATENCY_LABELS.length ];
+
+		Counters() {
+			for ( int i = 0; i < latency.length; i++ ) {
+				latency[ i ] = new LongAdder();
+			}
+		}
+
+		void record( Sample sample, boolean failed ) {
+			long elapsed = System.nanoTime() - sample.start;
+			calls.increment();
+			if ( failed ) {
+				errors.increment();
+			}
+			charsIn.add( sample.charsIn );
+			charsOut.add( sample.charsOut );
+			rows.add( sample.rows );
+			totalNanos.add( elapsed );
+			maxNanos.accumulate( elapsed );
+			maxDepth.accumulate( sample.depth );
+
+			long	micros	= elapsed / 1_000;
+			int		bucket	= 0;
+			while ( bucket < LATENCY_BOUNDS.length && micros >= LATENCY_BOUNDS[ bucket ] ) {
+				bucket++;
+			}
+			latency[ bucket ].increment();
+		}
+
+		IStruct snapshot() {
+			IStruct histogram = new Struct( Struct.TYPES.LINKED );
+			for ( int i = 0; i < latency.length; i++ ) {
+				histogram.put( Key.of( LATENCY_LABELS[ i ] ), latency[ i ].sum() );
+			}
+			long count = calls.sum();
+			return Struct.of(
+			    "calls", count,
+			    "errors", errors.sum(),
+			    "charsIn", charsIn.sum(),
+			    "charsOut", charsOut.sum(),
+			    "rows", rows.sum(),
+			    "maxDepth", maxDepth.get(),
+			    "totalTimeMs", totalNanos.sum() / 1_000_000.0,
+			    "meanTimeMs", count == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / count,
+			    "maxTimeMs", maxNanos.get() / 1_000_000.0,
+			    "latency", histogram
+			);
+		}
+
+	}
+
+}
@@ -0,0 +1,240 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Encodes and decodes the text of WDDX `number` elements.
+ *
+ * Numbers are written straight in to the output buffer, without an intermediate string for primitive wrappers. Text
+ * is classified in a single pass without allocating, and decoded to the narrowest type which holds it exactly:
+ * `Integer` or `Long` for whole numbers, `Double` for decimals of up to 15 significant digits, which round trip
+ * through a double unchanged, and `BigDecimal` otherwise.
+ */
+public final class WDDXNumberCodec {
+
+	/**
+	 * A whole number within the range of a long
+	 */
+	static final int			LONG			= 0;
+
+	/**
+	 * A decimal which is held exactly by a double
+	 */
+	static final int			DOUBLE			= 1;
+
+	/**
+	 * A decimal which needs a BigDecimal
+	 */
+	static final int			DECIMAL			= 2;
+
+	/**
+	 * Text which is not a plain decimal number
+	 */
+	static final int			INVALID			= 3;
+
+	/**
+	 * The most significant digits of a decimal which survive a round trip through a double
+	 */
+	private static final int	DOUBLE_DIGITS	= 15;
+
+	/**
+	 * The largest decimal exponent, plus digits, decoded as a double, well inside the normal range of a double
+	 */
+	private static final int	DOUBLE_EXPONENT	= 290;
+
+	private WDDXNumberCodec() {
+	}
+
+	/**
+	 * Appends the text of a number
+	 *
+	 * @param out   the buffer to append to
+	 * @param value the number
+	 */
+	public static void append( StringBuilder out, Number value ) {
+		if ( value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ) {
+			out.append( value.longValue() );
+		} else if ( value instanceof Double number ) {
+			out.append( number.doubleValue() );
+		} else if ( value instanceof Float number ) {
+			out.append( number.floatValue() );
+		} else if ( value instanceof BigDecimal decimal ) {
+			out.append( decimal.toPlainString() );
+		} else if ( value instanceof BigInteger integer ) {
+			out.append( integer.toString() );
+		} else {
+			out.append( value.toString() );
+		}
+	}
+
+	/**
+	 * Decodes the text of a number to the narrowest type which holds it exactly
+	 *
+	 * @param text the number text, optionally surrounded by whitespace
+	 *
+	 * @return an Integer, Long, Double or BigDecimal, or null if the text is not a plain decimal number
+	 */
+	public static Number decode( String text ) {
+		switch ( classify( text ) ) {
+			case LONG : {
+				return box( parseLong( text ) );
+			}
+			case DOUBLE : {
+				return Double.parseDouble( text );
+			}
+			case DECIMAL : {
+				return new BigDecimal( text.strip() );
+			}
+			default : {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Classifies the text of a number without decoding it
+	 *
+	 * @param text the number text, optionally surrounded by whitespace
+	 *
+	 * @return one of {@link #LONG}, {@link #DOUBLE}, {@link #DECIMAL} or {@link #INVALID}
+	 */
+	static int classify( String text ) {
+		int	end	= text.length();
+		int	pos	= 0;
+		while ( pos < end && Character.isWhitespace( text.charAt( pos ) ) ) {
+			pos++;
+		}
+		while ( end > pos && Character.isWhitespace( text.charAt( end - 1 ) ) ) {
+			end--;
+		}
+		boolean negative = false;
+		if ( pos < end && ( text.charAt( pos ) == '-' || text.charAt( pos ) == '+' ) ) {
+			negative = text.charAt( pos ) == '-';
+			pos++;
+		}
+
+		// the mantissa, tracking its significant digits and whether its whole part fits in a long
+		boolean	whole		= true;
+		boolean	fits		= true;
+		long	accumulated	= 0;
+		long	limit		= negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		int		digits		= 0;
+		int		significant	= 0;
+		int		trailing	= 0;
+		for ( ; pos < end; pos++ ) {
+			char c = text.charAt( pos );
+			if ( c >= '0' && c <= '9' ) {
+				int digit = c - '0';
+				digits++;
+				if ( significant > 0 || digit != 0 ) {
+					significant++;
+					trailing = digit == 0 ? trailing + 1 : 0;
+				}
+				if ( whole && fits ) {
+					if ( accumulated < limit / 10 || accumulated * 10 < limit + digit ) {
+						fits = false;
+					} else {
+						accumulated = accumulated * 10 - digit;
+					}
+				}
+			} else if ( c == '.' && whole ) {
+				whole = false;
+			} else {
+				break;
+			}
+		}
+		if ( digits == 0 ) {
+			return INVALID;
+		}
+
+		int exponent = 0;
+		if ( pos < end ) {
+			char c = text.charAt( pos++ );
+			if ( c != 'e' && c != 'E' ) {
+				return INVALID;
+			}
+			boolean negativeExponent = false;
+			if ( pos < end && ( text.charAt( pos ) == '-' || text.charAt( pos ) == '+' ) ) {
+				negativeExponent = text.charAt( pos ) == '-';
+				pos++;
+			}
+			if ( pos == end ) {
+				return INVALID;
+			}
+			for ( ; pos < end; pos++ ) {
+				c = text.charAt( pos );
+				if ( c < '0' || c > '9' ) {
+					return INVALID;
+				}
+				exponent = Math.min( exponent * 10 + ( c - '0' ), 100000 );
+			}
+			exponent	= negativeExponent ? -exponent : exponent;
+			whole		= false;
+		}
+
+		if ( whole ) {
+			return fits ? LONG : DECIMAL;
+		}
+		return significant - trailing <= DOUBLE_DIGITS && Math.abs( exponent ) + digits <= DOUBLE_EXPONENT ? DOUBLE : DECIMAL;
+	}
+
+	/**
+	 * Boxes a whole number as the narrowest of Integer and Long
+	 *
+	 * @param value the number
+	 *
+	 * @return the boxed number
+	 */
+	static Number box( long value ) {
+		if ( value == ( int ) value ) {
+			return Integer.valueOf( ( int ) value );
+		}
+		return Long.valueOf( value );
+	}
+
+	/**
+	 * Parses a number which {@link #classify(String)} reports as a {@link #LONG}
+	 *
+	 * @param text the number text, optionally surrounded by whitespace
+	 *
+	 * @return the value
+	 */
+	static long parseLong( String text ) {
+		int pos = 0;
+		while ( Character.isWhitespace( text.charAt( pos ) ) ) {
+			pos++;
+		}
+		boolean negative = text.charAt( pos ) == '-';
+		if ( negative || text.charAt( pos ) == '+' ) {
+			pos++;
+		}
+		long accumulated = 0;
+		for ( int end = text.length(); pos < end; pos++ ) {
+			char c = text.charAt( pos );
+			if ( c < '0' || c > '9' ) {
+				break;
+			}
+			accumulated = accumulated * 10 - ( c - '0' );
+		}
+		return negative ? accumulated : -accumulated;
+	}
+
+}
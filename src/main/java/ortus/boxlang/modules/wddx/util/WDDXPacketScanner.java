@@ -0,0 +1,435 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Locates the elements of a WDDX packet within its text without decoding them. Only tags are examined, so the
+ * boundaries of a large subtree can be found far more cheaply than it can be parsed.
+ *
+ * The packet is usually a string, but may be any {@link CharSequence} whose markup characters are at their own
+ * indexes, such as a {@link MappedText} over a UTF-8 file, whose indexes are then byte offsets.
+ */
+final class WDDXPacketScanner {
+
+	private static final String INVALID_PACKET = "The object provided is not a valid WDDX packet";
+
+	/**
+	 * The bounds of an undecoded element within a packet. The child regions are scanned once, on first use, and kept,
+	 * as the decoders read them more than once.
+	 */
+	static final class Region {
+
+		private final CharSequence		packet;
+		private final int				start;
+		private final int				end;
+		private volatile List<Region>	children;
+
+		/**
+		 * @param packet the packet text
+		 * @param start  the index of the opening `<` of the element
+		 * @param end    the index following the closing `>` of the element
+		 */
+		Region( CharSequence packet, int start, int end ) {
+			this.packet	= packet;
+			this.start	= start;
+			this.end	= end;
+		}
+
+		/**
+		 * The packet text
+		 */
+		CharSequence packet() {
+			return packet;
+		}
+
+		/**
+		 * The index of the opening `<` of the element
+		 */
+		int start() {
+			return start;
+		}
+
+		/**
+		 * The index following the closing `>` of the element
+		 */
+		int end() {
+			return end;
+		}
+
+		/**
+		 * The local name of the element
+		 */
+		String name() {
+			return tagName( packet, start );
+		}
+
+		/**
+		 * The unescaped value of an attribute of the element, or null if it is not present
+		 */
+		String attribute( String attributeName ) {
+			return WDDXPacketScanner.attribute( packet, start, attributeName );
+		}
+
+		/**
+		 * The unescaped value of a required attribute of the element, rejecting the packet if it is not present
+		 */
+		String requiredAttribute( String attributeName ) {
+			return WDDXParser.required( attribute( attributeName ), name(), attributeName );
+		}
+
+		/**
+		 * The regions of the child elements
+		 */
+		List<Region> children() {
+			List<Region> result = children;
+			if ( result == null ) {
+				result		= Collections.unmodifiableList( WDDXPacketScanner.children( packet, start ) );
+				children	= result;
+			}
+			return result;
+		}
+
+		/**
+		 * The region of the first child element, or null if there are none
+		 */
+		Region firstChild() {
+			List<Region> children = children();
+			return children.isEmpty() ? null : children.get( 0 );
+		}
+
+		/**
+		 * The xml of the element
+		 */
+		String xml() {
+			return packet.subSequence( start, end ).toString();
+		}
+	}
+
+	private WDDXPacketScanner() {
+	}
+
+	/**
+	 * Creates the exception thrown for a packet which cannot be scanned
+	 *
+	 * @param detail the detail appended to the message, or null
+	 *
+	 * @return the exception
+	 */
+	private static BoxRuntimeException invalid( String detail ) {
+		return new BoxRuntimeException( detail == null ? INVALID_PACKET : INVALID_PACKET + detail );
+	}
+
+	/**
+	 * Locates the value held by the data element of a packet
+	 *
+	 * @param packet the WDDX xml
+	 *
+	 * @return the region of the value, or null if the packet contains no data
+	 */
+	static Region dataValue( CharSequence packet ) {
+		int root = nextTag( packet, 0 );
+		if ( root < 0 || packet.charAt( root + 1 ) == '/' || !tagName( packet, root ).equals( "wddxPacket" ) ) {
+			throw invalid( null );
+		}
+		Region			value		= null;
+		List<Region>	children	= children( packet, root );
+		for ( Region child : children ) {
+			if ( child.name().equals( "data" ) ) {
+				value = child.firstChild();
+			}
+		}
+		int close = root;
+		if ( packet.charAt( tagEnd( packet, root ) - 1 ) != '/' ) {
+			close = nextTag( packet, children.isEmpty() ? tagEnd( packet, root ) + 1 : children.get( children.size() - 1 ).end() );
+		}
+		requireEnd( packet, tagEnd( packet, close ) + 1 );
+		return value;
+	}
+
+	/**
+	 * Rejects a concatenated or otherwise trailing document after the packet element. Only whitespace, comments and
+	 * processing instructions may follow it.
+	 */
+	private static void requireEnd( CharSequence packet, int from ) {
+		int pos = from;
+		while ( pos < packet.length() ) {
+			if ( Character.isWhitespace( packet.charAt( pos ) ) ) {
+				pos++;
+			} else if ( startsWith( packet, "<!--", pos ) ) {
+				pos = skipPast( packet, pos, "-->" );
+			} else if ( startsWith( packet, "<?", pos ) ) {
+				pos = skipPast( packet, pos, "?>" );
+			} else {
+				throw invalid( ": content follows the wddxPacket element" );
+			}
+		}
+	}
+
+	/**
+	 * Returns the regions of the child elements of the element starting at the given index
+	 */
+	private static List<Region> children( CharSequence packet, int start ) {
+		List<Region>	result	= new ArrayList<>();
+		int				gt		= tagEnd( packet, start );
+		if ( packet.charAt( gt - 1 ) == '/' ) {
+			return result;
+		}
+		int pos = gt + 1;
+		while ( true ) {
+			int lt = nextTag( packet, pos );
+			if ( lt < 0 ) {
+				throw invalid( ": unexpected end of packet" );
+			}
+			if ( packet.charAt( lt + 1 ) == '/' ) {
+				return result;
+			}
+			pos = elementEnd( packet, lt );
+			result.add( new Region( packet, lt, pos ) );
+		}
+	}
+
+	/**
+	 * Returns the index following the end tag of the element starting at the given index
+	 */
+	private static int elementEnd( CharSequence packet, int start ) {
+		int	depth	= 0;
+		int	pos		= start;
+		do {
+			int lt = nextTag( packet, pos );
+			if ( lt < 0 ) {
+				throw invalid( ": unexpected end of packet" );
+			}
+			int gt = tagEnd( packet, lt );
+			if ( packet.charAt( lt + 1 ) == '/' ) {
+				depth--;
+			} else if ( packet.charAt( gt - 1 ) != '/' ) {
+				depth++;
+			}
+			pos = gt + 1;
+		} while ( depth > 0 );
+		return pos;
+	}
+
+	/**
+	 * Returns the index of the next start or end tag at or after the given index, skipping comments, CDATA sections,
+	 * processing instructions and declarations.
+	 *
+	 * @return the index of the tag's `<`, or -1 if there are no further tags
+	 */
+	private static int nextTag( CharSequence packet, int from ) {
+		int lt = indexOf( packet, '<', from );
+		while ( lt >= 0 && lt + 1 < packet.length() ) {
+			char next = packet.charAt( lt + 1 );
+			if ( next == '?' ) {
+				lt = skipPast( packet, lt, "?>" );
+			} else if ( startsWith( packet, "<!--", lt ) ) {
+				lt = skipPast( packet, lt, "-->" );
+			} else if ( startsWith( packet, "<![CDATA[", lt ) ) {
+				lt = skipPast( packet, lt, "]]>" );
+			} else if ( next == '!' ) {
+				lt = skipPast( packet, lt, ">" );
+			} else {
+				return lt;
+			}
+			lt = indexOf( packet, '<', lt );
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index following the next occurrence of the terminator
+	 */
+	private static int skipPast( CharSequence packet, int from, String terminator ) {
+		int end = indexOf( packet, terminator, from );
+		if ( end < 0 ) {
+			throw invalid( ": unterminated markup" );
+		}
+		return end + terminator.length();
+	}
+
+	/**
+	 * Returns the index of the `>` closing the tag starting at the given index, allowing for quoted attribute values
+	 */
+	private static int tagEnd( CharSequence packet, int lt ) {
+		char quote = 0;
+		for ( int i = lt + 1; i < packet.length(); i++ ) {
+			char c = packet.charAt( i );
+			if ( quote != 0 ) {
+				if ( c == quote ) {
+					quote = 0;
+				}
+			} else if ( c == '"' || c == '\'' ) {
+				quote = c;
+			} else if ( c == '>' ) {
+				return i;
+			}
+		}
+		throw invalid( ": unterminated tag" );
+	}
+
+	/**
+	 * Returns the local name of the tag starting at the given index
+	 */
+	private static String tagName( CharSequence packet, int lt ) {
+		int	start	= lt + 1;
+		int	end		= start;
+		while ( end < packet.length() && !isNameEnd( packet.charAt( end ) ) ) {
+			end++;
+		}
+		int nameStart = start;
+		for ( int i = start; i < end; i++ ) {
+			if ( packet.charAt( i ) == ':' ) {
+				nameStart = i + 1;
+			}
+		}
+		return packet.subSequence( nameStart, end ).toString();
+	}
+
+	/**
+	 * Returns the unescaped value of an attribute of the tag starting at the given index, or null if it is not present
+	 */
+	private static String attribute( CharSequence packet, int lt, String name ) {
+		int	gt	= tagEnd( packet, lt );
+		int	pos	= lt + 1;
+		while ( pos < gt && !isNameEnd( packet.charAt( pos ) ) ) {
+			pos++;
+		}
+		while ( pos < gt ) {
+			while ( pos < gt && ( Character.isWhitespace( packet.charAt( pos ) ) || packet.charAt( pos ) == '/' ) ) {
+				pos++;
+			}
+			int nameStart = pos;
+			while ( pos < gt && packet.charAt( pos ) != '=' && !Character.isWhitespace( packet.charAt( pos ) ) ) {
+				pos++;
+			}
+			String attributeName = packet.subSequence( nameStart, pos ).toString();
+			while ( pos < gt && packet.charAt( pos ) != '"' && packet.charAt( pos ) != '\'' ) {
+				pos++;
+			}
+			if ( pos >= gt ) {
+				break;
+			}
+			int valueEnd = indexOf( packet, packet.charAt( pos ), pos + 1 );
+			if ( attributeName.equals( name ) ) {
+				return unescape( packet.subSequence( pos + 1, valueEnd ).toString() );
+			}
+			pos = valueEnd + 1;
+		}
+		return null;
+	}
+
+	/**
+	 * Expands the predefined and numeric character references in an attribute value
+	 */
+	private static String unescape( String value ) {
+		int amp = value.indexOf( '&' );
+		if ( amp < 0 ) {
+			return value;
+		}
+		StringBuilder	result	= new StringBuilder( value.length() );
+		int				pos		= 0;
+		while ( amp >= 0 ) {
+			int semi = value.indexOf( ';', amp );
+			if ( semi < 0 ) {
+				throw invalid( ": unterminated entity reference" );
+			}
+			result.append( value, pos, amp );
+			String entity = value.substring( amp + 1, semi );
+			switch ( entity ) {
+				case "lt" -> result.append( '<' );
+				case "gt" -> result.append( '>' );
+				case "amp" -> result.append( '&' );
+				case "quot" -> result.append( '"' );
+				case "apos" -> result.append( '\'' );
+				default -> {
+					if ( !entity.startsWith( "#" ) ) {
+						throw invalid( ": undeclared entity [" + entity + "]" );
+					}
+					boolean hex = entity.startsWith( "#x" );
+					try {
+						result.appendCodePoint( Integer.parseInt( entity.substring( hex ? 2 : 1 ), hex ? 16 : 10 ) );
+					} catch ( IllegalArgumentException e ) {
+						throw invalid( ": invalid character reference [" + entity + "]" );
+					}
+				}
+			}
+			pos	= semi + 1;
+			amp	= value.indexOf( '&', pos );
+		}
+		return result.append( value, pos, value.length() ).toString();
+	}
+
+	/**
+	 * Returns the index of the next occurrence of a character at or after the given index, or -1
+	 */
+	private static int indexOf( CharSequence packet, char c, int from ) {
+		if ( packet instanceof String string ) {
+			return string.indexOf( c, from );
+		}
+		for ( int i = Math.max( 0, from ); i < packet.length(); i++ ) {
+			if ( packet.charAt( i ) == c ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the next occurrence of a string at or after the given index, or -1
+	 */
+	private static int indexOf( CharSequence packet, String target, int from ) {
+		if ( packet instanceof String string ) {
+			return string.indexOf( target, from );
+		}
+		for ( int i = indexOf( packet, target.charAt( 0 ), from ); i >= 0; i = indexOf( packet, target.charAt( 0 ), i + 1 ) ) {
+			if ( startsWith( packet, target, i ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Whether the packet holds the given prefix at the given index
+	 */
+	private static boolean startsWith( CharSequence packet, String prefix, int offset ) {
+		if ( packet instanceof String string ) {
+			return string.startsWith( prefix, offset );
+		}
+		if ( offset < 0 || offset + prefix.length() > packet.length() ) {
+			return false;
+		}
+		for ( int i = 0; i < prefix.length(); i++ ) {
+			if ( packet.charAt( offset + i ) != prefix.charAt( i ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isNameEnd( char c ) {
+		return c == '>' || c == '/' || Character.isWhitespace( c );
+	}
+
+}
@@ -0,0 +1,169 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ortus.boxlang.modules.wddx.util.WDDXPacketScanner.Region;
+import ortus.boxlang.modules.wddx.util.WDDXParser.Totals;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+
+/**
+ * Decodes large packets in parallel. The element boundaries of a large subtree are located with
+ * {@link WDDXPacketScanner}, then the elements of large arrays and the fields of recordsets are decoded in chunks on
+ * the fork/join pool, and assembled in order in to the resulting array slots and query columns.
+ *
+ * Subtrees below the parse threshold are decoded sequentially by {@link WDDXParser}. Every part of a packet shares
+ * the same {@link Totals}, so the element limit and the recorded shape apply to the whole packet.
+ */
+final class WDDXParallelDecoder {
+
+	private final WDDXParallelism	parallelism;
+	private final WDDXLimits		limits;
+
+	/**
+	 * Creates a decoder
+	 *
+	 * @param parallelism the parallelism configuration
+	 * @param limits      the limits enforced while the packet is decoded
+	 */
+	WDDXParallelDecoder( WDDXParallelism parallelism, WDDXLimits limits ) {
+		this.parallelism	= parallelism;
+		this.limits			= limits;
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object
+	 *
+	 * @param wddx the WDDX xml
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	Object parse( String wddx ) {
+		return parse( wddx, WDDXMetrics.Sample.NONE );
+	}
+
+	/**
+	 * Parses a wddx packet, describing the shape of the packet to a metrics sample
+	 *
+	 * @param wddx   the WDDX xml
+	 * @param sample the sample of the call
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	Object parse( String wddx, WDDXMetrics.Sample sample ) {
+		Region	value	= WDDXPacketScanner.dataValue( wddx );
+		Totals	totals	= new Totals();
+		Object	result	= value == null ? null : decode( value, 1, totals );
+		totals.describe( sample );
+		return result;
+	}
+
+	/**
+	 * Decodes a value element at the given depth, in parallel if it is above the parse threshold
+	 */
+	private Object decode( Region region, int depth, Totals totals ) {
+		if ( !parallelism.isParallelParse( region.end() - region.start() ) ) {
+			return WDDXParser.parseValue( region.xml(), limits, depth - 1, totals );
+		}
+		switch ( region.name() ) {
+			case "struct" : {
+				open( depth, totals );
+				IStruct result = new Struct();
+				for ( Region var : region.children() ) {
+					Region value = var.firstChild();
+					result.put( Key.of( var.requiredAttribute( "name" ) ), value == null ? null : decode( value, depth + 1, totals ) );
+				}
+				return result;
+			}
+			case "array" : {
+				open( depth, totals );
+				List<Region>	elements	= region.children();
+				Array			result		= new Array( elements.size() );
+				for ( Array chunk : parallelism.invokeAll( parallelism.chunks( elements ), part -> decodeChunk( part, depth, totals ) ) ) {
+					result.addAll( chunk );
+				}
+				return result;
+			}
+			case "recordset" : {
+				open( depth, totals );
+				return decodeRecordset( region, depth, totals );
+			}
+			default : {
+				return WDDXParser.parseValue( region.xml(), limits, depth - 1, totals );
+			}
+		}
+	}
+
+	/**
+	 * Counts a container decoded in parallel against the element and depth limits
+	 */
+	private void open( int depth, Totals totals ) {
+		limits.checkDepth( depth );
+		totals.countElement( limits );
+		totals.shape( depth, 0 );
+	}
+
+	/**
+	 * Decodes the cells of every field of a recordset in parallel chunks, then assembles the columns in order
+	 */
+	private Query decodeRecordset( Region region, int depth, Totals totals ) {
+		RecordsetDecoder	decoder		= new RecordsetDecoder( RecordsetDecoder.rowCount( region.attribute( "rowCount" ) ), limits );
+		List<Region>		fields		= region.children();
+		List<List<Region>>	chunks		= new ArrayList<>();
+		int[]				chunkCounts	= new int[ fields.size() ];
+		for ( int i = 0; i < fields.size(); i++ ) {
+			totals.countElement( limits );
+			List<List<Region>> fieldChunks = parallelism.chunks( fields.get( i ).children() );
+			chunks.addAll( fieldChunks );
+			chunkCounts[ i ] = fieldChunks.size();
+		}
+
+		List<Array>	decoded	= parallelism.invokeAll( chunks, part -> decodeChunk( part, depth, totals ) );
+		int			next	= 0;
+		for ( int i = 0; i < fields.size(); i++ ) {
+			decoder.addColumn( fields.get( i ).requiredAttribute( "name" ), fields.get( i ).attribute( "type" ) );
+			for ( int chunk = 0; chunk < chunkCounts[ i ]; chunk++ ) {
+				for ( Object value : decoded.get( next++ ) ) {
+					decoder.append( value );
+				}
+			}
+		}
+		Query result = decoder.toQuery();
+		totals.shape( depth, result.getData().size() );
+		return result;
+	}
+
+	/**
+	 * Decodes a run of consecutive sibling values with a single parser, by wrapping them in an array which stands in for
+	 * their parent at the given depth. The parent has already been counted, so the stand in is not.
+	 */
+	private Array decodeChunk( List<Region> chunk, int depth, Totals totals ) {
+		Region	first	= chunk.get( 0 );
+		Region	last	= chunk.get( chunk.size() - 1 );
+		totals.uncountElement();
+		return ( Array ) WDDXParser.parseValue( "<array>" + first.packet().subSequence( first.start(), last.end() ) + "</array>", limits, depth - 1,
+		    totals );
+	}
+
+}
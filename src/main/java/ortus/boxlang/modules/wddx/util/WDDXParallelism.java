@@ -0,0 +1,216 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import ortus.boxlang.runtime.dynamic.casters.BooleanCaster;
+import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
+import ortus.boxlang.runtime.types.IStruct;
+
+/**
+ * Serializes the items of large collections in parallel. Items are split in to chunks, each chunk is serialized to its
+ * own buffer on a {@link ForkJoinPool}, and the chunk buffers are then appended to the packet in order. At most two
+ * chunks per worker are in flight at once, so the buffered output stays bounded however large the collection is.
+ * Collections smaller than the threshold are always serialized sequentially.
+ *
+ * The same pool decodes the arrays and recordsets of large packets, see {@link WDDXParallelDecoder}.
+ *
+ * The shared instance is configured from the `parallel` group of the module settings and is disabled by default. An
+ * instance with its own worker threads shuts them down when it is closed, and the shared instance is closed when the
+ * module is unloaded.
+ */
+public class WDDXParallelism implements AutoCloseable {
+
+	private static volatile WDDXParallelism	instance;
+
+	private final boolean					enabled;
+	private final int						threshold;
+	private final int						chunkSize;
+	private final int						parseThreshold;
+	private final ForkJoinPool				pool;
+	private final int						window;
+
+	/**
+	 * Creates a parallelism configuration
+	 *
+	 * @param enabled        whether large collections are serialized and decoded in parallel at all
+	 * @param threshold      the number of items from which a collection is serialized in parallel
+	 * @param chunkSize      the number of items serialized by each parallel task
+	 * @param parallelism    the number of worker threads, or 0 to use the common fork/join pool
+	 * @param parseThreshold the length, in chars, from which a packet or subtree is decoded in parallel, or 0 to
+	 *                       always decode sequentially
+	 */
+	public WDDXParallelism( boolean enabled, int threshold, int chunkSize, int parallelism, int parseThreshold ) {
+		this.enabled		= enabled;
+		this.threshold		= Math.max( 1, threshold );
+		this.chunkSize		= Math.max( 1, chunkSize );
+		this.parseThreshold	= parseThreshold;
+		this.pool			= !enabled ? null : parallelism > 0 ? new ForkJoinPool( parallelism ) : ForkJoinPool.commonPool();
+		this.window			= pool == null ? 1 : 2 * pool.getParallelism();
+	}
+
+	/**
+	 * Returns the shared configuration, read from the module settings on first use
+	 *
+	 * @return the shared configuration
+	 */
+	public static WDDXParallelism getInstance() {
+		if ( instance == null ) {
+			synchronized ( WDDXParallelism.class ) {
+				if ( instance == null ) {
+					IStruct settings = WDDXSettings.getGroup( WDDXKeys.parallel );
+					instance = new WDDXParallelism(
+					    BooleanCaster.cast( settings.getOrDefault( WDDXKeys.enabled, false ) ),
+					    IntegerCaster.cast( settings.getOrDefault( WDDXKeys.threshold, 10_000 ) ),
+					    IntegerCaster.cast( settings.getOrDefault( WDDXKeys.chunkSize, 2_048 ) ),
+					    IntegerCaster.cast( settings.getOrDefault( WDDXKeys.parallelism, 0 ) ),
+					    IntegerCaster.cast( settings.getOrDefault( WDDXKeys.parseThreshold, 1_048_576 ) )
+					);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Closes the shared configuration, so that it is read from the module settings again on next use
+	 */
+	public static void shutdown() {
+		synchronized ( WDDXParallelism.class ) {
+			if ( instance != null ) {
+				instance.close();
+				instance = null;
+			}
+		}
+	}
+
+	/**
+	 * Shuts down the worker threads of this configuration, unless it uses the common fork/join pool. Tasks already
+	 * running are completed.
+	 */
+	@Override
+	public void close() {
+		if ( pool != null && pool != ForkJoinPool.commonPool() ) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Whether a collection of the given size should be processed in parallel
+	 *
+	 * @param size the number of items in the collection
+	 *
+	 * @return true if parallelism is enabled and the size reaches the threshold
+	 */
+	public boolean isParallel( int size ) {
+		return enabled && size >= threshold;
+	}
+
+	/**
+	 * Whether a packet or subtree of the given length should be decoded in parallel
+	 *
+	 * @param length the length of the xml, in chars
+	 *
+	 * @return true if parallelism is enabled and the length reaches the parse threshold
+	 */
+	public boolean isParallelParse( int length ) {
+		return enabled && parseThreshold > 0 && length >= parseThreshold;
+	}
+
+	/**
+	 * Splits a list in to consecutive chunks of the configured chunk size
+	 *
+	 * @param items the items to split
+	 *
+	 * @return the chunks, as views of the list
+	 */
+	public <T> List<List<T>> chunks( List<T> items ) {
+		List<List<T>> result = new ArrayList<>( items.size() / chunkSize + 1 );
+		for ( int start = 0; start < items.size(); start += chunkSize ) {
+			result.add( items.subList( start, Math.min( items.size(), start + chunkSize ) ) );
+		}
+		return result;
+	}
+
+	/**
+	 * Applies a function to each input on the pool, and waits for the results
+	 *
+	 * @param inputs   the inputs
+	 * @param function the function to apply
+	 *
+	 * @return the results, in the order of the inputs
+	 */
+	public <T, R> List<R> invokeAll( List<T> inputs, Function<? super T, ? extends R> function ) {
+		List<ForkJoinTask<R>> tasks = new ArrayList<>( inputs.size() );
+		for ( T input : inputs ) {
+			tasks.add( submit( ForkJoinTask.adapt( () -> function.apply( input ) ) ) );
+		}
+		List<R> results = new ArrayList<>( tasks.size() );
+		for ( ForkJoinTask<R> task : tasks ) {
+			results.add( task.join() );
+		}
+		return results;
+	}
+
+	/**
+	 * Serializes the items in parallel chunks and appends the results to the target serializer in order. Once the
+	 * window of chunks in flight is full, the oldest chunk is appended before the next one is submitted.
+	 *
+	 * @param items  the items to serialize
+	 * @param writer writes a single item to a serializer
+	 * @param target the serializer receiving the output
+	 */
+	public <T> void serialize( List<T> items, BiConsumer<? super T, WDDXSerializer> writer, WDDXSerializer target ) {
+		Queue<ForkJoinTask<WDDXSerializer>> inFlight = new ArrayDeque<>( window );
+		for ( List<T> chunk : chunks( items ) ) {
+			if ( inFlight.size() >= window ) {
+				target.append( inFlight.remove().join() );
+			}
+			WDDXSerializer part = target.fork( chunk.size() * 32 ).parallel( this );
+			inFlight.add( submit( ForkJoinTask.adapt( () -> {
+				for ( T item : chunk ) {
+					writer.accept( item, part );
+				}
+				return part;
+			} ) ) );
+		}
+		while ( !inFlight.isEmpty() ) {
+			target.append( inFlight.remove().join() );
+		}
+	}
+
+	/**
+	 * Schedules a task, forking it when already running within the pool so that nested collections share workers
+	 */
+	private <T> ForkJoinTask<T> submit( ForkJoinTask<T> task ) {
+		if ( ForkJoinTask.getPool() == pool ) {
+			return task.fork();
+		}
+		pool.execute( task );
+		return task;
+	}
+
+}
@@ -0,0 +1,205 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import ortus.boxlang.runtime.dynamic.casters.BooleanCaster;
+import ortus.boxlang.runtime.dynamic.casters.LongCaster;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.DateTime;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.util.DuplicationUtil;
+
+/**
+ * A bounded LRU cache of parsed WDDX packets, for applications which deserialize the same packets repeatedly.
+ *
+ * Entries are keyed on the packet itself: lookups use the packet's (intrinsified and per-instance cached) string hash
+ * and are confirmed by equality, so a hash collision can never return the wrong value. The cache is bounded both by
+ * entry count and by the combined length of the cached packets, and packets over a size limit are never cached.
+ * Callers always receive a deep copy of the cached value, so they cannot corrupt it.
+ *
+ * The shared instance is configured from the `parseCache` group of the module settings and is disabled by default.
+ */
+public class WDDXParseCache {
+
+	private static volatile WDDXParseCache		instance;
+
+	private final boolean						enabled;
+	private final long							maxEntries;
+	private final long							maxPacketLength;
+	private final long							maxTotalLength;
+
+	private final LinkedHashMap<String, Object>	entries		= new LinkedHashMap<>( 16, 0.75f, true );
+	private long								totalLength	= 0;
+
+	private final LongAdder						hits		= new LongAdder();
+	private final LongAdder						misses		= new LongAdder();
+	private final LongAdder						evictions	= new LongAdder();
+
+	/**
+	 * Creates a cache
+	 *
+	 * @param enabled         whether the cache is used at all
+	 * @param maxEntries      the maximum number of cached packets
+	 * @param maxPacketLength the length, in chars, above which a packet is never cached
+	 * @param maxTotalLength  the maximum combined length, in chars, of all cached packets
+	 */
+	public WDDXParseCache( boolean enabled, long maxEntries, long maxPacketLength, long maxTotalLength ) {
+		this.enabled			= enabled;
+		this.maxEntries			= maxEntries;
+		this.maxPacketLength	= maxPacketLength;
+		this.maxTotalLength		= maxTotalLength;
+	}
+
+	/**
+	 * Returns the shared cache, configured from the module settings on first use
+	 *
+	 * @return the shared cache
+	 */
+	public static WDDXParseCache getInstance() {
+		if ( instance == null ) {
+			synchronized ( WDDXParseCache.class ) {
+				if ( instance == null ) {
+					IStruct settings = WDDXSettings.getGroup( WDDXKeys.parseCache );
+					instance = new WDDXParseCache(
+					    BooleanCaster.cast( settings.getOrDefault( WDDXKeys.enabled, false ) ),
+					    LongCaster.cast( settings.getOrDefault( WDDXKeys.maxEntries, 500 ) ),
+					    LongCaster.cast( settings.getOrDefault( WDDXKeys.maxPacketLength, 1_048_576 ) ),
+					    LongCaster.cast( settings.getOrDefault( WDDXKeys.maxTotalLength, 33_554_432 ) )
+					);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Discards the shared cache, along with its entries, so that it is configured from the module settings again on next use
+	 */
+	public static void clearInstance() {
+		synchronized ( WDDXParseCache.class ) {
+			instance = null;
+		}
+	}
+
+	/**
+	 * Whether the cache is enabled
+	 *
+	 * @return true if packets should be parsed through the cache
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Parses a packet, returning a copy of the cached result when the same packet has been parsed before
+	 *
+	 * @param wddx the WDDX xml
+	 *
+	 * @return Object the packet representation
+	 */
+	public Object parse( String wddx ) {
+		if ( wddx.length() > maxPacketLength ) {
+			misses.increment();
+			return WDDXParser.parse( wddx );
+		}
+
+		Object cached;
+		synchronized ( entries ) {
+			cached = entries.get( wddx );
+		}
+		if ( cached != null ) {
+			hits.increment();
+			return copy( cached );
+		}
+
+		misses.increment();
+		Object result = WDDXParser.parse( wddx );
+		if ( result != null ) {
+			store( wddx, result );
+			return copy( result );
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all cached packets
+	 */
+	public void clear() {
+		synchronized ( entries ) {
+			entries.clear();
+			totalLength = 0;
+		}
+	}
+
+	/**
+	 * Returns the cache counters
+	 *
+	 * @return a struct of the hits, misses, evictions, number of entries and combined packet length
+	 */
+	public IStruct getStats() {
+		synchronized ( entries ) {
+			return Struct.of(
+			    "enabled", enabled,
+			    "hits", hits.sum(),
+			    "misses", misses.sum(),
+			    "evictions", evictions.sum(),
+			    "size", entries.size(),
+			    "totalLength", totalLength
+			);
+		}
+	}
+
+	/**
+	 * Adds a parsed packet, evicting the least recently used packets until the cache is back within its bounds
+	 */
+	private void store( String wddx, Object result ) {
+		synchronized ( entries ) {
+			if ( entries.put( wddx, result ) == null ) {
+				totalLength += wddx.length();
+			}
+			Iterator<Map.Entry<String, Object>> eldest = entries.entrySet().iterator();
+			while ( ( entries.size() > maxEntries || totalLength > maxTotalLength ) && eldest.hasNext() ) {
+				totalLength -= eldest.next().getKey().length();
+				eldest.remove();
+				evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Copies mutable results, including a date time, whose timezone and format can be changed in place, so that
+	 * callers never share the cached instance
+	 */
+	private static Object copy( Object value ) {
+		if ( value instanceof IStruct || value instanceof Array || value instanceof Query || value instanceof byte[] ) {
+			return DuplicationUtil.duplicate( value, true );
+		}
+		if ( value instanceof DateTime dateTime ) {
+			return new DateTime( dateTime.getWrapped() );
+		}
+		return value;
+	}
+
+}
@@ -0,0 +1,757 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * A streaming WDDX deserializer which builds the native BoxLang representation of a packet
+ * directly from StAX pull events, without constructing an intermediate XML DOM.
+ *
+ * Structs, arrays and recordsets are read from an explicit stack of open containers rather than by recursion, so the
+ * nesting depth of a packet is bounded only by the `maxDepth` limit and never by the thread's stack.
+ *
+ * A parser instance wraps a single packet source and is not thread-safe.
+ */
+public class WDDXParser {
+
+	static final XMLInputFactory	factory		= createFactory();
+
+	/**
+	 * Returned in place of a value when the parser is positioned on the start tag of the next value of an open container
+	 */
+	private static final Object		NEXT_VALUE	= new Object();
+
+	/**
+	 * Returned in place of a number which was appended straight in to the recordset field being read
+	 */
+	private static final Object		APPENDED	= new Object();
+
+	private final XMLStreamReader	reader;
+	private final WDDXLimits		limits;
+	private final ArrayDeque<Frame>	frames		= new ArrayDeque<>();
+	private int						depth;
+	private int						maxDepth;
+	private long					rows;
+	private long					elements;
+	private Totals					totals;
+	private ZoneId					zone;
+
+	/**
+	 * Creates a parser over the given packet source, enforcing the module limits
+	 *
+	 * @param source the reader supplying the WDDX xml
+	 */
+	public WDDXParser( Reader source ) {
+		this( source, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Creates a parser over the given packet source
+	 *
+	 * @param source the reader supplying the WDDX xml
+	 * @param limits the limits enforced while the packet is read
+	 */
+	public WDDXParser( Reader source, WDDXLimits limits ) {
+		this.limits = limits;
+		try {
+			this.reader = factory.createXMLStreamReader( source );
+		} catch ( XMLStreamException e ) {
+			throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Creates a parser over the given packet bytes. The encoding is detected from the byte order mark or the XML
+	 * declaration of the packet, and is UTF-8 otherwise.
+	 *
+	 * @param source the stream supplying the WDDX xml
+	 * @param limits the limits enforced while the packet is read
+	 */
+	public WDDXParser( InputStream source, WDDXLimits limits ) {
+		this.limits = limits;
+		try {
+			this.reader = factory.createXMLStreamReader( source );
+		} catch ( XMLStreamException e ) {
+			throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object. Packets above the parallel parse threshold are decoded by
+	 * {@link WDDXParallelDecoder}.
+	 *
+	 * @param wddx the WDDX xml
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( String wddx ) {
+		return parse( wddx, WDDXMetrics.Sample.NONE, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet, describing the shape of the packet to a metrics sample
+	 *
+	 * @param wddx   the WDDX xml
+	 * @param sample the sample of the call
+	 * @param limits the limits enforced while the packet is read
+	 *
+	 * @return Object the packet representation
+	 */
+	static Object parse( String wddx, WDDXMetrics.Sample sample, WDDXLimits limits ) {
+		limits.checkPacketLength( wddx.length() );
+		WDDXParallelism parallelism = WDDXParallelism.getInstance();
+		if ( parallelism.isParallelParse( wddx.length() ) ) {
+			return new WDDXParallelDecoder( parallelism, limits ).parse( wddx, sample );
+		}
+		return new WDDXParser( new StringReader( wddx ), limits ).parse( sample );
+	}
+
+	/**
+	 * Reads the packet and returns its native BoxLang representation
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	public Object parse() {
+		return parse( WDDXMetrics.Sample.NONE );
+	}
+
+	/**
+	 * Reads the packet, describing the shape of the packet to a metrics sample
+	 *
+	 * @param sample the sample of the call
+	 *
+	 * @return Object the packet representation, or null if the packet contains no data
+	 */
+	Object parse( WDDXMetrics.Sample sample ) {
+		try {
+			if ( !nextChildElement() || !reader.getLocalName().equals( "wddxPacket" ) ) {
+				throw new BoxRuntimeException( "The object provided is not a valid WDDX packet" );
+			}
+			Object result = null;
+			while ( nextChildElement() ) {
+				if ( reader.getLocalName().equals( "data" ) ) {
+					result = readWrappedValue();
+				} else {
+					skipElement();
+				}
+			}
+			endDocument();
+			sample.shape( maxDepth, rows );
+			return result;
+		} catch ( XMLStreamException e ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: " + e.getMessage(), e );
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Parses a single, bare WDDX value element (e.g. `<string>...</string>`) which is not wrapped in a packet
+	 *
+	 * @param value  the xml of the value element
+	 * @param limits the limits enforced while the value is read
+	 * @param depth  the depth of the element containing the value, so that the depth limit applies to the whole packet
+	 *
+	 * @return Object the value representation
+	 */
+	static Object parseValue( String value, WDDXLimits limits, int depth ) {
+		return parseValue( value, limits, depth, null );
+	}
+
+	/**
+	 * Parses a single, bare WDDX value element which is one of several parts of a packet decoded separately
+	 *
+	 * @param value  the xml of the value element
+	 * @param limits the limits enforced while the value is read
+	 * @param depth  the depth of the element containing the value, so that the depth limit applies to the whole packet
+	 * @param totals the totals of the whole packet, which the element limit applies to and which receive the shape of
+	 *               the value, or null if the value is the only part read
+	 *
+	 * @return Object the value representation
+	 */
+	static Object parseValue( String value, WDDXLimits limits, int depth, Totals totals ) {
+		WDDXParser parser = new WDDXParser( new StringReader( value ), limits );
+		parser.depth	= depth;
+		parser.maxDepth	= depth;
+		parser.totals	= totals;
+		try {
+			Object result = parser.nextChildElement() ? parser.readValue() : null;
+			if ( totals != null ) {
+				totals.shape( parser.maxDepth, parser.rows );
+			}
+			return result;
+		} catch ( XMLStreamException e ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: " + e.getMessage(), e );
+		} finally {
+			parser.close();
+		}
+	}
+
+	/**
+	 * Creates a parser over a single element of a packet, positioned on the start tag of that element. Only the
+	 * element itself is read, so the rest of the packet is never parsed.
+	 *
+	 * @param packet the WDDX xml
+	 * @param start  the index of the opening `<` of the element
+	 * @param limits the limits enforced while the element is read
+	 * @param depth  the depth of the element, so that the depth limit applies to the whole packet
+	 *
+	 * @return the parser
+	 */
+	static WDDXParser element( String packet, int start, WDDXLimits limits, int depth ) {
+		StringReader source = new StringReader( packet );
+		try {
+			source.skip( start );
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+		}
+		return position( new WDDXParser( source, limits ), depth );
+	}
+
+	/**
+	 * Creates a parser over a single element of a packet, whose stream starts at the start tag of that element. Only
+	 * the element itself is read, and the stream is not closed by the parser.
+	 *
+	 * @param source the stream supplying the xml of the element onwards, in UTF-8
+	 * @param limits the limits enforced while the element is read
+	 * @param depth  the depth of the element, so that the depth limit applies to the whole packet
+	 *
+	 * @return the parser
+	 */
+	static WDDXParser element( InputStream source, WDDXLimits limits, int depth ) {
+		return position( new WDDXParser( source, limits ), depth );
+	}
+
+	/**
+	 * Positions a new parser on the start tag of the element it was created over
+	 */
+	private static WDDXParser position( WDDXParser parser, int depth ) {
+		parser.depth	= depth;
+		parser.maxDepth	= depth;
+		try {
+			parser.nextChildElement();
+		} catch ( XMLStreamException e ) {
+			parser.close();
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: " + e.getMessage(), e );
+		}
+		return parser;
+	}
+
+	/**
+	 * The limits enforced while the packet is read
+	 *
+	 * @return the limits
+	 */
+	WDDXLimits limits() {
+		return limits;
+	}
+
+	/**
+	 * Counts an element which is read without {@link #readValue()}, such as a container written by a transcoder or a
+	 * recordset field, against the element limit
+	 */
+	void countElement() {
+		if ( totals != null ) {
+			totals.countElement( limits );
+		} else {
+			limits.checkElements( ++elements );
+		}
+	}
+
+	/**
+	 * Opens a container which is read without {@link #readValue()}, such as a container written by a transcoder,
+	 * counting it against the element and depth limits. Each call is paired with a call to {@link #exit()} once the
+	 * end tag of the container has been read.
+	 */
+	void enter() {
+		countElement();
+		if ( ++depth > maxDepth ) {
+			maxDepth = depth;
+			limits.checkDepth( depth );
+		}
+	}
+
+	/**
+	 * Closes a container opened with {@link #enter()}
+	 */
+	void exit() {
+		depth--;
+	}
+
+	/**
+	 * Releases the underlying StAX reader
+	 */
+	void close() {
+		try {
+			reader.close();
+		} catch ( XMLStreamException e ) {
+			// nothing left to release
+		}
+	}
+
+	/**
+	 * The local name of the element the parser is positioned on
+	 *
+	 * @return the element name
+	 */
+	String localName() {
+		return reader.getLocalName();
+	}
+
+	/**
+	 * An attribute of the element the parser is positioned on
+	 *
+	 * @param name the attribute name
+	 *
+	 * @return the attribute value, or null if it is not present
+	 */
+	String attribute( String name ) {
+		return reader.getAttributeValue( null, name );
+	}
+
+	/**
+	 * A required attribute of the element the parser is positioned on, such as the name of a struct var or recordset
+	 * field
+	 *
+	 * @param name the attribute name
+	 *
+	 * @return the attribute value
+	 */
+	String requiredAttribute( String name ) {
+		return required( attribute( name ), localName(), name );
+	}
+
+	/**
+	 * Checks that a required attribute is present, rejecting the packet if it is not
+	 *
+	 * @param value     the attribute value, or null if it is not present
+	 * @param element   the name of the element
+	 * @param attribute the name of the attribute
+	 *
+	 * @return the attribute value
+	 */
+	static String required( String value, String element, String attribute ) {
+		if ( value == null ) {
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: a <" + element + "> has no " + attribute + " attribute" );
+		}
+		return value;
+	}
+
+	/**
+	 * Reads past the end tag of the packet element to the end of the document, rejecting a concatenated or otherwise
+	 * trailing document. Only whitespace, comments and processing instructions may follow the packet.
+	 */
+	void endDocument() throws XMLStreamException {
+		while ( reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT
+			    || ( event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA ) && !reader.isWhiteSpace() ) {
+				throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: content follows the wddxPacket element" );
+			}
+		}
+	}
+
+	/**
+	 * Reads the value element the parser is currently positioned on. On return the parser is positioned on the
+	 * end tag of that element.
+	 *
+	 * @return the deserialized value
+	 */
+	Object readValue() throws XMLStreamException {
+		int		base	= frames.size();
+		Object	value	= open( false );
+		while ( value == NEXT_VALUE || frames.size() > base ) {
+			if ( value == NEXT_VALUE ) {
+				value = open( true );
+			} else {
+				Frame top = frames.peek();
+				top.add( value );
+				value = next( top );
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Opens the value element the parser is positioned on. Simple values are read completely, while containers are
+	 * pushed on to the stack and the parser is advanced to their first value. Numbers within a recordset field are
+	 * appended to the field without boxing.
+	 *
+	 * @param nested whether the value belongs to a container on the stack
+	 *
+	 * @return the value, {@link #NEXT_VALUE} if a container was opened and its first value is to be read, or
+	 *         {@link #APPENDED} if a number was appended to a recordset field
+	 */
+	private Object open( boolean nested ) throws XMLStreamException {
+		enter();
+		String	nodeName	= reader.getLocalName();
+		Frame	frame;
+		switch ( nodeName ) {
+			case "recordset" : {
+				frame = new RecordsetFrame( new RecordsetDecoder( RecordsetDecoder.rowCount( reader.getAttributeValue( null, "rowCount" ) ), limits ) );
+				break;
+			}
+			case "struct" : {
+				frame = new StructFrame();
+				break;
+			}
+			case "array" : {
+				frame = new ArrayFrame();
+				break;
+			}
+			case "number" : {
+				if ( nested && reader.getAttributeCount() == 0 && frames.peek() instanceof RecordsetFrame recordset ) {
+					recordset.decoder.appendNumber( readText() );
+					depth--;
+					return APPENDED;
+				}
+				return readSimpleValue( nodeName );
+			}
+			default : {
+				return readSimpleValue( nodeName );
+			}
+		}
+		frames.push( frame );
+		return next( frame );
+	}
+
+	/**
+	 * Reads and decodes the simple value element the parser is positioned on, closing it
+	 */
+	private Object readSimpleValue( String nodeName ) throws XMLStreamException {
+		UnaryOperator<String>	attributes	= reader.getAttributeCount() == 0 ? WDDXDecoders.NO_ATTRIBUTES : readAttributes();
+		Object					value		= WDDXDecoders.decode( nodeName, readText(), attributes, zone() );
+		depth--;
+		return value;
+	}
+
+	/**
+	 * The timezone of the date times in the packet which have no offset, resolved once per packet, or once for all
+	 * of its parts when it is decoded in several parts
+	 */
+	private ZoneId zone() {
+		if ( zone == null ) {
+			zone = totals != null ? totals.zone : WDDXDateTimeCodec.defaultZone();
+		}
+		return zone;
+	}
+
+	/**
+	 * Advances an open container to its next value, or closes it once its end tag is reached
+	 *
+	 * @return {@link #NEXT_VALUE}, or the completed container
+	 */
+	private Object next( Frame frame ) throws XMLStreamException {
+		if ( frame.advance() ) {
+			return NEXT_VALUE;
+		}
+		frames.pop();
+		depth--;
+		return frame.complete();
+	}
+
+	/**
+	 * Reads the single value wrapped by the current element (e.g. a struct `var`), leaving the parser on the
+	 * wrapper's end tag.
+	 */
+	private Object readWrappedValue() throws XMLStreamException {
+		Object value = null;
+		if ( nextChildElement() ) {
+			value = readValue();
+			while ( nextChildElement() ) {
+				skipElement();
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Captures the attributes of the current element, so they remain available once its content has been read
+	 */
+	private UnaryOperator<String> readAttributes() {
+		Map<String, String> attributes = new HashMap<>();
+		for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+			attributes.put( reader.getAttributeLocalName( i ), reader.getAttributeValue( i ) );
+		}
+		return attributes::get;
+	}
+
+	/**
+	 * Reads the text content of a simple value element, expanding any nested WDDX `char` elements.
+	 */
+	private String readText() throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		while ( reader.hasNext() ) {
+			switch ( reader.next() ) {
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE :
+					text.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+					limits.checkStringLength( text.length() );
+					break;
+				case XMLStreamConstants.START_ELEMENT :
+					if ( reader.getLocalName().equals( "char" ) ) {
+						text.append( WDDXDecoders.decodeChar( reader.getAttributeValue( null, "code" ) ) );
+					}
+					skipElement();
+					break;
+				case XMLStreamConstants.END_ELEMENT :
+					return text.toString();
+				default :
+					break;
+			}
+		}
+		throw new XMLStreamException( "Unexpected end of packet" );
+	}
+
+	/**
+	 * Advances to the next child element of the current element.
+	 *
+	 * @return true if positioned on a child start tag, false if the end tag of the current element was reached
+	 */
+	boolean nextChildElement() throws XMLStreamException {
+		while ( reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT ) {
+				return true;
+			} else if ( event == XMLStreamConstants.END_ELEMENT ) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skips past the content of the element the parser is positioned on, leaving the parser on its end tag.
+	 */
+	void skipElement() throws XMLStreamException {
+		int depth = 1;
+		while ( depth > 0 && reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT ) {
+				depth++;
+			} else if ( event == XMLStreamConstants.END_ELEMENT ) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Creates the shared StAX factory. DTDs and external entities are disabled, as WDDX packets never require them.
+	 */
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory xmlFactory = XMLInputFactory.newFactory();
+		xmlFactory.setProperty( XMLInputFactory.SUPPORT_DTD, false );
+		xmlFactory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false );
+		xmlFactory.setProperty( XMLInputFactory.IS_COALESCING, true );
+		return xmlFactory;
+	}
+
+	/**
+	 * A container element which has been opened and whose values are still being read
+	 */
+	private abstract class Frame {
+
+		/**
+		 * Adds a value read from the container. On entry the parser is positioned on the end tag of the value.
+		 */
+		abstract void add( Object value ) throws XMLStreamException;
+
+		/**
+		 * Advances to the start tag of the next value of the container
+		 *
+		 * @return true if positioned on a value, false if the end tag of the container was reached
+		 */
+		abstract boolean advance() throws XMLStreamException;
+
+		/**
+		 * The container built from the values read
+		 */
+		abstract Object complete();
+
+	}
+
+	private final class StructFrame extends Frame {
+
+		private final IStruct	result	= new Struct();
+		private Key				name;
+
+		@Override
+		void add( Object value ) throws XMLStreamException {
+			result.put( name, value );
+			// only the first value of a var is kept
+			while ( nextChildElement() ) {
+				skipElement();
+			}
+		}
+
+		@Override
+		boolean advance() throws XMLStreamException {
+			while ( nextChildElement() ) {
+				name = Key.of( requiredAttribute( "name" ) );
+				if ( nextChildElement() ) {
+					return true;
+				}
+				result.put( name, null );
+			}
+			return false;
+		}
+
+		@Override
+		Object complete() {
+			return result;
+		}
+
+	}
+
+	private final class ArrayFrame extends Frame {
+
+		private final Array result = new Array();
+
+		@Override
+		void add( Object value ) {
+			result.add( value );
+		}
+
+		@Override
+		boolean advance() throws XMLStreamException {
+			return nextChildElement();
+		}
+
+		@Override
+		Object complete() {
+			return result;
+		}
+
+	}
+
+	/**
+	 * Each field of a recordset is decoded once, column by column, straight in to the query storage.
+	 */
+	private final class RecordsetFrame extends Frame {
+
+		private final RecordsetDecoder	decoder;
+		private boolean					inField;
+
+		RecordsetFrame( RecordsetDecoder decoder ) {
+			this.decoder = decoder;
+		}
+
+		@Override
+		void add( Object value ) {
+			if ( value != APPENDED ) {
+				decoder.append( value );
+			}
+		}
+
+		@Override
+		boolean advance() throws XMLStreamException {
+			while ( true ) {
+				if ( inField && nextChildElement() ) {
+					return true;
+				}
+				if ( !nextChildElement() ) {
+					return false;
+				}
+				countElement();
+				decoder.addColumn( requiredAttribute( "name" ), reader.getAttributeValue( null, "type" ) );
+				inField = true;
+			}
+		}
+
+		@Override
+		Object complete() {
+			Query result = decoder.toQuery();
+			rows += result.getData().size();
+			return result;
+		}
+
+	}
+
+	/**
+	 * The running totals of a packet which is decoded in several parts, possibly on several threads, so that the
+	 * element limit and the recorded shape apply to the whole packet rather than to each part
+	 */
+	static final class Totals {
+
+		private final AtomicLong	elements	= new AtomicLong();
+		private final AtomicInteger	maxDepth	= new AtomicInteger();
+		private final AtomicLong	rows		= new AtomicLong();
+		// resolved on the calling thread, as the parts may be decoded outside of the request
+		private final ZoneId		zone		= WDDXDateTimeCodec.defaultZone();
+
+		/**
+		 * Counts an element against the element limit
+		 *
+		 * @param limits the limits of the packet
+		 */
+		void countElement( WDDXLimits limits ) {
+			limits.checkElements( elements.incrementAndGet() );
+		}
+
+		/**
+		 * Takes back the count of an element which stands in for a part of the packet, rather than being part of it
+		 */
+		void uncountElement() {
+			elements.decrementAndGet();
+		}
+
+		/**
+		 * Adds the shape of a part of the packet
+		 *
+		 * @param depth the deepest nesting of values within the part
+		 * @param rows  the number of recordset rows within the part
+		 */
+		void shape( int depth, long rows ) {
+			this.maxDepth.accumulateAndGet( depth, Math::max );
+			this.rows.addAndGet( rows );
+		}
+
+		/**
+		 * Describes the shape of the whole packet to a metrics sample
+		 *
+		 * @param sample the sample of the call
+		 */
+		void describe( WDDXMetrics.Sample sample ) {
+			sample.shape( maxDepth.get(), rows.get() );
+		}
+
+	}
+
+}
@@ -0,0 +1,258 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLStreamException;
+
+import ortus.boxlang.modules.wddx.util.WDDXPacketScanner.Region;
+import ortus.boxlang.runtime.dynamic.casters.StringCaster;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * Reads the rows of a packet whose data is a recordset one at a time, without building a {@link ortus.boxlang.runtime.types.Query}.
+ *
+ * WDDX recordsets are stored column by column, so the fields are first located with {@link WDDXPacketScanner}, which
+ * only examines tags, and each field is then read by its own cursor. Every row takes the next cell from each cursor,
+ * so only a single row is decoded at a time however large the recordset is. The fields of a UTF-8 file are located in
+ * a memory mapping of the file, and each cursor streams its field from its own mapping, so a file is never read in to
+ * the heap. Streams and readers cannot be read at several positions at once, so their packet is read in to memory
+ * first, within the packet length limit.
+ *
+ * A reader instance is not thread-safe, and should be closed if it is not read to the end.
+ */
+public class WDDXRowReader implements Iterator<IStruct>, AutoCloseable {
+
+	private final Key[]			columns;
+	private final WDDXParser[]	cursors;
+	private final InputStream[]	streams;
+	private final Integer		declaredRowCount;
+	private final WDDXLimits	limits;
+	private int					row;
+	private IStruct				next;
+	private boolean				done;
+
+	/**
+	 * Creates a reader over the recordset of a packet, enforcing the module limits
+	 *
+	 * @param wddx the WDDX xml
+	 */
+	public WDDXRowReader( String wddx ) {
+		this( wddx, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Creates a reader over the recordset of a packet
+	 *
+	 * @param wddx   the WDDX xml
+	 * @param limits the limits enforced while the rows are read
+	 */
+	public WDDXRowReader( String wddx, WDDXLimits limits ) {
+		this( wddx, null, limits );
+	}
+
+	/**
+	 * Creates a reader over the recordset of a packet, whose cursors read either the string packet or, when a file is
+	 * given, their own mapping of the file
+	 */
+	private WDDXRowReader( CharSequence packet, Path file, WDDXLimits limits ) {
+		limits.checkPacketLength( packet.length() );
+		Region recordset = WDDXPacketScanner.dataValue( packet );
+		if ( recordset == null || !recordset.name().equals( "recordset" ) ) {
+			throw new BoxRuntimeException( "The WDDX packet does not contain a recordset" );
+		}
+		this.declaredRowCount = RecordsetDecoder.rowCount( recordset.attribute( "rowCount" ) );
+		if ( declaredRowCount != null ) {
+			limits.checkRows( declaredRowCount );
+		}
+		this.limits = limits;
+
+		List<Region> fields = recordset.children();
+		this.columns	= new Key[ fields.size() ];
+		this.cursors	= new WDDXParser[ fields.size() ];
+		this.streams	= new InputStream[ fields.size() ];
+		try {
+			for ( int i = 0; i < columns.length; i++ ) {
+				columns[ i ] = Key.of( fields.get( i ).requiredAttribute( "name" ) );
+				if ( file == null ) {
+					cursors[ i ] = WDDXParser.element( ( String ) packet, fields.get( i ).start(), limits, 1 );
+				} else {
+					streams[ i ]	= new MappedFileInputStream( file, fields.get( i ).start() );
+					cursors[ i ]	= WDDXParser.element( streams[ i ], limits, 1 );
+				}
+			}
+		} catch ( IOException e ) {
+			close();
+			throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+		} catch ( RuntimeException e ) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a reader over the recordset of a packet from any supported source: a string packet, or a java Path, File,
+	 * InputStream or Reader. Files are read from memory mappings, in UTF-8. Streams and readers are read to the end,
+	 * in to memory, but are not closed.
+	 *
+	 * @param source the packet or its source
+	 * @param limits the limits enforced while the packet and its rows are read
+	 *
+	 * @return the reader
+	 */
+	public static WDDXRowReader of( Object source, WDDXLimits limits ) {
+		if ( source instanceof File file ) {
+			source = file.toPath();
+		}
+		if ( source instanceof Path path ) {
+			try {
+				return new WDDXRowReader( new MappedText( path ), path, limits );
+			} catch ( IOException e ) {
+				throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+			}
+		} else if ( source instanceof InputStream || source instanceof Reader ) {
+			return new WDDXRowReader( readSource( source, limits ), limits );
+		}
+		return new WDDXRowReader( StringCaster.cast( source ), limits );
+	}
+
+	/**
+	 * Reads the whole packet of a stream or reader, rejecting it as soon as it exceeds the packet length limit
+	 */
+	private static String readSource( Object source, WDDXLimits limits ) {
+		Reader reader = WDDXUtil.openReader( source );
+		try {
+			StringBuilder	packet	= new StringBuilder();
+			char[]			buffer	= new char[ 8192 ];
+			int				read;
+			while ( ( read = reader.read( buffer ) ) != -1 ) {
+				packet.append( buffer, 0, read );
+				limits.checkPacketLength( packet.length() );
+			}
+			return packet.toString();
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to read the source: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * The names of the recordset fields, in packet order
+	 *
+	 * @return the column names
+	 */
+	public Key[] getColumns() {
+		return columns.clone();
+	}
+
+	@Override
+	public boolean hasNext() {
+		if ( next == null && !done ) {
+			next = readRow();
+		}
+		return next != null;
+	}
+
+	@Override
+	public IStruct next() {
+		if ( !hasNext() ) {
+			throw new NoSuchElementException();
+		}
+		IStruct result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * Releases the cursors of any fields which have not been read to the end
+	 */
+	@Override
+	public void close() {
+		done = true;
+		for ( int i = 0; i < cursors.length; i++ ) {
+			closeCursor( i );
+		}
+	}
+
+	/**
+	 * Releases the cursor of a field, and its mapping of the file if it has one
+	 */
+	private void closeCursor( int index ) {
+		if ( cursors[ index ] != null ) {
+			cursors[ index ].close();
+			cursors[ index ] = null;
+		}
+		if ( streams[ index ] != null ) {
+			try {
+				streams[ index ].close();
+			} catch ( IOException e ) {
+				// nothing left to release
+			}
+			streams[ index ] = null;
+		}
+	}
+
+	/**
+	 * Reads the next cell of every field. Short fields are padded with nulls, and the rows end once every field has
+	 * been read or the declared row count is reached, whichever comes first.
+	 *
+	 * @return the row, or null if there are no more rows
+	 */
+	private IStruct readRow() {
+		if ( declaredRowCount != null && row == declaredRowCount ) {
+			close();
+			return null;
+		}
+		IStruct	result	= new Struct( Struct.TYPES.LINKED );
+		boolean	found	= false;
+		try {
+			for ( int i = 0; i < columns.length; i++ ) {
+				Object value = null;
+				if ( cursors[ i ] != null ) {
+					if ( cursors[ i ].nextChildElement() ) {
+						value	= cursors[ i ].readValue();
+						found	= true;
+					} else {
+						closeCursor( i );
+					}
+				}
+				result.put( columns[ i ], value );
+			}
+		} catch ( XMLStreamException e ) {
+			close();
+			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet: " + e.getMessage(), e );
+		}
+		if ( !found ) {
+			close();
+			return null;
+		}
+		limits.checkRows( ++row );
+		return result;
+	}
+
+}
@@ -0,0 +1,692 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import ortus.boxlang.modules.wddx.types.ArrayHandler;
+import ortus.boxlang.modules.wddx.types.IWDDXTypeHandler;
+import ortus.boxlang.modules.wddx.types.QueryHandler;
+import ortus.boxlang.modules.wddx.types.StructHandler;
+import ortus.boxlang.modules.wddx.types.WDDXTypeHandlers;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+/**
+ * A WDDX serializer which appends an entire packet into a single growable buffer, so that each value is written
+ * exactly once regardless of how deeply it is nested.
+ *
+ * When created with a {@link Writer} sink, the buffer is drained to the sink and the sink is flushed each time it
+ * fills, so memory stays bounded by the buffer size and output is delivered while serialization is still running.
+ *
+ * Structs, arrays and queries handled by the built-in handlers are written from an explicit stack of open containers
+ * rather than by recursion, so nesting depth is not bounded by the thread's stack, and a container which contains
+ * itself is rejected rather than recursing forever. Other handlers are invoked directly, and any containers they write
+ * are again written from the stack.
+ *
+ * Large collections may be serialized in parallel, see {@link WDDXParallelism}. A serializer instance owns its buffer
+ * and is not thread-safe.
+ */
+public class WDDXSerializer {
+
+	private static final String		PACKET_HEADER	= "<wddxPacket version=\"1.0\"><header/><data>";
+	private static final String		PACKET_FOOTER	= "</data></wddxPacket>";
+
+	/**
+	 * Marks that no further value is waiting to be written
+	 */
+	private static final Object		NO_VALUE		= new Object();
+
+	/**
+	 * The buffer size, in chars, at which the buffer is drained to the sink
+	 */
+	private static final int		DRAIN_THRESHOLD	= 8192;
+
+	private final StringBuilder		out;
+	private final ArrayDeque<Frame>	frames			= new ArrayDeque<>();
+	private final Set<Object>		ancestors		= Collections.newSetFromMap( new IdentityHashMap<>() );
+	private final Writer			sink;
+	private final char[]			chunk;
+	private WDDXParallelism			parallelism;
+	private long					drained;
+	private int						depth;
+	private int						maxDepth;
+	private long					rows;
+	private boolean					timezoneInfo	= true;
+
+	/**
+	 * Creates a serializer with a default sized buffer
+	 */
+	public WDDXSerializer() {
+		this( 256 );
+	}
+
+	/**
+	 * Creates a serializer with the given initial buffer capacity
+	 *
+	 * @param capacity the initial capacity of the buffer, in chars
+	 */
+	public WDDXSerializer( int capacity ) {
+		this.out	= new StringBuilder( capacity );
+		this.sink	= null;
+		this.chunk	= null;
+	}
+
+	/**
+	 * Creates a serializer which streams its output to the given writer. The writer is flushed each time the buffer is
+	 * drained and by {@link #flush()}, but is not closed.
+	 *
+	 * @param sink the writer to receive the serialized packet
+	 */
+	public WDDXSerializer( Writer sink ) {
+		this.out	= new StringBuilder( DRAIN_THRESHOLD + 256 );
+		this.sink	= sink;
+		this.chunk	= new char[ DRAIN_THRESHOLD ];
+	}
+
+	/**
+	 * Sets the parallelism used to serialize large collections, in place of the module settings
+	 *
+	 * @param parallelism the parallelism configuration
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer parallel( WDDXParallelism parallelism ) {
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * Sets whether dates are written with their offset from UTC, which they are by default
+	 *
+	 * @param timezoneInfo whether the offset of dates is written
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer timezoneInfo( boolean timezoneInfo ) {
+		this.timezoneInfo = timezoneInfo;
+		return this;
+	}
+
+	/**
+	 * Writes a complete WDDX packet containing the given object
+	 *
+	 * @param obj the object to serialize
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer writePacket( Object obj ) {
+		return beginPacket().writeValue( obj ).endPacket();
+	}
+
+	/**
+	 * Writes the opening of a packet, up to the start of its data. Exactly one value should be written before
+	 * {@link #endPacket()}.
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer beginPacket() {
+		out.append( PACKET_HEADER );
+		return this;
+	}
+
+	/**
+	 * Writes the closing of a packet opened by {@link #beginPacket()}
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer endPacket() {
+		out.append( PACKET_FOOTER );
+		return this;
+	}
+
+	/**
+	 * Writes the WDDX representation of a single value, using the registered type handler for its class
+	 *
+	 * @param obj the object to serialize
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer writeValue( Object obj ) {
+		int base = frames.size();
+		open( obj );
+		return complete( base );
+	}
+
+	/**
+	 * Writes the items of the containers opened since the stack held the given number of frames, until they are all
+	 * closed. Containers opened by an enclosing call, e.g. from a custom handler, are left for that call to complete.
+	 */
+	private WDDXSerializer complete( int base ) {
+		while ( frames.size() > base ) {
+			Frame	top		= frames.peek();
+			Object	next	= top.next( this );
+			if ( next != NO_VALUE ) {
+				open( next );
+				continue;
+			}
+			top.close( this );
+			frames.pop();
+			ancestors.remove( top.container );
+			depth--;
+			drainIfFull();
+		}
+		return this;
+	}
+
+	/**
+	 * Writes a value, or the opening of a built-in container whose items are then written from the stack
+	 */
+	private void open( Object obj ) {
+		enter();
+		if ( obj == null ) {
+			out.append( "<null/>" );
+			depth--;
+			return;
+		}
+		IWDDXTypeHandler	handler	= WDDXTypeHandlers.get( obj.getClass() );
+		Frame				frame	= frameFor( handler, obj );
+		if ( frame == null && !isContainer( handler ) ) {
+			handler.serialize( obj, this );
+			depth--;
+			drainIfFull();
+			return;
+		}
+		addAncestor( obj );
+		if ( frame == null ) {
+			// a collection large enough to be serialized in parallel
+			handler.serialize( obj, this );
+			ancestors.remove( obj );
+			depth--;
+			drainIfFull();
+			return;
+		}
+		frame.open( this );
+		frames.push( frame );
+	}
+
+	/**
+	 * Tracks a container as open, rejecting a container which contains itself
+	 */
+	private void addAncestor( Object obj ) {
+		if ( !ancestors.add( obj ) ) {
+			throw new BoxRuntimeException( "Unable to serialize a [" + obj.getClass().getSimpleName() + "] to WDDX because it contains itself" );
+		}
+	}
+
+	/**
+	 * Counts a value being opened towards the nesting depth
+	 */
+	private void enter() {
+		if ( ++depth > maxDepth ) {
+			maxDepth = depth;
+		}
+	}
+
+	/**
+	 * The parallel serializer, resolved on first use
+	 */
+	private WDDXParallelism parallelism() {
+		if ( parallelism == null ) {
+			parallelism = WDDXParallelism.getInstance();
+		}
+		return parallelism;
+	}
+
+	/**
+	 * Whether a handler is one of the built-in container handlers
+	 */
+	private static boolean isContainer( IWDDXTypeHandler handler ) {
+		Class<?> type = handler.getClass();
+		return type == StructHandler.class || type == ArrayHandler.class || type == QueryHandler.class;
+	}
+
+	/**
+	 * Creates the stack frame for a value written by a built-in container handler. A query always has a frame, which
+	 * writes each of its columns in parallel when the column is large enough.
+	 *
+	 * @return the frame, or null if the value is not a built-in container or is a struct or array large enough to be
+	 *         written in parallel
+	 */
+	private Frame frameFor( IWDDXTypeHandler handler, Object obj ) {
+		Class<?> type = handler.getClass();
+		if ( type == StructHandler.class ) {
+			Map<?, ?> map = ( Map<?, ?> ) obj;
+			return parallelism().isParallel( map.size() ) ? null : new StructFrame( map );
+		} else if ( type == ArrayHandler.class ) {
+			Collection<?> items = obj instanceof Object[] array ? Arrays.asList( array ) : ( Collection<?> ) obj;
+			return parallelism().isParallel( items.size() ) ? null : new ArrayFrame( obj, items );
+		} else if ( type == QueryHandler.class ) {
+			return new QueryFrame( ( Query ) obj );
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a buffer-only serializer for part of the value currently being written, e.g. a chunk of a collection
+	 * which is serialized in parallel. The part knows the containers which are open, so that cycles through them are
+	 * still detected.
+	 *
+	 * @param capacity the initial capacity of the buffer, in chars
+	 *
+	 * @return the part serializer
+	 */
+	WDDXSerializer fork( int capacity ) {
+		WDDXSerializer part = new WDDXSerializer( capacity ).timezoneInfo( timezoneInfo );
+		part.ancestors.addAll( ancestors );
+		return part;
+	}
+
+	/**
+	 * Writes each item of a collection in order. Collections at or above the parallel threshold are serialized in
+	 * chunks on a fork/join pool, so the writer must only write to the serializer it is given.
+	 *
+	 * @param items  the items to write
+	 * @param writer writes a single item to a serializer
+	 *
+	 * @return this serializer
+	 */
+	public <T> WDDXSerializer writeEach( Collection<? extends T> items, BiConsumer<? super T, WDDXSerializer> writer ) {
+		if ( parallelism().isParallel( items.size() ) ) {
+			parallelism.serialize( new ArrayList<T>( items ), writer, this );
+		} else {
+			for ( T item : items ) {
+				writer.accept( item, this );
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Writes the WDDX recordset representation of a query. The cells are written from the explicit stack, as they are
+	 * when the query is nested in another value.
+	 *
+	 * @param obj the Query object to be serialized
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer writeQuery( Query obj ) {
+		int			base	= frames.size();
+		QueryFrame	frame	= new QueryFrame( obj );
+		enter();
+		addAncestor( obj );
+		frame.open( this );
+		frames.push( frame );
+		return complete( base );
+	}
+
+	/**
+	 * Appends raw, already well-formed, WDDX markup
+	 *
+	 * @param markup the markup to append
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer append( String markup ) {
+		out.append( markup );
+		return this;
+	}
+
+	/**
+	 * Appends the buffered content of another, buffer-only, serializer. The values it wrote are counted as nested
+	 * within the value currently being written.
+	 *
+	 * @param other the serializer holding well-formed WDDX markup
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer append( WDDXSerializer other ) {
+		out.append( other.out );
+		maxDepth	= Math.max( maxDepth, depth + other.maxDepth );
+		rows		+= other.rows;
+		drainIfFull();
+		return this;
+	}
+
+	/**
+	 * Appends a value as XML text content, escaping it as required in a single pass. Characters which are illegal in
+	 * XML are written as WDDX `char` elements.
+	 *
+	 * @param text the text to append
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendText( String text ) {
+		WDDXEscaper.appendText( out, text );
+		return this;
+	}
+
+	/**
+	 * Appends a value as the content of an XML attribute, escaping it as required in a single pass
+	 *
+	 * @param value the attribute value to append
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendAttribute( String value ) {
+		WDDXEscaper.appendAttribute( out, value );
+		return this;
+	}
+
+	/**
+	 * Appends a WDDX `number` element, formatting the number straight in to the buffer, see {@link WDDXNumberCodec}
+	 *
+	 * @param value the number
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendNumber( Number value ) {
+		out.append( "<number>" );
+		WDDXNumberCodec.append( out, value );
+		out.append( "</number>" );
+		return this;
+	}
+
+	/**
+	 * Appends a WDDX `dateTime` element, formatting the date straight in to the buffer, with or without its offset
+	 * according to {@link #timezoneInfo(boolean)}, see {@link WDDXDateTimeCodec}
+	 *
+	 * @param value the date time
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendDateTime( ZonedDateTime value ) {
+		out.append( "<dateTime>" );
+		WDDXDateTimeCodec.append( out, value, timezoneInfo );
+		out.append( "</dateTime>" );
+		return this;
+	}
+
+	/**
+	 * Appends the opening `var` tag of a struct member. The tags of recently used names are cached across
+	 * serializations, so structs of the same shape only escape their keys once.
+	 *
+	 * @param name the member name
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendVar( Object name ) {
+		return append( WDDXTagCache.VAR.get( String.valueOf( name ) ) );
+	}
+
+	/**
+	 * Appends the opening `field` tag of a recordset column. The tags of recently used names are cached across
+	 * serializations.
+	 *
+	 * @param name the column name
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer appendField( Object name ) {
+		return append( WDDXTagCache.FIELD.get( String.valueOf( name ) ) );
+	}
+
+	/**
+	 * The number of chars written so far, including those already drained to the sink
+	 *
+	 * @return the output length
+	 */
+	public long length() {
+		return drained + out.length();
+	}
+
+	/**
+	 * The deepest nesting of the values written, where a top level simple value has a depth of 1
+	 *
+	 * @return the maximum depth
+	 */
+	public int maxDepth() {
+		return maxDepth;
+	}
+
+	/**
+	 * The total number of recordset rows written
+	 *
+	 * @return the row count
+	 */
+	public long rows() {
+		return rows;
+	}
+
+	/**
+	 * Writes any buffered content to the sink and flushes it. This is a no-op for buffer-only serializers.
+	 *
+	 * @return this serializer
+	 */
+	public WDDXSerializer flush() {
+		if ( sink != null ) {
+			drain();
+			try {
+				sink.flush();
+			} catch ( IOException e ) {
+				throw new BoxRuntimeException( "Unable to write the WDDX packet: " + e.getMessage(), e );
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Drains the buffer to the sink once it has grown past the threshold, and flushes the sink so the output is
+	 * delivered rather than held by the sink
+	 */
+	void drainIfFull() {
+		if ( sink != null && out.length() >= DRAIN_THRESHOLD ) {
+			drain();
+			try {
+				sink.flush();
+			} catch ( IOException e ) {
+				throw new BoxRuntimeException( "Unable to write the WDDX packet: " + e.getMessage(), e );
+			}
+		}
+	}
+
+	/**
+	 * Writes the buffer contents to the sink and resets the buffer
+	 */
+	private void drain() {
+		try {
+			int length = out.length();
+			for ( int start = 0; start < length; start += chunk.length ) {
+				int end = Math.min( length, start + chunk.length );
+				out.getChars( start, end, chunk, 0 );
+				sink.write( chunk, 0, end - start );
+			}
+			drained += length;
+			out.setLength( 0 );
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to write the WDDX packet: " + e.getMessage(), e );
+		}
+	}
+
+	/**
+	 * Returns the serialized content held in the buffer. For streaming serializers this is only the content which
+	 * has not yet been drained to the sink.
+	 *
+	 * @return the buffer contents
+	 */
+	@Override
+	public String toString() {
+		return out.toString();
+	}
+
+	/**
+	 * A container which has been opened and whose items are still being written
+	 */
+	private abstract static class Frame {
+
+		/**
+		 * The value the frame was opened for, exactly as it was added to the ancestors
+		 */
+		final Object container;
+
+		Frame( Object container ) {
+			this.container = container;
+		}
+
+		/**
+		 * Writes the opening markup of the container
+		 */
+		abstract void open( WDDXSerializer target );
+
+		/**
+		 * Writes any markup which precedes the next item, and returns the item
+		 *
+		 * @return the next item, or {@link WDDXSerializer#NO_VALUE} once every item has been written
+		 */
+		abstract Object next( WDDXSerializer target );
+
+		/**
+		 * Writes the closing markup of the container
+		 */
+		abstract void close( WDDXSerializer target );
+
+	}
+
+	private static final class StructFrame extends Frame {
+
+		private final Iterator<? extends Map.Entry<?, ?>>	entries;
+		private boolean										started;
+
+		StructFrame( Map<?, ?> map ) {
+			super( map );
+			this.entries = map.entrySet().iterator();
+		}
+
+		@Override
+		void open( WDDXSerializer target ) {
+			target.append( "<struct>" );
+		}
+
+		@Override
+		Object next( WDDXSerializer target ) {
+			if ( started ) {
+				target.append( "</var>" );
+			}
+			if ( !entries.hasNext() ) {
+				return NO_VALUE;
+			}
+			Map.Entry<?, ?> entry = entries.next();
+			started = true;
+			target.appendVar( entry.getKey() );
+			return entry.getValue();
+		}
+
+		@Override
+		void close( WDDXSerializer target ) {
+			target.append( "</struct>" );
+		}
+
+	}
+
+	private static final class ArrayFrame extends Frame {
+
+		private final Collection<?>	items;
+		private final Iterator<?>	iterator;
+
+		/**
+		 * @param container the array or collection being written, which is tracked as an ancestor while it is open
+		 * @param items     the items of the container
+		 */
+		ArrayFrame( Object container, Collection<?> items ) {
+			super( container );
+			this.items		= items;
+			this.iterator	= items.iterator();
+		}
+
+		@Override
+		void open( WDDXSerializer target ) {
+			target.append( "<array length=\"" ).append( String.valueOf( items.size() ) ).append( "\">" );
+		}
+
+		@Override
+		Object next( WDDXSerializer target ) {
+			return iterator.hasNext() ? iterator.next() : NO_VALUE;
+		}
+
+		@Override
+		void close( WDDXSerializer target ) {
+			target.append( "</array>" );
+		}
+
+	}
+
+	private static final class QueryFrame extends Frame {
+
+		private final Query	query;
+		private final Array	columns;
+		private int			column	= -1;
+		private Object[]	cells	= new Object[ 0 ];
+		private int			row;
+
+		QueryFrame( Query query ) {
+			super( query );
+			this.query		= query;
+			this.columns	= query.getColumnArray();
+		}
+
+		@Override
+		void open( WDDXSerializer target ) {
+			target.rows += query.getData().size();
+			target.append( "<recordset rowCount=\"" ).append( String.valueOf( query.getData().size() ) )
+			    .append( "\" fieldNames=\"" ).appendAttribute( query.getColumnList() )
+			    .append( "\" type=\"" ).append( query.getClass().getName() ).append( "\">" );
+		}
+
+		@Override
+		Object next( WDDXSerializer target ) {
+			while ( row == cells.length ) {
+				if ( column >= 0 ) {
+					target.append( "</field>" );
+				}
+				if ( ++column == columns.size() ) {
+					return NO_VALUE;
+				}
+				cells	= query.getColumnData( Key.of( columns.get( column ) ) );
+				row		= 0;
+				target.appendField( columns.get( column ) );
+				if ( target.parallelism().isParallel( cells.length ) ) {
+					// a column large enough to be serialized in parallel is written whole, in chunks on the pool
+					target.writeEach( Arrays.asList( cells ), ( cell, part ) -> part.writeValue( cell ) );
+					row = cells.length;
+				}
+			}
+			return cells[ row++ ];
+		}
+
+		@Override
+		void close( WDDXSerializer target ) {
+			target.append( "</recordset>" );
+		}
+
+	}
+
+}
@@ -0,0 +1,53 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.services.ModuleService;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+
+/**
+ * Access to the module settings declared in `ModuleConfig.bx`. When the module has not been registered with the
+ * runtime (e.g. when the utilities are used directly from Java), every setting resolves to its default.
+ */
+public class WDDXSettings {
+
+	private WDDXSettings() {
+	}
+
+	/**
+	 * Returns a group of module settings
+	 *
+	 * @param group the key of the settings group, e.g. `parseCache`
+	 *
+	 * @return the settings group, or an empty struct if the module or group is not configured
+	 */
+	public static IStruct getGroup( Key group ) {
+		ModuleService moduleService = BoxRuntime.getInstance().getModuleService();
+		if ( moduleService.getModuleNames().contains( WDDXKeys._MODULE_NAME ) ) {
+			IStruct settings = moduleService.getModuleSettings( WDDXKeys._MODULE_NAME );
+			if ( settings != null && settings.get( group ) instanceof IStruct groupSettings ) {
+				return groupSettings;
+			}
+		}
+		return new Struct();
+	}
+
+}
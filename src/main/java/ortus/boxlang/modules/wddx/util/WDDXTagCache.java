@@ -0,0 +1,78 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of the escaped opening tags of struct members and recordset fields, shared by every serialization.
+ * Structs of the same shape repeat the same names many times over, so each name is escaped once and later tags cost a
+ * single lookup. Names are cached by their exact text, as struct keys are case-insensitive but their tags are not.
+ *
+ * Once the cache is full, or for very long names, tags are built on each use instead.
+ */
+final class WDDXTagCache {
+
+	/**
+	 * The tags of struct members, e.g. `<var name="foo">`
+	 */
+	static final WDDXTagCache						VAR				= new WDDXTagCache( "<var name=\"" );
+
+	/**
+	 * The tags of recordset fields, e.g. `<field name="foo">`
+	 */
+	static final WDDXTagCache						FIELD			= new WDDXTagCache( "<field name=\"" );
+
+	private static final int						MAX_ENTRIES		= 4096;
+	private static final int						MAX_NAME_LENGTH	= 256;
+
+	private final String							prefix;
+	private final ConcurrentHashMap<String, String>	tags			= new ConcurrentHashMap<>();
+
+	private WDDXTagCache( String prefix ) {
+		this.prefix = prefix;
+	}
+
+	/**
+	 * The opening tag for a name
+	 *
+	 * @param name the unescaped name
+	 *
+	 * @return the tag, with the name escaped as an attribute value
+	 */
+	String get( String name ) {
+		String tag = tags.get( name );
+		if ( tag == null ) {
+			tag = prefix + WDDXEscaper.escapeAttribute( name ) + "\">";
+			if ( name.length() <= MAX_NAME_LENGTH && tags.size() < MAX_ENTRIES ) {
+				tags.putIfAbsent( name, tag );
+			}
+		}
+		return tag;
+	}
+
+	/**
+	 * The number of cached tags
+	 *
+	 * @return the size of the cache
+	 */
+	int size() {
+		return tags.size();
+	}
+
+}
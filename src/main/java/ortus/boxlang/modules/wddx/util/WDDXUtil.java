@@ -17,70 +17,83 @@
  */
 package ortus.boxlang.modules.wddx.util;
 
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
-import ortus.boxlang.runtime.BoxRuntime;
-import ortus.boxlang.runtime.context.IBoxContext;
-import ortus.boxlang.runtime.dynamic.casters.ArrayCaster;
-import ortus.boxlang.runtime.dynamic.casters.BooleanCaster;
-import ortus.boxlang.runtime.dynamic.casters.DateTimeCaster;
-import ortus.boxlang.runtime.dynamic.casters.GenericCaster;
 import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
 import ortus.boxlang.runtime.dynamic.casters.KeyCaster;
-import ortus.boxlang.runtime.dynamic.casters.QueryCaster;
 import ortus.boxlang.runtime.dynamic.casters.StringCaster;
 import ortus.boxlang.runtime.scopes.Key;
-import ortus.boxlang.runtime.types.Array;
-import ortus.boxlang.runtime.types.DateTime;
 import ortus.boxlang.runtime.types.IStruct;
 import ortus.boxlang.runtime.types.Query;
 import ortus.boxlang.runtime.types.Struct;
 import ortus.boxlang.runtime.types.XML;
 import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
 import ortus.boxlang.runtime.types.util.BLCollector;
-import ortus.boxlang.runtime.types.util.StringUtil;
 
 public class WDDXUtil {
 
-	private static BoxRuntime	runtime	= BoxRuntime.getInstance();
-	private static IBoxContext	context	= runtime.getRuntimeContext();
+	/**
+	 * A reusable JavaScript writer per thread, so that bx2js calls do not allocate a new buffer each time
+	 */
+	private static final ThreadLocal<WDDXJavascriptWriter> javascriptWriters = ThreadLocal.withInitial( WDDXJavascriptWriter::new );
 
 	/**
-	 * Escapes special XML characters for use in XML attribute values.
+	 * Escapes special XML characters for use in XML attribute values. Illegal XML characters are replaced, see
+	 * {@link WDDXEscaper}.
 	 *
 	 * @param value the string to escape
 	 *
 	 * @return the escaped string safe for use in XML attribute values
 	 */
 	public static String escapeXmlAttribute( String value ) {
-		if ( value == null ) {
-			return "";
-		}
-		return value
-		    .replace( "&", "&amp;" )
-		    .replace( "<", "&lt;" )
-		    .replace( ">", "&gt;" )
-		    .replace( "\"", "&quot;" )
-		    .replace( "'", "&apos;" );
+		return WDDXEscaper.escapeAttribute( value );
 	}
 
 	/**
-	 * Escapes special XML characters for use in XML text content.
+	 * Escapes special XML characters for use in XML text content. Illegal XML characters are written as WDDX `char`
+	 * elements, see {@link WDDXEscaper}.
 	 *
 	 * @param value the string to escape
 	 *
 	 * @return the escaped string safe for use in XML text content
 	 */
 	public static String escapeXmlText( String value ) {
-		if ( value == null ) {
-			return "";
+		return WDDXEscaper.escapeText( value );
+	}
+
+	/**
+	 * Opens a reader over the content of a source. Strings are read as the content itself, while readers, input
+	 * streams (as UTF-8), files and paths are streamed.
+	 *
+	 * @param source the source content, or a Reader, InputStream, File or Path
+	 *
+	 * @return a reader over the content
+	 */
+	public static Reader openReader( Object source ) {
+		try {
+			if ( source instanceof Reader reader ) {
+				return reader;
+			} else if ( source instanceof InputStream stream ) {
+				return new InputStreamReader( stream, StandardCharsets.UTF_8 );
+			} else if ( source instanceof File file ) {
+				return Files.newBufferedReader( file.toPath(), StandardCharsets.UTF_8 );
+			} else if ( source instanceof Path path ) {
+				return Files.newBufferedReader( path, StandardCharsets.UTF_8 );
+			}
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to read the source: " + e.getMessage(), e );
 		}
-		return value
-		    .replace( "&", "&amp;" )
-		    .replace( "<", "&lt;" )
-		    .replace( ">", "&gt;" );
+		return new StringReader( StringCaster.cast( source ) );
 	}
 
 	/**
@@ -91,36 +104,172 @@ public class WDDXUtil {
 	 * @return Object the packet representation
 	 */
 	public static Object parse( String wddx ) {
-		XML xmlObject = new XML( wddx );
-		if ( xmlObject.getFirstChildOfName( "wddxPacket" ) == null ) {
-			throw new BoxRuntimeException( "The object provided is not a valid WDDX packet" );
+		return parse( wddx, false );
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object, optionally deferring the decoding of struct members until
+	 * they are first read. Lazy parses bypass the parse cache.
+	 *
+	 * @param wddx
+	 * @param lazy whether struct members should be decoded on first read
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( String wddx, boolean lazy ) {
+		return parse( wddx, lazy, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet in to its native BoxLang object, enforcing the given resource limits. The parse cache is
+	 * only used with the module limits, so a packet is never served from the cache under stricter limits.
+	 *
+	 * @param wddx
+	 * @param lazy   whether struct members should be decoded on first read
+	 * @param limits the limits enforced while the packet is parsed
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( String wddx, boolean lazy, WDDXLimits limits ) {
+		return WDDXMetrics.getInstance().time( WDDXMetrics.PARSE, sample -> {
+			sample.in( wddx.length() );
+			if ( lazy ) {
+				return WDDXLazyParser.parse( wddx, limits );
+			}
+			WDDXParseCache cache = WDDXParseCache.getInstance();
+			if ( cache.isEnabled() && limits == WDDXLimits.getInstance() ) {
+				return cache.parse( wddx );
+			}
+			return WDDXParser.parse( wddx, sample, limits );
+		} );
+	}
+
+	/**
+	 * Parses a wddx packet file in to its native BoxLang object. The file is memory-mapped and decoded straight from
+	 * the mapping, so the packet is never held in the heap as a string.
+	 *
+	 * @param path the WDDX file
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( Path path ) {
+		return parse( path, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet file in to its native BoxLang object, enforcing the given resource limits. The packet
+	 * length limit is checked against the size of the file in bytes.
+	 *
+	 * @param path   the WDDX file
+	 * @param limits the limits enforced while the packet is parsed
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( Path path, WDDXLimits limits ) {
+		return WDDXMetrics.getInstance().time( WDDXMetrics.PARSE, sample -> {
+			try ( MappedFileInputStream stream = new MappedFileInputStream( path ) ) {
+				limits.checkPacketLength( stream.size() );
+				sample.in( stream.size() );
+				return new WDDXParser( stream, limits ).parse( sample );
+			} catch ( IOException e ) {
+				throw new BoxRuntimeException( "Unable to read the WDDX packet: " + e.getMessage(), e );
+			}
+		} );
+	}
+
+	/**
+	 * Parses a wddx packet from a stream in to its native BoxLang object. The stream is read to the end of the packet
+	 * but is not closed.
+	 *
+	 * @param stream the stream supplying the WDDX xml, in the encoding of its XML declaration or UTF-8
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( InputStream stream ) {
+		return parse( stream, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet from a stream in to its native BoxLang object, enforcing the given resource limits. The
+	 * packet length limit does not apply, as the length of a stream is not known up front.
+	 *
+	 * @param stream the stream supplying the WDDX xml, in the encoding of its XML declaration or UTF-8
+	 * @param limits the limits enforced while the packet is parsed
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( InputStream stream, WDDXLimits limits ) {
+		return WDDXMetrics.getInstance().time( WDDXMetrics.PARSE, sample -> new WDDXParser( stream, limits ).parse( sample ) );
+	}
+
+	/**
+	 * Parses a wddx packet from a reader in to its native BoxLang object. The reader is read to the end of the packet
+	 * but is not closed.
+	 *
+	 * @param reader the reader supplying the WDDX xml
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( Reader reader ) {
+		return parse( reader, WDDXLimits.getInstance() );
+	}
+
+	/**
+	 * Parses a wddx packet from a reader in to its native BoxLang object, enforcing the given resource limits. The
+	 * packet length limit does not apply, as the length of a reader is not known up front.
+	 *
+	 * @param reader the reader supplying the WDDX xml
+	 * @param limits the limits enforced while the packet is parsed
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parse( Reader reader, WDDXLimits limits ) {
+		return WDDXMetrics.getInstance().time( WDDXMetrics.PARSE, sample -> new WDDXParser( reader, limits ).parse( sample ) );
+	}
+
+	/**
+	 * Parses a wddx packet from any supported source: a string packet, or a java Path, File, InputStream or Reader
+	 *
+	 * @param source the packet or its source
+	 * @param lazy   whether struct members of a string packet should be decoded on first read
+	 * @param limits the limits enforced while the packet is parsed
+	 *
+	 * @return Object the packet representation
+	 */
+	public static Object parseSource( Object source, boolean lazy, WDDXLimits limits ) {
+		if ( source instanceof Path path ) {
+			return parse( path, limits );
+		} else if ( source instanceof File file ) {
+			return parse( file.toPath(), limits );
+		} else if ( source instanceof InputStream stream ) {
+			return parse( stream, limits );
+		} else if ( source instanceof Reader reader ) {
+			return parse( reader, limits );
 		}
-		XML data = xmlObject.getFirstChildOfName( "wddxPacket" ).getFirstChildOfName( "data" );
-		return deserializeObject( data.getXMLChildrenAsList().get( 0 ) );
+		return parse( StringCaster.cast( source ), lazy, limits );
 	}
 
+	/**
+	 * Deserializes a WDDX value node of an already-parsed XML document. Packets supplied as strings should be
+	 * passed to {@link #parse(String)}, which streams the packet without building a DOM.
+	 *
+	 * @param obj the XML node of the value to deserialize
+	 *
+	 * @return Object the native representation of the node
+	 */
 	public static Object deserializeObject( XML obj ) {
 		switch ( obj.getNode().getNodeName() ) {
 			case "recordset" : {
-				Array	columnNames	= obj.getXMLChildrenAsList().stream().map( child -> child.getXMLAttributes().get( Key._NAME ) )
-				    .collect( BLCollector.toArray() );
-				Array	columnTypes	= obj.getXMLChildrenAsList().stream()
-				    .map( child -> child.getXMLAttributes().get( Key.type ) != null ? child.getXMLAttributes().get( Key.type ) : "string" )
-				    .collect( BLCollector.toArray() );
-				Query	result		= Query.fromArray( columnNames, columnTypes, null );
-				Array	rowData		= new Array();
-				Integer	rowCount	= IntegerCaster.cast( obj.getXMLAttributes().get( Key.of( "rowCount" ) ) );
-				IntStream.range( 0, rowCount ).forEach( idx -> {
-					IStruct row = new Struct();
-					obj.getXMLChildrenAsList().forEach( ( field ) -> {
-						String	fieldName	= StringCaster.cast( field.getXMLAttributes().get( Key._NAME ) );
-						Object	fieldValue	= deserializeObject( field.getXMLChildrenAsList().get( idx ) );
-						row.put( Key.of( fieldName ), fieldValue );
-					} );
-					rowData.add( row );
-				} );
-				result.addData( rowData );
-				return result;
+				Object				rowCount	= obj.getXMLAttributes().get( Key.of( "rowCount" ) );
+				RecordsetDecoder	decoder		= new RecordsetDecoder( rowCount == null ? null : IntegerCaster.cast( rowCount ) );
+				for ( XML field : obj.getXMLChildrenAsList() ) {
+					IStruct fieldAttributes = field.getXMLAttributes();
+					decoder.addColumn( StringCaster.cast( fieldAttributes.get( Key._NAME ) ), StringCaster.cast( fieldAttributes.get( Key.type ) ) );
+					for ( XML cell : field.getXMLChildrenAsList() ) {
+						decoder.append( deserializeObject( cell ) );
+					}
+				}
+				return decoder.toQuery();
 			}
 			case "struct" : {
 				IStruct structResult = new Struct();
@@ -132,11 +281,9 @@ public class WDDXUtil {
 			case "array" : {
 				return obj.getXMLChildrenAsList().stream().map( WDDXUtil::deserializeObject ).collect( BLCollector.toArray() );
 			}
-			case "boolean" : {
-				return BooleanCaster.cast( obj.getXMLAttributes().get( Key.value ) );
-			}
 			default : {
-				return GenericCaster.cast( context, obj.getXMLText(), obj.getNode().getNodeName() );
+				IStruct attributes = obj.getXMLAttributes();
+				return WDDXDecoders.decode( obj.getNode().getNodeName(), obj.getXMLText(), name -> StringCaster.cast( attributes.get( Key.of( name ) ) ) );
 			}
 		}
 	}
@@ -149,47 +296,98 @@ public class WDDXUtil {
 	 * @return String the WDDX xml
 	 */
 	public static String serialize( Object obj ) {
-		String wddx = "<wddxPacket version=\"1.0\"><header/><data>";
-		wddx	+= serializeObject( obj );
-		wddx	+= "</data></wddxPacket>";
-		return wddx;
+		return serialize( obj, true );
 	}
 
 	/**
-	 * Serialize an object to WDDX
+	 * Serializes an object to a WDDX packet, optionally leaving out the offsets of dates
 	 *
-	 * @param obj The object to serialize
+	 * @param obj          the object to serialize
+	 * @param timezoneInfo whether dates are written with their offset from UTC
 	 *
-	 * @return The WDDX representation of the object
+	 * @return String the WDDX xml
 	 */
-	public static String serializeObject( Object obj ) {
-		if ( obj instanceof Query ) {
-			return serializeQuery( QueryCaster.cast( obj ) );
-		}
-		// Booleans have a different pattern, in that they do not have an outer wrapper
-		if ( obj instanceof Boolean ) {
-			return "<boolean value=\"" + obj.toString() + "\"/>";
-		}
+	public static String serialize( Object obj, boolean timezoneInfo ) {
+		return WDDXMetrics.getInstance().time( WDDXMetrics.SERIALIZE, sample -> {
+			WDDXSerializer serializer = new WDDXSerializer().timezoneInfo( timezoneInfo ).writePacket( obj );
+			sample.out( serializer.length() ).shape( serializer.maxDepth(), serializer.rows() );
+			return serializer.toString();
+		} );
+	}
 
-		Key		classKey		= Key.of( StringUtil.lcFirst( obj.getClass().getSimpleName() ) );
-		String	serialization	= "<" + classKey.getName() + ( obj instanceof Array ? " length=\"" + ArrayCaster.cast( obj ).size() + "\"" : "" ) + ">";
-		if ( obj instanceof IStruct ) {
-			IStruct struct = ( IStruct ) obj;
-			serialization += struct.entrySet().stream().map( ( entry ) -> {
-				return "<var name=\"" + escapeXmlAttribute( entry.getKey().toString() ) + "\">" + serializeObject( entry.getValue() ) + "</var>";
-			} ).collect( Collectors.joining() );
-		} else if ( obj instanceof Array ) {
-			serialization += ArrayCaster.cast( obj ).stream().map( WDDXUtil::serializeObject ).collect( Collectors.joining() );
-		} else if ( obj instanceof DateTime ) {
-			serialization += DateTimeCaster.cast( obj ).toISOString();
-		} else {
-			serialization += escapeXmlText( obj.toString() );
-		}
+	/**
+	 * Serializes an object to a WDDX packet, streaming the packet to the given writer as it is produced. The writer
+	 * is flushed but not closed.
+	 *
+	 * @param obj    the object to serialize
+	 * @param writer the writer to receive the packet
+	 */
+	public static void serialize( Object obj, Writer writer ) {
+		serialize( obj, writer, true );
+	}
+
+	/**
+	 * Serializes an object to a WDDX packet, streaming the packet to the given writer as it is produced, and
+	 * optionally leaving out the offsets of dates. The writer is flushed but not closed.
+	 *
+	 * @param obj          the object to serialize
+	 * @param writer       the writer to receive the packet
+	 * @param timezoneInfo whether dates are written with their offset from UTC
+	 */
+	public static void serialize( Object obj, Writer writer, boolean timezoneInfo ) {
+		WDDXMetrics.getInstance().time( WDDXMetrics.SERIALIZE, sample -> {
+			WDDXSerializer serializer = new WDDXSerializer( writer ).timezoneInfo( timezoneInfo ).writePacket( obj ).flush();
+			sample.out( serializer.length() ).shape( serializer.maxDepth(), serializer.rows() );
+			return null;
+		} );
+	}
+
+	/**
+	 * Serializes an object to a WDDX packet, streaming the UTF-8 encoded packet to the given output stream as it is
+	 * produced. The stream is flushed but not closed.
+	 *
+	 * @param obj    the object to serialize
+	 * @param stream the output stream to receive the packet
+	 */
+	public static void serialize( Object obj, OutputStream stream ) {
+		serialize( obj, new UTF8Writer( stream ) );
+	}
 
-		serialization += "</" + classKey.getName() + ">";
+	/**
+	 * Serializes an object to a WDDX packet file, replacing any existing file at that path
+	 *
+	 * @param obj  the object to serialize
+	 * @param path the file to write
+	 */
+	public static void serialize( Object obj, Path path ) {
+		serialize( obj, path, true );
+	}
 
-		return serialization;
+	/**
+	 * Serializes an object to a WDDX packet file, replacing any existing file at that path, and optionally leaving out
+	 * the offsets of dates
+	 *
+	 * @param obj          the object to serialize
+	 * @param path         the file to write
+	 * @param timezoneInfo whether dates are written with their offset from UTC
+	 */
+	public static void serialize( Object obj, Path path, boolean timezoneInfo ) {
+		try ( Writer writer = new UTF8Writer( Files.newOutputStream( path ) ) ) {
+			serialize( obj, writer, timezoneInfo );
+		} catch ( IOException e ) {
+			throw new BoxRuntimeException( "Unable to write the WDDX packet to [" + path + "]: " + e.getMessage(), e );
+		}
+	}
 
+	/**
+	 * Serialize an object to WDDX
+	 *
+	 * @param obj The object to serialize
+	 *
+	 * @return The WDDX representation of the object
+	 */
+	public static String serializeObject( Object obj ) {
+		return new WDDXSerializer().writeValue( obj ).toString();
 	}
 
 	/**
@@ -200,31 +398,7 @@ public class WDDXUtil {
 	 * @return the WDDX recordset representation of the query
 	 */
 	public static String serializeQuery( Query obj ) {
-		Key		classKey		= Key.of( "recordset" );
-		String	serialization	= "<"
-		    + classKey.getName()
-		    + " rowCount=\"" + obj.getData().size() + "\""
-		    + " fieldNames=\"" + obj.getColumnList() + "\""
-		    + " type=\"" + obj.getClass().getName() + "\""
-		    + ">";
-
-		serialization	+= obj.getColumnArray().stream().map( ( column ) -> {
-
-							String field = "<field name=\"" + escapeXmlAttribute( column.toString() ) + "\">";
-
-							field	+= Stream.of( obj.getColumnData( Key.of( column ) ) )
-							    .map( WDDXUtil::serializeObject )
-							    .collect( Collectors.joining() );
-
-							field	+= "</field>";
-							return field;
-
-						} )
-		    .collect( Collectors.joining() );
-
-		serialization	+= "</" + classKey.getName() + ">";
-
-		return serialization;
+		return new WDDXSerializer().writeQuery( obj ).toString();
 	}
 
 	/**
@@ -237,21 +411,17 @@ public class WDDXUtil {
 	 * @return
 	 */
 	public static String serializeToJavascript( Object obj, String variableName ) {
-		Key		serializeKey	= Key.of( "JSONSerialize" );
-		IStruct	serializeArgs	= Struct.of(
-		    Key.data, obj,
-		    Key.queryFormat, "row",
-		    Key.useSecureJSONPrefix, false,
-		    Key.useCustomSerializer, false
-		);
-
-		return variableName + " = "
-		    + StringCaster.cast( runtime.getFunctionService().getGlobalFunction( serializeKey ).invoke( context, serializeArgs, false, serializeKey ) ) + ";";
+		return WDDXMetrics.getInstance().time( WDDXMetrics.SERIALIZE_JAVASCRIPT, sample -> {
+			String javascript = javascriptWriters.get().reset().append( variableName ).append( " = " ).writeValue( obj ).append( ';' ).toString();
+			sample.out( javascript.length() );
+			return javascript;
+		} );
 	}
 
 	/**
 	 *
-	 * Translates a WDDX packet to a Javascript variable string
+	 * Translates a WDDX packet to a Javascript variable string, transcoding the packet directly rather than parsing
+	 * it in to BoxLang objects
 	 *
 	 * @param wddx
 	 * @param variableName
@@ -259,8 +429,26 @@ public class WDDXUtil {
 	 * @return
 	 */
 	public static String translateToJavascript( String wddx, String variableName ) {
-		Object obj = parse( wddx );
-		return serializeToJavascript( obj, variableName );
+		return WDDXMetrics.getInstance().time( WDDXMetrics.TRANSLATE_JAVASCRIPT, sample -> {
+			String javascript = WDDXJavascriptTranscoder.translate( wddx, variableName );
+			sample.in( wddx.length() ).out( javascript.length() );
+			return javascript;
+		} );
+	}
+
+	/**
+	 * Translates a WDDX packet to a Javascript variable assignment, streaming the JavaScript to a writer as the
+	 * packet is read
+	 *
+	 * @param wddx         the reader supplying the WDDX xml
+	 * @param variableName the name of the variable to assign
+	 * @param sink         the writer receiving the JavaScript, which is flushed but not closed
+	 */
+	public static void translateToJavascript( Reader wddx, String variableName, Writer sink ) {
+		WDDXMetrics.getInstance().time( WDDXMetrics.TRANSLATE_JAVASCRIPT, sample -> {
+			new WDDXJavascriptTranscoder( wddx, new WDDXJavascriptWriter( sink ) ).transcode( variableName );
+			return null;
+		} );
 	}
 
 }
@@ -0,0 +1,368 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A single pass, streaming check of whether a string is a WDDX packet, which never builds an XML DOM.
+ *
+ * By default a string is a packet when it is well-formed XML with a `wddxPacket` root, and any other root is rejected
+ * as soon as its start tag has been read. In strict mode the packet structure is also checked: the header, a data
+ * element holding a single value, the known value elements and their required attributes, and the declared array
+ * lengths and recordset row counts. Any other simple value element is accepted when it decodes the way the parser would
+ * decode it, e.g. a legacy `integer`, and values nested deeper than {@link WDDXLimits#checkDepth(int)} allows are
+ * rejected rather than exhausting the stack.
+ */
+public final class WDDXValidator {
+
+	private static final int	CHILD	= 1;
+	private static final int	END		= 0;
+	private static final int	INVALID	= -1;
+
+	private WDDXValidator() {
+	}
+
+	/**
+	 * Tests whether a string is a WDDX packet
+	 *
+	 * @param value  the string to test
+	 * @param strict whether the packet structure should be checked, as well as the root element
+	 *
+	 * @return true if the string is a WDDX packet
+	 */
+	public static boolean isWDDX( String value, boolean strict ) {
+		if ( !startsWithMarkup( value ) ) {
+			return false;
+		}
+		XMLStreamReader reader = null;
+		try {
+			reader = WDDXParser.factory.createXMLStreamReader( new StringReader( value ) );
+			if ( nextChild( reader ) != CHILD || !reader.getLocalName().equals( "wddxPacket" ) ) {
+				return false;
+			}
+			if ( strict && !validatePacket( reader ) ) {
+				return false;
+			}
+			while ( reader.hasNext() ) {
+				reader.next();
+			}
+			return true;
+		} catch ( XMLStreamException | RuntimeException e ) {
+			return false;
+		} finally {
+			if ( reader != null ) {
+				try {
+					reader.close();
+				} catch ( XMLStreamException e ) {
+					// nothing left to release
+				}
+			}
+		}
+	}
+
+	/**
+	 * Whether the first non-whitespace character of the value opens markup, so that plain strings are rejected without
+	 * creating a parser
+	 */
+	private static boolean startsWithMarkup( String value ) {
+		for ( int i = 0; i < value.length(); i++ ) {
+			char c = value.charAt( i );
+			if ( c == '<' ) {
+				return true;
+			} else if ( !Character.isWhitespace( c ) && c != '\uFEFF' ) {
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Validates the content of the `wddxPacket` element: an optional header followed by a single data element
+	 */
+	private static boolean validatePacket( XMLStreamReader reader ) throws XMLStreamException {
+		boolean	seenHeader	= false;
+		boolean	seenData	= false;
+		int		next;
+		while ( ( next = nextChild( reader ) ) == CHILD ) {
+			String name = reader.getLocalName();
+			if ( name.equals( "header" ) && !seenHeader && !seenData ) {
+				seenHeader = true;
+				skipElement( reader );
+			} else if ( name.equals( "data" ) && !seenData ) {
+				seenData = true;
+				if ( nextChild( reader ) != CHILD || !validateValue( reader, 1 ) || nextChild( reader ) != END ) {
+					return false;
+				}
+			} else {
+				return false;
+			}
+		}
+		return next == END && seenData;
+	}
+
+	/**
+	 * Validates the value element the reader is positioned on, leaving the reader on its end tag
+	 *
+	 * @param depth the nesting depth of the value, where a value directly within the data element has a depth of 1
+	 */
+	private static boolean validateValue( XMLStreamReader reader, int depth ) throws XMLStreamException {
+		WDDXLimits.getInstance().checkDepth( depth );
+		String name = reader.getLocalName();
+		switch ( name ) {
+			case "null" : {
+				return nextChild( reader ) == END;
+			}
+			case "boolean" : {
+				String value = reader.getAttributeValue( null, "value" );
+				return ( "true".equals( value ) || "false".equals( value ) ) && nextChild( reader ) == END;
+			}
+			case "string" : {
+				return validateString( reader );
+			}
+			case "number" : {
+				String text = readText( reader );
+				return text != null && isNumber( text.trim() );
+			}
+			case "dateTime", "binary" : {
+				return readText( reader ) != null;
+			}
+			case "array" : {
+				return validateArray( reader, depth );
+			}
+			case "struct" : {
+				return validateStruct( reader, depth );
+			}
+			case "recordset" : {
+				return validateRecordset( reader, depth );
+			}
+			case "wddxPacket", "header", "data", "var", "field" : {
+				return false;
+			}
+			default : {
+				UnaryOperator<String>	attributes	= readAttributes( reader );
+				String					text		= readText( reader );
+				return text != null && decodes( name, text, attributes );
+			}
+		}
+	}
+
+	/**
+	 * Validates string content, which may contain `char` elements
+	 */
+	private static boolean validateString( XMLStreamReader reader ) throws XMLStreamException {
+		while ( reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.END_ELEMENT ) {
+				return true;
+			} else if ( event == XMLStreamConstants.START_ELEMENT ) {
+				String code = reader.getAttributeValue( null, "code" );
+				if ( !reader.getLocalName().equals( "char" ) || code == null || !isHex( code ) || nextChild( reader ) != END ) {
+					return false;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Validates the elements of an array against its declared length
+	 */
+	private static boolean validateArray( XMLStreamReader reader, int depth ) throws XMLStreamException {
+		Integer	length	= readCount( reader, "length" );
+		int		count	= 0;
+		int		next;
+		while ( ( next = nextChild( reader ) ) == CHILD ) {
+			if ( !validateValue( reader, depth + 1 ) ) {
+				return false;
+			}
+			count++;
+		}
+		return next == END && ( length == null || length == count );
+	}
+
+	/**
+	 * Validates the named `var` members of a struct, each of which wraps a single value
+	 */
+	private static boolean validateStruct( XMLStreamReader reader, int depth ) throws XMLStreamException {
+		int next;
+		while ( ( next = nextChild( reader ) ) == CHILD ) {
+			if ( !reader.getLocalName().equals( "var" ) || reader.getAttributeValue( null, "name" ) == null
+			    || nextChild( reader ) != CHILD || !validateValue( reader, depth + 1 ) || nextChild( reader ) != END ) {
+				return false;
+			}
+		}
+		return next == END;
+	}
+
+	/**
+	 * Validates the named `field` columns of a recordset against its declared row count
+	 */
+	private static boolean validateRecordset( XMLStreamReader reader, int depth ) throws XMLStreamException {
+		Integer	rowCount	= readCount( reader, "rowCount" );
+		int		next;
+		while ( ( next = nextChild( reader ) ) == CHILD ) {
+			if ( !reader.getLocalName().equals( "field" ) || reader.getAttributeValue( null, "name" ) == null ) {
+				return false;
+			}
+			int	rows	= 0;
+			int	cell;
+			while ( ( cell = nextChild( reader ) ) == CHILD ) {
+				if ( !validateValue( reader, depth + 1 ) ) {
+					return false;
+				}
+				rows++;
+			}
+			if ( cell != END || ( rowCount != null && rowCount != rows ) ) {
+				return false;
+			}
+		}
+		return next == END;
+	}
+
+	/**
+	 * Captures the attributes of the current element, so they remain available once its content has been read
+	 */
+	private static UnaryOperator<String> readAttributes( XMLStreamReader reader ) {
+		if ( reader.getAttributeCount() == 0 ) {
+			return WDDXDecoders.NO_ATTRIBUTES;
+		}
+		Map<String, String> attributes = new HashMap<>();
+		for ( int i = 0; i < reader.getAttributeCount(); i++ ) {
+			attributes.put( reader.getAttributeLocalName( i ), reader.getAttributeValue( i ) );
+		}
+		return attributes::get;
+	}
+
+	/**
+	 * Whether a simple value element which is not part of the WDDX DTD decodes the way the parser would decode it
+	 */
+	private static boolean decodes( String element, String text, UnaryOperator<String> attributes ) {
+		try {
+			WDDXDecoders.decode( element, text, attributes );
+			return true;
+		} catch ( RuntimeException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Reads a count attribute of the current element
+	 *
+	 * @return the count, null if the attribute is absent, or -1 if it is not a non-negative integer
+	 */
+	private static Integer readCount( XMLStreamReader reader, String attribute ) {
+		String value = reader.getAttributeValue( null, attribute );
+		if ( value == null ) {
+			return null;
+		}
+		try {
+			return Math.max( -1, Integer.parseInt( value.trim() ) );
+		} catch ( NumberFormatException e ) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Reads the text content of the current element
+	 *
+	 * @return the text, or null if the element contains child elements
+	 */
+	private static String readText( XMLStreamReader reader ) throws XMLStreamException {
+		StringBuilder text = new StringBuilder();
+		while ( reader.hasNext() ) {
+			switch ( reader.next() ) {
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE :
+					text.append( reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength() );
+					break;
+				case XMLStreamConstants.START_ELEMENT :
+					return null;
+				case XMLStreamConstants.END_ELEMENT :
+					return text.toString();
+				default :
+					break;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Advances to the next child element of the current element, allowing only whitespace between elements
+	 *
+	 * @return CHILD if positioned on a child start tag, END if the end tag of the current element was reached, or
+	 *         INVALID if non-whitespace text was found
+	 */
+	private static int nextChild( XMLStreamReader reader ) throws XMLStreamException {
+		while ( reader.hasNext() ) {
+			switch ( reader.next() ) {
+				case XMLStreamConstants.START_ELEMENT :
+					return CHILD;
+				case XMLStreamConstants.END_ELEMENT :
+					return END;
+				case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA :
+					if ( !reader.isWhiteSpace() ) {
+						return INVALID;
+					}
+					break;
+				default :
+					break;
+			}
+		}
+		return INVALID;
+	}
+
+	/**
+	 * Skips past the content of the current element, leaving the reader on its end tag
+	 */
+	private static void skipElement( XMLStreamReader reader ) throws XMLStreamException {
+		int depth = 1;
+		while ( depth > 0 && reader.hasNext() ) {
+			int event = reader.next();
+			if ( event == XMLStreamConstants.START_ELEMENT ) {
+				depth++;
+			} else if ( event == XMLStreamConstants.END_ELEMENT ) {
+				depth--;
+			}
+		}
+	}
+
+	/**
+	 * Whether the text is a plain decimal number, as written by the serializer, rather than Java literals such as
+	 * `NaN`, `Infinity`, `1f` or hexadecimal floats
+	 */
+	private static boolean isNumber( String text ) {
+		return WDDXNumberCodec.classify( text ) != WDDXNumberCodec.INVALID;
+	}
+
+	private static boolean isHex( String code ) {
+		try {
+			Integer.parseInt( code, 16 );
+			return true;
+		} catch ( NumberFormatException e ) {
+			return false;
+		}
+	}
+
+}
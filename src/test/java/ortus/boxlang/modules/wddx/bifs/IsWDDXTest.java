@@ -54,4 +54,21 @@ public class IsWDDXTest {
 		assertFalse( variables.getAsBoolean( Key.of( "resultWddxXMLIsh" ) ) );
 	}
 
+	@DisplayName( "It tests strict validation of WDDX strings" )
+	@Test
+	public void testIsWDDXStrict() {
+		//@formatter:off
+		instance.executeSource( """
+		resultValid = isWddx( "<wddxPacket version=""1.0""><header/><data><array length=""1""><number>1</number></array></data></wddxPacket>", true );
+		resultEmpty = isWddx( "<wddxPacket version=""1.0""><header/><data></data></wddxPacket>", true );
+		resultLength = isWddx( "<wddxPacket version=""1.0""><header/><data><array length=""2""><number>1</number></array></data></wddxPacket>", true );
+		resultMalformed = isWddx( "<wddxPacket version=""1.0""><header/><data></wddxPacket>" );
+		""", context );
+		//@formatter:on
+		assertTrue( variables.getAsBoolean( Key.of( "resultValid" ) ) );
+		assertFalse( variables.getAsBoolean( Key.of( "resultEmpty" ) ) );
+		assertFalse( variables.getAsBoolean( Key.of( "resultLength" ) ) );
+		assertFalse( variables.getAsBoolean( Key.of( "resultMalformed" ) ) );
+	}
+
 }
@@ -0,0 +1,63 @@
+package ortus.boxlang.modules.wddx.bifs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.scopes.IScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.scopes.VariablesScope;
+import ortus.boxlang.runtime.types.Query;
+
+public class JsonToWDDXTest {
+
+	static BoxRuntime	instance;
+	IBoxContext			context;
+	IScope				variables;
+	static Key			result	= new Key( "result" );
+
+	@BeforeAll
+	public static void setUp() {
+		instance = BoxRuntime.getInstance( true );
+	}
+
+	@BeforeEach
+	public void setupEach() {
+		context		= new ScriptingRequestBoxContext( instance.getRuntimeContext() );
+		variables	= context.getScopeNearby( VariablesScope.name );
+	}
+
+	@DisplayName( "It transcodes JSON to a WDDX packet" )
+	@Test
+	public void testJsonToWDDX() {
+		//@formatter:off
+		instance.executeSource( """
+		result = jsonToWDDX( '{"name":"foo","ids":[1,2]}' );
+		wddx action="wddx2bx" input=result output="parsed";
+		""", context );
+		//@formatter:on
+		assertEquals( "foo", variables.getAsStruct( Key.of( "parsed" ) ).getAsString( Key.of( "name" ) ) );
+		assertEquals( 2, variables.getAsStruct( Key.of( "parsed" ) ).getAsArray( Key.of( "ids" ) ).size() );
+	}
+
+	@DisplayName( "It transcodes query shaped JSON to a recordset" )
+	@Test
+	public void testJsonToWDDXQuery() {
+		//@formatter:off
+		instance.executeSource( """
+		result = jsonToWDDX( '{"columns":["id","test"],"data":[[1,"a"],[2,"b"]]}' );
+		wddx action="wddx2bx" input=result output="parsed";
+		""", context );
+		//@formatter:on
+		assertInstanceOf( Query.class, variables.get( Key.of( "parsed" ) ) );
+		assertEquals( 2, ( ( Query ) variables.get( Key.of( "parsed" ) ) ).size() );
+	}
+
+}
@@ -0,0 +1,54 @@
+package ortus.boxlang.modules.wddx.bifs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.scopes.IScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.scopes.VariablesScope;
+
+public class WddxEachRowTest {
+
+	static BoxRuntime	instance;
+	IBoxContext			context;
+	IScope				variables;
+	static Key			result	= new Key( "result" );
+
+	@BeforeAll
+	public static void setUp() {
+		instance = BoxRuntime.getInstance( true );
+	}
+
+	@BeforeEach
+	public void setupEach() {
+		context		= new ScriptingRequestBoxContext( instance.getRuntimeContext() );
+		variables	= context.getScopeNearby( VariablesScope.name );
+	}
+
+	@DisplayName( "It passes each row of a recordset to the callback" )
+	@Test
+	public void testEachRow() {
+		//@formatter:off
+		instance.executeSource( """
+		qry = queryNew( "id,name", "integer,varchar", [ { id : 1, name : "a" }, { id : 2, name : "b" }, { id : 3, name : "c" } ] );
+		wddx action="bx2wddx" input=qry output="packet";
+		names = "";
+		result = wddxEachRow( packet, ( row, rowNumber ) => {
+			variables.names &= row.name & rowNumber;
+		} );
+		stopped = wddxEachRow( packet, ( row ) => row.id < 2 );
+		""", context );
+		//@formatter:on
+		assertEquals( 3, variables.get( result ) );
+		assertEquals( "a1b2c3", variables.getAsString( Key.of( "names" ) ) );
+		assertEquals( 2, variables.get( Key.of( "stopped" ) ) );
+	}
+
+}
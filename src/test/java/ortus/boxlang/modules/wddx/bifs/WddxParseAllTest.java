@@ -0,0 +1,54 @@
+package ortus.boxlang.modules.wddx.bifs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.scopes.IScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.scopes.VariablesScope;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+
+public class WddxParseAllTest {
+
+	static BoxRuntime	instance;
+	IBoxContext			context;
+	IScope				variables;
+	static Key			result	= new Key( "result" );
+
+	@BeforeAll
+	public static void setUp() {
+		instance = BoxRuntime.getInstance( true );
+	}
+
+	@BeforeEach
+	public void setupEach() {
+		context		= new ScriptingRequestBoxContext( instance.getRuntimeContext() );
+		variables	= context.getScopeNearby( VariablesScope.name );
+	}
+
+	@DisplayName( "It parses a batch of packets" )
+	@Test
+	public void testParseAll() {
+		//@formatter:off
+		instance.executeSource( """
+		wddx action="bx2wddx" input={ name : "foo" } output="packet";
+		result = wddxParseAll( [ packet, "not a packet", packet ], false, 2 );
+		""", context );
+		//@formatter:on
+		IStruct	batch	= variables.getAsStruct( result );
+		Array	results	= batch.getAsArray( Key.of( "results" ) );
+		assertEquals( "foo", ( ( IStruct ) results.get( 0 ) ).getAsString( Key.of( "name" ) ) );
+		assertNull( results.get( 1 ) );
+		assertEquals( 2, ( ( IStruct ) batch.getAsArray( Key.of( "errors" ) ).get( 0 ) ).get( Key.of( "index" ) ) );
+	}
+
+}
@@ -0,0 +1,53 @@
+package ortus.boxlang.modules.wddx.bifs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.scopes.IScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.scopes.VariablesScope;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+
+public class WddxSerializeAllTest {
+
+	static BoxRuntime	instance;
+	IBoxContext			context;
+	IScope				variables;
+	static Key			result	= new Key( "result" );
+
+	@BeforeAll
+	public static void setUp() {
+		instance = BoxRuntime.getInstance( true );
+	}
+
+	@BeforeEach
+	public void setupEach() {
+		context		= new ScriptingRequestBoxContext( instance.getRuntimeContext() );
+		variables	= context.getScopeNearby( VariablesScope.name );
+	}
+
+	@DisplayName( "It serializes a batch of values" )
+	@Test
+	public void testSerializeAll() {
+		//@formatter:off
+		instance.executeSource( """
+		result = wddxSerializeAll( [ "foo", { bar : 1 } ] );
+		""", context );
+		//@formatter:on
+		IStruct	batch	= variables.getAsStruct( result );
+		Array	results	= batch.getAsArray( Key.of( "results" ) );
+		assertEquals( 2, results.size() );
+		assertTrue( results.get( 0 ).toString().contains( "<string>foo</string>" ) );
+		assertEquals( 0, batch.getAsArray( Key.of( "errors" ) ).size() );
+	}
+
+}
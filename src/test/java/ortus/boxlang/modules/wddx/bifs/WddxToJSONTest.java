@@ -0,0 +1,63 @@
+package ortus.boxlang.modules.wddx.bifs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.BoxRuntime;
+import ortus.boxlang.runtime.context.IBoxContext;
+import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.scopes.IScope;
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.scopes.VariablesScope;
+
+public class WddxToJSONTest {
+
+	static BoxRuntime	instance;
+	IBoxContext			context;
+	IScope				variables;
+	static Key			result	= new Key( "result" );
+
+	@BeforeAll
+	public static void setUp() {
+		instance = BoxRuntime.getInstance( true );
+	}
+
+	@BeforeEach
+	public void setupEach() {
+		context		= new ScriptingRequestBoxContext( instance.getRuntimeContext() );
+		variables	= context.getScopeNearby( VariablesScope.name );
+	}
+
+	@DisplayName( "It transcodes a WDDX packet to JSON" )
+	@Test
+	public void testWddxToJSON() {
+		//@formatter:off
+		instance.executeSource( """
+		packet = "<wddxPacket version=""1.0""><header/><data><struct><var name=""name""><string>foo</string></var><var name=""ids""><array length=""2""><number>1</number><number>2</number></array></var></struct></data></wddxPacket>";
+		result = wddxToJSON( packet );
+		parsed = jsonDeserialize( result );
+		""", context );
+		//@formatter:on
+		assertEquals( "foo", variables.getAsStruct( Key.of( "parsed" ) ).getAsString( Key.of( "name" ) ) );
+		assertEquals( 2, variables.getAsStruct( Key.of( "parsed" ) ).getAsArray( Key.of( "ids" ) ).size() );
+	}
+
+	@DisplayName( "It transcodes a recordset to column format JSON" )
+	@Test
+	public void testWddxToJSONColumns() {
+		//@formatter:off
+		instance.executeSource( """
+		wddx action="bx2wddx" input=queryNew( "id,test", "integer,varchar", [ { id : 1, test : "a" }, { id : 2, test : "b" } ] ) output="packet";
+		result = wddxToJSON( packet, "column" );
+		""", context );
+		//@formatter:on
+		assertTrue( variables.getAsString( result ).contains( "\"rowCount\":2" ) );
+		assertTrue( variables.getAsString( result ).contains( "\"test\":[\"a\",\"b\"]" ) );
+	}
+
+}
@@ -3,6 +3,12 @@ package ortus.boxlang.modules.wddx.components;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -12,10 +18,12 @@ import ortus.boxlang.compiler.parser.BoxSourceType;
 import ortus.boxlang.runtime.BoxRuntime;
 import ortus.boxlang.runtime.context.IBoxContext;
 import ortus.boxlang.runtime.context.ScriptingRequestBoxContext;
+import ortus.boxlang.runtime.dynamic.casters.IntegerCaster;
 import ortus.boxlang.runtime.dynamic.casters.QueryCaster;
 import ortus.boxlang.runtime.scopes.IScope;
 import ortus.boxlang.runtime.scopes.Key;
 import ortus.boxlang.runtime.scopes.VariablesScope;
+import ortus.boxlang.runtime.types.DateTime;
 
 public class WDDXTest {
 
@@ -44,7 +52,7 @@ public class WDDXTest {
 		                                          """, context, BoxSourceType.CFTEMPLATE );
 		assertEquals(
 		    variables.getAsString( result ),
-		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><integer>1</integer><integer>2</integer></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
+		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><number>1</number><number>2</number></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
 		);
 	}
 
@@ -57,7 +65,7 @@ public class WDDXTest {
 		                                          """, context, BoxSourceType.BOXTEMPLATE );
 		assertEquals(
 		    variables.getAsString( result ),
-		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><integer>1</integer><integer>2</integer></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
+		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><number>1</number><number>2</number></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
 		);
 	}
 
@@ -72,7 +80,7 @@ public class WDDXTest {
 		// @formatter:on
 		assertEquals(
 		    variables.getAsString( result ),
-		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><integer>1</integer><integer>2</integer></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
+		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"id\"><number>1</number><number>2</number></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>"
 		);
 	}
 
@@ -91,6 +99,39 @@ public class WDDXTest {
 
 	}
 
+	@DisplayName( "It tests lazy WDDX2BX in BX Script" )
+	@Test
+	public void testWDDX2BXLazy() {
+		variables.put( Key.of( "packet" ),
+		    "<wddxPacket version=\"1.0\"><header/><data><struct><var name=\"name\"><string>foo</string></var><var name=\"items\"><array length=\"2\"><number>1</number><struct><var name=\"id\"><number>2</number></var></struct></array></var></struct></data></wddxPacket>" );
+		// @formatter:off
+		instance.executeSource( """
+			bx:wddx action="wddx2bx" input=packet output="result" lazy=true;
+			name = result.name;
+			id = result.items[ 2 ].id;
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertEquals( "foo", variables.getAsString( Key.of( "name" ) ) );
+		assertEquals( 2, IntegerCaster.cast( variables.get( Key.of( "id" ) ) ) );
+	}
+
+	@DisplayName( "It duplicates a lazily parsed struct with its members decoded" )
+	@Test
+	public void testWDDX2BXLazyDuplicate() {
+		variables.put( Key.of( "packet" ),
+		    "<wddxPacket version=\"1.0\"><header/><data><struct><var name=\"name\"><string>foo</string></var><var name=\"items\"><array length=\"2\"><number>1</number><struct><var name=\"id\"><number>2</number></var></struct></array></var></struct></data></wddxPacket>" );
+		// @formatter:off
+		instance.executeSource( """
+			bx:wddx action="wddx2bx" input=packet output="parsed" lazy=true;
+			copy = duplicate( parsed );
+			name = copy.name;
+			id = copy.items[ 2 ].id;
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertEquals( "foo", variables.getAsString( Key.of( "name" ) ) );
+		assertEquals( 2, IntegerCaster.cast( variables.get( Key.of( "id" ) ) ) );
+	}
+
 	@DisplayName( "It tests WDDX2JS in BX Script" )
 	@Test
 	public void testWDDX2JS() {
@@ -127,4 +168,78 @@ public class WDDXTest {
 
 	}
 
+	@DisplayName( "It tests BX2WDDX to a file in BX Script" )
+	@Test
+	public void testBX2WDDXFile() throws IOException {
+		Path target = Files.createTempFile( "wddx", ".xml" );
+		variables.put( Key.of( "target" ), target.toString() );
+		// @formatter:off
+		instance.executeSource( """
+			qry = queryNew("id,test","integer,varchar",[{id:1,test:"test"},{id:2,test:"name"}]);
+			bx:wddx action="bx2wddx" input=qry file=target;
+			bx:wddx action="bx2wddx" input=qry output="result";
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertEquals( variables.getAsString( result ), Files.readString( target ) );
+		Files.deleteIfExists( target );
+	}
+
+	@DisplayName( "It tests BX2WDDX streamed to the output in BX Script" )
+	@Test
+	public void testBX2WDDXStream() {
+		// @formatter:off
+		instance.executeSource( """
+			items = [];
+			for ( i = 1; i <= 5000; i++ ) {
+				items.append( "item " & i );
+			}
+			bx:savecontent variable="streamed" {
+				bx:wddx action="bx2wddx" input=items stream=true;
+			}
+			bx:wddx action="bx2wddx" input=items output="result";
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertTrue( variables.getAsString( result ).length() > 8192 );
+		assertEquals( variables.getAsString( result ), variables.getAsString( Key.of( "streamed" ) ) );
+	}
+
+	@DisplayName( "It tests WDDX2BX from a file in BX Script" )
+	@Test
+	public void testWDDX2BXFile() throws IOException {
+		Path source = Files.createTempFile( "wddx", ".xml" );
+		variables.put( Key.of( "source" ), source.toString() );
+		// @formatter:off
+		instance.executeSource( """
+			qry = queryNew("id,test","integer,varchar",[{id:1,test:"test"},{id:2,test:"name"}]);
+			bx:wddx action="bx2wddx" input=qry file=source;
+			bx:wddx action="wddx2bx" file=source output="result";
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertEquals( 2, QueryCaster.cast( variables.get( result ) ).getData().size() );
+		Files.deleteIfExists( source );
+	}
+
+	@DisplayName( "It tests BX2WDDX without timezone info in BX Script" )
+	@Test
+	public void testBX2WDDXWithoutTimezoneInfo() {
+		// @formatter:off
+		instance.executeSource( """
+			bx:wddx action="bx2wddx" input=createDateTime( 2024, 1, 5, 3, 4, 5 ) usetimezoneinfo=false output="result";
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertTrue( variables.getAsString( result ).contains( "<dateTime>2024-01-05T03:04:05</dateTime>" ) );
+	}
+
+	@DisplayName( "It reads dates without an offset in the request timezone" )
+	@Test
+	public void testWDDX2BXRequestTimezone() {
+		// @formatter:off
+		instance.executeSource( """
+			setTimezone( "Asia/Tokyo" );
+			bx:wddx action="wddx2bx" input='<wddxPacket version="1.0"><header/><data><dateTime>2024-01-05T03:04:05</dateTime></data></wddxPacket>' output="result";
+		""", context, BoxSourceType.BOXSCRIPT );
+		// @formatter:on
+		assertEquals( ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, ZoneId.of( "Asia/Tokyo" ) ), ( ( DateTime ) variables.get( result ) ).getWrapped() );
+	}
+
 }
@@ -0,0 +1,153 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.OffsetDateTime;
+import java.time.Year;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.modules.wddx.util.WDDXSerializer;
+import ortus.boxlang.modules.wddx.util.WDDXUtil;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXTypeHandlersTest {
+
+	@DisplayName( "Test numeric types serialize as WDDX numbers" )
+	@Test
+	void testNumbers() {
+		assertEquals( "<number>42</number>", WDDXUtil.serializeObject( 42 ) );
+		assertEquals( "<number>42</number>", WDDXUtil.serializeObject( 42L ) );
+		assertEquals( "<number>4.5</number>", WDDXUtil.serializeObject( 4.5d ) );
+		assertEquals( "<number>100.25</number>", WDDXUtil.serializeObject( new BigDecimal( "100.25" ) ) );
+	}
+
+	@DisplayName( "Test null, binary and fallback types" )
+	@Test
+	void testSimpleTypes() {
+		assertEquals( "<null/>", WDDXUtil.serializeObject( null ) );
+		assertEquals( "<binary length=\"3\">AQID</binary>", WDDXUtil.serializeObject( new byte[] { 1, 2, 3 } ) );
+		assertEquals( "<string>a</string>", WDDXUtil.serializeObject( 'a' ) );
+	}
+
+	@DisplayName( "Test Java maps and lists serialize as structs and arrays" )
+	@Test
+	void testJavaCollections() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put( "items", List.of( "a", 1 ) );
+		assertEquals(
+		    "<struct><var name=\"items\"><array length=\"2\"><string>a</string><number>1</number></array></var></struct>",
+		    WDDXUtil.serializeObject( map )
+		);
+	}
+
+	@DisplayName( "Test handlers are cached per class" )
+	@Test
+	void testDispatchIsCached() {
+		assertSame( WDDXTypeHandlers.get( Struct.class ), WDDXTypeHandlers.get( Struct.class ) );
+		assertSame( WDDXTypeHandlers.get( Array.class ), WDDXTypeHandlers.get( Array.class ) );
+	}
+
+	@DisplayName( "Test registered handlers take precedence" )
+	@Test
+	void testRegisteredHandler() {
+		record Point( int x, int y ) {
+		}
+		WDDXTypeHandlers.register( new IWDDXTypeHandler() {
+
+			@Override
+			public boolean handles( Class<?> type ) {
+				return Point.class.equals( type );
+			}
+
+			@Override
+			public void serialize( Object value, WDDXSerializer serializer ) {
+				Point point = ( Point ) value;
+				serializer.writeValue( List.of( point.x(), point.y() ) );
+			}
+		} );
+		assertEquals( "<array length=\"2\"><number>1</number><number>2</number></array>", WDDXUtil.serializeObject( new Point( 1, 2 ) ) );
+	}
+
+	@DisplayName( "Test only complete dates and instants are serialized as dates" )
+	@Test
+	void testDateTimeTypes() {
+		for ( Class<?> type : List.of( LocalDate.class, LocalDateTime.class, ZonedDateTime.class, OffsetDateTime.class, Instant.class, Date.class ) ) {
+			assertInstanceOf( DateTimeHandler.class, WDDXTypeHandlers.get( type ), type.getName() );
+		}
+		for ( Class<?> type : List.of( Month.class, DayOfWeek.class, ZoneOffset.class, Year.class ) ) {
+			assertInstanceOf( StringHandler.class, WDDXTypeHandlers.get( type ), type.getName() );
+		}
+		assertEquals( "<string>MARCH</string>", WDDXUtil.serializeObject( Month.MARCH ) );
+	}
+
+	@DisplayName( "Test handlers are loaded through another class loader once" )
+	@Test
+	void testLoad() throws IOException {
+		Path	services	= Files.createTempDirectory( "wddx" );
+		Path	file		= services.resolve( "META-INF/services/" + IWDDXTypeHandler.class.getName() );
+		Files.createDirectories( file.getParent() );
+		Files.writeString( file, TagHandler.class.getName() );
+		try ( URLClassLoader loader = new URLClassLoader( new URL[] { services.toUri().toURL() }, getClass().getClassLoader() ) ) {
+			WDDXTypeHandlers.load( loader );
+			WDDXTypeHandlers.load( loader );
+		}
+		assertEquals( "<string>tagged</string>", WDDXUtil.serializeObject( new Tag() ) );
+	}
+
+	public static class Tag {
+	}
+
+	public static class TagHandler implements IWDDXTypeHandler {
+
+		@Override
+		public boolean handles( Class<?> type ) {
+			return Tag.class.equals( type );
+		}
+
+		@Override
+		public void serialize( Object value, WDDXSerializer serializer ) {
+			serializer.writeValue( "tagged" );
+		}
+	}
+
+}
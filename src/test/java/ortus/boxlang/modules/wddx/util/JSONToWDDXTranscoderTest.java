@@ -0,0 +1,147 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class JSONToWDDXTranscoderTest {
+
+	private static final String	ROWS	= "{\"columns\":[\"id\",\"name\"],\"data\":[[1,\"a\"],[2,\"b\\u00e9\"],[3]]}";
+	private static final String	COLUMNS	= "{\"columns\":[\"id\",\"name\"],\"rowCount\":3,\"data\":{\"id\":[1,2,3],\"name\":[\"a\",\"b\\u00e9\"]}}";
+
+	@DisplayName( "Test JSON values are transcoded" )
+	@Test
+	void testValues() {
+		String	wddx	= JSONToWDDXTranscoder
+		    .translate( " {\"name\" : \"x\\\"<y>\\n\", \"list\":[1, -2.5e3, true, null, {}], \"empty\":[], \"columns\":[1]} " );
+		IStruct	result	= ( IStruct ) WDDXParser.parse( wddx );
+		assertTrue( WDDXValidator.isWDDX( wddx, true ) );
+		assertEquals( "x\"<y>\n", result.get( Key.of( "name" ) ) );
+		Array list = ( Array ) result.get( Key.of( "list" ) );
+		assertEquals( 1, list.get( 0 ) );
+		assertEquals( -2500.0, list.get( 1 ) );
+		assertEquals( true, list.get( 2 ) );
+		assertNull( list.get( 3 ) );
+		assertInstanceOf( IStruct.class, list.get( 4 ) );
+		assertEquals( 0, ( ( Array ) result.get( Key.of( "empty" ) ) ).size() );
+		assertInstanceOf( Array.class, result.get( Key.of( "columns" ) ) );
+	}
+
+	@DisplayName( "Test query shaped objects are transcoded to recordsets" )
+	@Test
+	void testRecordsets() {
+		for ( String json : new String[] { ROWS, COLUMNS, COLUMNS.replace( "\"rowCount\":3,", "" ) } ) {
+			String wddx = JSONToWDDXTranscoder.translate( json );
+			assertTrue( WDDXValidator.isWDDX( wddx, true ), wddx );
+			Query query = ( Query ) WDDXParser.parse( wddx );
+			assertEquals( 3, query.getData().size() );
+			assertEquals( "bé", query.getData().get( 1 )[ 1 ] );
+			assertNull( query.getData().get( 2 )[ 1 ] );
+		}
+	}
+
+	@DisplayName( "Test streamed column data is written in the order of the declared columns" )
+	@Test
+	void testColumnOrder() {
+		String wddx = JSONToWDDXTranscoder
+		    .translate( "{\"columns\":[\"id\",\"name\",\"extra\"],\"rowCount\":2,\"data\":{\"name\":[\"a\",\"b\"],\"id\":[1,2,3]}}" );
+		assertTrue( WDDXValidator.isWDDX( wddx, true ), wddx );
+		Query query = ( Query ) WDDXParser.parse( wddx );
+		assertEquals( "id,name,extra", query.getColumnList() );
+		assertEquals( 2, query.getData().size() );
+		assertEquals( 2, query.getData().get( 1 )[ 0 ] );
+		assertEquals( "b", query.getData().get( 1 )[ 1 ] );
+		assertNull( query.getData().get( 1 )[ 2 ] );
+
+		assertThrows( BoxRuntimeException.class,
+		    () -> JSONToWDDXTranscoder.translate( "{\"columns\":[\"id\"],\"rowCount\":1,\"data\":{\"id\":[1],\"x\":[2]}}" ) );
+		assertThrows( BoxRuntimeException.class,
+		    () -> JSONToWDDXTranscoder.translate( "{\"columns\":[\"id\"],\"rowCount\":1,\"data\":{\"id\":[1],\"id\":[2]}}" ) );
+	}
+
+	@DisplayName( "Test recordsets have no more rows than their data or a leading rowCount" )
+	@Test
+	void testRowCount() {
+		String rows = "{\"columns\":[\"id\"],\"rowCount\":5,\"data\":[[1],[2]]}";
+		assertEquals( 2, ( ( Query ) WDDXParser.parse( JSONToWDDXTranscoder.translate( rows ) ) ).getData().size() );
+		assertEquals( 1, ( ( Query ) WDDXParser.parse( JSONToWDDXTranscoder.translate( rows.replace( "5", "1" ) ) ) ).getData().size() );
+		assertEquals( 2, ( ( Query ) WDDXParser.parse( JSONToWDDXTranscoder.translate( rows.replace( "5", "2000000000" ) ) ) ).getData().size() );
+		assertThrows( BoxRuntimeException.class,
+		    () -> new JSONToWDDXTranscoder( new StringReader( rows.replace( "5", "2000000000" ) ), new WDDXSerializer(), new WDDXLimits( 0, 0, 0, 0, 20 ) )
+		        .transcode() );
+		String columns = "{\"columns\":[\"id\",\"name\"],\"rowCount\":2000000000,\"data\":{\"id\":[1]}}";
+		assertTrue( assertThrows( BoxRuntimeException.class,
+		    () -> new JSONToWDDXTranscoder( new StringReader( columns ), new WDDXSerializer(), new WDDXLimits( 0, 0, 1000, 0, 0 ) ).transcode() )
+		    .getMessage().contains( "element" ) );
+		for ( String invalid : new String[] { "1e3", "2.0", "99999999999" } ) {
+			String message = assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( rows.replace( "5", invalid ) ) ).getMessage();
+			assertTrue( message.contains( "invalid rowCount" ), message );
+		}
+	}
+
+	@DisplayName( "Test the nesting depth is limited instead of overflowing the stack" )
+	@Test
+	void testDepth() {
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "[".repeat( 100_000 ) + "]".repeat( 100_000 ) ) );
+		assertThrows( BoxRuntimeException.class,
+		    () -> JSONToWDDXTranscoder.translate( "{\"columns\":[\"id\"],\"rowCount\":1,\"x\":" + "[".repeat( 100_000 ) + "]".repeat( 100_000 ) + "}" ) );
+		String		nested	= "{\"a\":[[1]]}";
+		WDDXLimits	limits	= new WDDXLimits( 0, 3, 0, 0, 0 );
+		assertThrows( BoxRuntimeException.class, () -> new JSONToWDDXTranscoder( new StringReader( nested ), new WDDXSerializer(), limits ).transcode() );
+		new JSONToWDDXTranscoder( new StringReader( nested ), new WDDXSerializer(), new WDDXLimits( 0, 4, 0, 0, 0 ) ).transcode();
+	}
+
+	@DisplayName( "Test recordsets round trip through both JSON formats" )
+	@Test
+	void testRoundTrip() {
+		String wddx = JSONToWDDXTranscoder.translate( ROWS );
+		assertEquals( wddx, JSONToWDDXTranscoder.translate( WDDXJavascriptTranscoder.toJSON( wddx, false ) ) );
+		assertEquals( wddx, JSONToWDDXTranscoder.translate( WDDXJavascriptTranscoder.toJSON( wddx, true ) ) );
+		assertEquals(
+		    "{\"columns\":[\"id\",\"name\"],\"rowCount\":3,\"data\":{\"id\":[1,2,3],\"name\":[\"a\",\"bé\",null]}}",
+		    WDDXJavascriptTranscoder.toJSON( wddx, true )
+		);
+	}
+
+	@DisplayName( "Test invalid JSON is rejected" )
+	@Test
+	void testInvalid() {
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "{\"a\":1" ) );
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "[1 2]" ) );
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "[01]" ) );
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "\"a\" \"b\"" ) );
+		assertThrows( BoxRuntimeException.class, () -> JSONToWDDXTranscoder.translate( "{a:1}" ) );
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXBatchTest {
+
+	@DisplayName( "Test a batch is parsed in order with per item errors" )
+	@Test
+	void testParseAll() {
+		List<Object> packets = new ArrayList<>();
+		for ( int i = 0; i < 50; i++ ) {
+			packets.add( i == 7 || i == 30 ? "<wddxPacket><data><number>" : WDDXUtil.serialize( i ) );
+		}
+		for ( int concurrency : new int[] { 1, 4 } ) {
+			IStruct	result	= new WDDXBatch( concurrency ).parseAll( packets, false );
+			Array	results	= ( Array ) result.get( Key.of( "results" ) );
+			Array	errors	= ( Array ) result.get( Key.of( "errors" ) );
+			assertEquals( 50, results.size() );
+			assertEquals( 49, results.get( 49 ) );
+			assertNull( results.get( 7 ) );
+			assertEquals( 2, errors.size() );
+			assertEquals( 8, ( ( IStruct ) errors.get( 0 ) ).get( Key.of( "index" ) ) );
+			assertEquals( 31, ( ( IStruct ) errors.get( 1 ) ).get( Key.of( "index" ) ) );
+		}
+	}
+
+	@DisplayName( "Test a batch is serialized in order" )
+	@Test
+	void testSerializeAll() {
+		IStruct	result	= new WDDXBatch( 3 ).serializeAll( List.of( "a", 1, Array.of( true ) ) );
+		Array	results	= ( Array ) result.get( Key.of( "results" ) );
+		assertEquals( WDDXUtil.serialize( "a" ), results.get( 0 ) );
+		assertEquals( WDDXUtil.serialize( Array.of( true ) ), results.get( 2 ) );
+		assertEquals( 0, ( ( Array ) result.get( Key.of( "errors" ) ) ).size() );
+	}
+
+	@DisplayName( "Test the number of items in flight is bounded" )
+	@Test
+	void testConcurrencyBound() {
+		AtomicInteger	running	= new AtomicInteger();
+		AtomicInteger	peak	= new AtomicInteger();
+		List<Integer>	items	= new ArrayList<>();
+		for ( int i = 0; i < 40; i++ ) {
+			items.add( i );
+		}
+		IStruct result = new WDDXBatch( 3 ).apply( items, item -> {
+			peak.accumulateAndGet( running.incrementAndGet(), Math::max );
+			try {
+				Thread.sleep( 2 );
+			} catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			if ( ( Integer ) item == 5 ) {
+				throw new BoxRuntimeException( "item five" );
+			}
+			return item;
+		} );
+		assertTrue( peak.get() <= 3 );
+		assertEquals( "item five", ( ( IStruct ) ( ( Array ) result.get( Key.of( "errors" ) ) ).get( 0 ) ).get( Key.of( "message" ) ) );
+	}
+
+	@DisplayName( "Test exceptions and stack overflows are recorded with their item, and other errors are rethrown" )
+	@Test
+	void testErrors() {
+		Function<Object, Object> operation = item -> {
+			if ( ( Integer ) item == 2 ) {
+				throw new IllegalStateException();
+			}
+			if ( ( Integer ) item == 3 ) {
+				throw new StackOverflowError();
+			}
+			return item;
+		};
+		for ( int concurrency : new int[] { 1, 4 } ) {
+			IStruct	result	= new WDDXBatch( concurrency ).apply( List.of( 1, 2, 3, 4 ), operation );
+			Array	errors	= ( Array ) result.get( Key.of( "errors" ) );
+			assertEquals( 2, errors.size() );
+			assertEquals( 2, ( ( IStruct ) errors.get( 0 ) ).get( Key.of( "index" ) ) );
+			assertEquals( IllegalStateException.class.getName(), ( ( IStruct ) errors.get( 0 ) ).get( Key.of( "message" ) ) );
+			assertEquals( StackOverflowError.class.getName(), ( ( IStruct ) errors.get( 1 ) ).get( Key.of( "message" ) ) );
+			assertEquals( 4, ( ( Array ) result.get( Key.of( "results" ) ) ).get( 3 ) );
+
+			WDDXBatch batch = new WDDXBatch( concurrency );
+			assertThrows( OutOfMemoryError.class, () -> batch.apply( List.of( 1, 2 ), item -> {
+				throw new OutOfMemoryError();
+			} ) );
+		}
+	}
+
+}
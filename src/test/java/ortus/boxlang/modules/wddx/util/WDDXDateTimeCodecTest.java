@@ -0,0 +1,91 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.types.DateTime;
+
+public class WDDXDateTimeCodecTest {
+
+	private static String encode( ZonedDateTime value, boolean timezoneInfo ) {
+		StringBuilder out = new StringBuilder();
+		WDDXDateTimeCodec.append( out, value, timezoneInfo );
+		return out.toString();
+	}
+
+	@DisplayName( "Test date times are encoded as ISO-8601, with or without their offset" )
+	@Test
+	void testEncode() {
+		ZonedDateTime value = ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, ZoneOffset.ofHours( -5 ) );
+		assertEquals( "2024-01-05T03:04:05-05:00", encode( value, true ) );
+		assertEquals( "2024-01-05T03:04:05", encode( value, false ) );
+		assertEquals( "2024-01-05T03:04:05Z", encode( value.withZoneSameLocal( ZoneOffset.UTC ), true ) );
+		assertEquals( "2024-01-05T03:04:05.120+05:30", encode( value.withNano( 120_000_000 ).withZoneSameLocal( ZoneOffset.ofHoursMinutes( 5, 30 ) ), true ) );
+		assertEquals( "2024-01-05T03:04:05.000001Z", encode( value.withNano( 1_000 ).withZoneSameLocal( ZoneOffset.UTC ), true ) );
+		assertEquals( "0099-12-31T23:59:59Z", encode( ZonedDateTime.of( 99, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC ), true ) );
+		assertEquals( "<dateTime>2024-01-05T03:04:05</dateTime>", new WDDXSerializer().timezoneInfo( false ).appendDateTime( value ).toString() );
+	}
+
+	@DisplayName( "Test padded and unpadded ISO-8601 date times are decoded" )
+	@Test
+	void testDecode() {
+		ZonedDateTime expected = ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, ZoneOffset.ofHours( -5 ) );
+		assertEquals( expected, WDDXDateTimeCodec.decode( "2024-01-05T03:04:05-05:00" ).getWrapped() );
+		assertEquals( expected, WDDXDateTimeCodec.decode( " 2024-1-5T3:4:5-5:0\n" ).getWrapped() );
+		assertEquals( expected, WDDXDateTimeCodec.decode( "2024-01-05 03:04:05-0500" ).getWrapped() );
+		assertEquals( expected.withNano( 123_400_000 ), WDDXDateTimeCodec.decode( "2024-01-05T03:04:05.1234-05" ).getWrapped() );
+		assertEquals( ZonedDateTime.of( 2024, 1, 5, 3, 4, 0, 0, ZoneOffset.UTC ), WDDXDateTimeCodec.decode( "2024-01-05T03:04Z" ).getWrapped() );
+		assertEquals( ZonedDateTime.of( 2024, 1, 5, 0, 0, 0, 0, ZoneId.systemDefault() ), WDDXDateTimeCodec.decode( "2024-01-05" ).getWrapped() );
+		assertEquals( ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, ZoneId.systemDefault() ), WDDXDateTimeCodec.decode( "2024-01-05T03:04:05" ).getWrapped() );
+		ZoneId tokyo = ZoneId.of( "Asia/Tokyo" );
+		assertEquals( ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, tokyo ), WDDXDateTimeCodec.decode( "2024-01-05T03:04:05", tokyo ).getWrapped() );
+		assertEquals( expected, WDDXDateTimeCodec.decode( "2024-01-05T03:04:05-05:00", tokyo ).getWrapped() );
+		assertSame( WDDXDateTimeCodec.decode( "2024-01-05T03:04:05+01:00" ).getWrapped().getZone(),
+		    WDDXDateTimeCodec.decode( "2023-06-01T00:00:00+01:00" ).getWrapped().getZone() );
+	}
+
+	@DisplayName( "Test text which is not an ISO-8601 date time is not decoded" )
+	@Test
+	void testInvalid() {
+		assertNull( WDDXDateTimeCodec.decode( "" ) );
+		assertNull( WDDXDateTimeCodec.decode( "January 5, 2024" ) );
+		assertNull( WDDXDateTimeCodec.decode( "2024-13-05T03:04:05Z" ) );
+		assertNull( WDDXDateTimeCodec.decode( "2024-01-05T03:04:05+25:00" ) );
+		assertNull( WDDXDateTimeCodec.decode( "2024-01-05T03:04:05 trailing" ) );
+	}
+
+	@DisplayName( "Test date times round trip through a packet" )
+	@Test
+	void testRoundTrip() {
+		DateTime value = new DateTime( ZonedDateTime.of( 2024, 1, 5, 3, 4, 5, 0, ZoneOffset.ofHours( 9 ) ) );
+		assertEquals( value.getWrapped(), ( ( DateTime ) WDDXUtil.parse( WDDXUtil.serialize( value ) ) ).getWrapped() );
+		assertEquals( value.getWrapped().toLocalDateTime(),
+		    ( ( DateTime ) WDDXUtil.parse( WDDXUtil.serialize( value, false ) ) ).getWrapped().toLocalDateTime() );
+	}
+
+}
@@ -0,0 +1,85 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXEscaperTest {
+
+	@DisplayName( "Test values which need no escaping are returned as-is" )
+	@Test
+	void testUnchanged() {
+		String value = "plain text\twith\nlines, é and 😀";
+		assertSame( value, WDDXEscaper.escapeText( value ) );
+		assertSame( "name", WDDXEscaper.escapeAttribute( "name" ) );
+		assertEquals( "", WDDXEscaper.escapeText( null ) );
+	}
+
+	@DisplayName( "Test markup characters are escaped" )
+	@Test
+	void testMarkup() {
+		assertEquals( "a &lt;b&gt; &amp; \"c\" 'd'", WDDXEscaper.escapeText( "a <b> & \"c\" 'd'" ) );
+		assertEquals( "a &lt;b&gt; &amp; &quot;c&quot; &apos;d&apos;", WDDXEscaper.escapeAttribute( "a <b> & \"c\" 'd'" ) );
+	}
+
+	@DisplayName( "Test illegal XML characters are encoded or replaced" )
+	@Test
+	void testIllegal() {
+		assertEquals( "a<char code=\"01\"/>b<char code=\"0d\"/>\nc<char code=\"d800\"/>d<char code=\"fffe\"/>",
+		    WDDXEscaper.escapeText( "a\u0001b\r\nc\uD800d\uFFFE" ) );
+		assertEquals( "a\uFFFDb&#xD;&#xA;&#x9;c\uFFFD", WDDXEscaper.escapeAttribute( "a\u0001b\r\n\tc\uDC00" ) );
+	}
+
+	@DisplayName( "Test illegal characters round trip through a packet" )
+	@Test
+	void testRoundTrip() {
+		String	value	= "line\r\nbreak \u0000 \u001f \uD800 😀 <&>";
+		String	packet	= WDDXUtil.serialize( Struct.of( "key", value ) );
+		assertTrue( WDDXValidator.isWDDX( packet, true ), packet );
+		assertEquals( value, ( ( IStruct ) WDDXUtil.parse( packet ) ).get( Key.of( "key" ) ) );
+	}
+
+	@DisplayName( "Test the UTF-8 writer matches the standard encoder" )
+	@Test
+	void testUTF8Writer() throws IOException {
+		String					value	= "ascii é ü € 😀 中文 ".repeat( 2000 );
+		ByteArrayOutputStream	bytes	= new ByteArrayOutputStream();
+		try ( UTF8Writer writer = new UTF8Writer( bytes ) ) {
+			int split = value.indexOf( '😀' ) + 1;
+			writer.write( value, 0, split );
+			writer.write( value.substring( split ).toCharArray() );
+		}
+		assertArrayEquals( value.getBytes( StandardCharsets.UTF_8 ), bytes.toByteArray() );
+	}
+
+}
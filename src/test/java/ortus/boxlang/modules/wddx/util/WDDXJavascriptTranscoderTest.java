@@ -0,0 +1,154 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXJavascriptTranscoderTest {
+
+	private static String packet( String data ) {
+		return "<wddxPacket version=\"1.0\"><header/><data>" + data + "</data></wddxPacket>";
+	}
+
+	@DisplayName( "Test structs, arrays and simple values are transcoded" )
+	@Test
+	void testValues() {
+		String wddx = packet(
+		    "<struct><var name=\"name\"><string>a \"quoted\" &lt;/script&gt;<char code=\"0a\"/></string></var>"
+		        + "<var name=\"list\"><array length=\"4\"><number>1</number><number>1.5</number><boolean value=\"true\"/><null/></array></var>"
+		        + "<var name=\"empty\"></var></struct>"
+		);
+		assertEquals(
+		    "data = {\"name\":\"a \\\"quoted\\\" <\\/script>\\n\",\"list\":[1,1.5,true,null],\"empty\":null};",
+		    WDDXJavascriptTranscoder.translate( wddx, "data" )
+		);
+		assertEquals( "data = null;", WDDXJavascriptTranscoder.translate( packet( "" ), "data" ) );
+	}
+
+	@DisplayName( "Test recordsets are transcoded by row" )
+	@Test
+	void testRecordset() {
+		String wddx = packet(
+		    "<recordset rowCount=\"3\" fieldNames=\"id,name\"><field name=\"id\"><number>1</number><number>2</number><number>3</number></field>"
+		        + "<field name=\"name\"><string>a</string><struct><var name=\"x\"><string>b</string></var></struct></field></recordset>"
+		);
+		assertEquals(
+		    "rs = {\"columns\":[\"id\",\"name\"],\"data\":[[1,\"a\"],[2,{\"x\":\"b\"}],[3,null]]};",
+		    WDDXJavascriptTranscoder.translate( wddx, "rs" )
+		);
+	}
+
+	@DisplayName( "Test recordsets are padded no further than their data or the row limit" )
+	@Test
+	void testRowCount() {
+		String wddx = packet( "<recordset rowCount=\"5\" fieldNames=\"id\"><field name=\"id\"><number>1</number><number>2</number></field></recordset>" );
+		assertEquals( "{\"columns\":[\"id\"],\"data\":[[1],[2]]}", WDDXJavascriptTranscoder.toJSON( wddx, false ) );
+		assertEquals( "{\"columns\":[\"id\"],\"rowCount\":5,\"data\":{\"id\":[1,2,null,null,null]}}", WDDXJavascriptTranscoder.toJSON( wddx, true ) );
+		assertEquals( "{\"columns\":[\"id\"],\"rowCount\":1,\"data\":{\"id\":[1]}}",
+		    WDDXJavascriptTranscoder.toJSON( wddx.replace( "\"5\"", "\"1\"" ), true ) );
+
+		String		huge	= wddx.replace( "\"5\"", "\"2000000000\"" );
+		WDDXLimits	limits	= new WDDXLimits( 0, 0, 1000, 0, 0 );
+		assertTrue( assertThrows( BoxRuntimeException.class,
+		    () -> new WDDXJavascriptTranscoder( new StringReader( huge ), new WDDXJavascriptWriter(), true, limits ).transcode( null ) ).getMessage()
+		    .contains( "element" ) );
+		assertThrows( BoxRuntimeException.class,
+		    () -> new WDDXJavascriptTranscoder( new StringReader( huge ), new WDDXJavascriptWriter(), true, new WDDXLimits( 0, 0, 0, 0, 20 ) )
+		        .transcode( null ) );
+		assertEquals( "{\"columns\":[\"id\"],\"data\":[[1],[2]]}", WDDXJavascriptTranscoder.toJSON( huge, false ) );
+		for ( String invalid : new String[] { "\"abc\"", "\"-1\"" } ) {
+			String message = assertThrows( BoxRuntimeException.class, () -> WDDXJavascriptTranscoder.toJSON( wddx.replace( "\"5\"", invalid ), false ) )
+			    .getMessage();
+			assertTrue( message.contains( "not a valid WDDX packet" ) );
+		}
+	}
+
+	@DisplayName( "Test the nesting depth is limited instead of overflowing the stack" )
+	@Test
+	void testDepth() {
+		String deep = packet( "<array length=\"1\">".repeat( 100_000 ) + "</array>".repeat( 100_000 ) );
+		assertTrue( assertThrows( BoxRuntimeException.class, () -> WDDXJavascriptTranscoder.translate( deep, "v" ) ).getMessage().contains( "nesting depth" ) );
+		String nested = packet( "<struct><var name=\"a\">".repeat( 3 ) + "<string>x</string>" + "</var></struct>".repeat( 3 ) );
+		assertThrows( BoxRuntimeException.class,
+		    () -> new WDDXJavascriptTranscoder( new StringReader( nested ), new WDDXJavascriptWriter(), false, new WDDXLimits( 0, 3, 0, 0, 0 ) )
+		        .transcode( null ) );
+		WDDXJavascriptWriter out = new WDDXJavascriptWriter();
+		new WDDXJavascriptTranscoder( new StringReader( nested ), out, false, new WDDXLimits( 0, 4, 0, 0, 0 ) ).transcode( null );
+		assertEquals( "{\"a\":{\"a\":{\"a\":\"x\"}}}", out.toString() );
+	}
+
+	@DisplayName( "Test BoxLang values are emitted in the same form as transcoded packets" )
+	@Test
+	void testSerializeToJavascript() {
+		Query query = Query.fromArray( Array.of( "id", "name" ), Array.of( "integer", "varchar" ), null );
+		query.addRow( new Object[] { 1, "a" } );
+		query.addRow( new Object[] { 2, null } );
+		Object	value		= Struct.linkedOf( "query", query, "list", Array.of( 1, 2.5, false, "x\ty" ), "nested", Struct.of( "bytes", new byte[] { 1, 2 } ) );
+
+		String	expected	= "v = {\"query\":{\"columns\":[\"id\",\"name\"],\"data\":[[1,\"a\"],[2,null]]},\"list\":[1,2.5,false,\"x\\ty\"],\"nested\":{\"bytes\":\"AQI=\"}};";
+		assertEquals( expected, WDDXUtil.serializeToJavascript( value, "v" ) );
+		assertEquals( expected, WDDXUtil.translateToJavascript( WDDXUtil.serialize( value ), "v" ) );
+		assertEquals( "v = null;", WDDXUtil.serializeToJavascript( null, "v" ) );
+	}
+
+	@DisplayName( "Test deeply nested values are written without overflowing the stack, and cycles are rejected" )
+	@Test
+	void testSerializeNesting() {
+		Array	root	= new Array();
+		Array	leaf	= root;
+		for ( int i = 1; i < 100_000; i++ ) {
+			Array child = new Array();
+			leaf.add( child );
+			leaf = child;
+		}
+		assertEquals( "v = " + "[".repeat( 100_000 ) + "]".repeat( 100_000 ) + ";", WDDXUtil.serializeToJavascript( root, "v" ) );
+
+		IStruct parent = new Struct();
+		parent.put( Key.of( "items" ), Array.of( 1, parent ) );
+		assertTrue( assertThrows( BoxRuntimeException.class, () -> WDDXUtil.serializeToJavascript( parent, "v" ) ).getMessage().contains( "contains itself" ) );
+		Object[] shared = new Object[] { "x" };
+		assertEquals( "v = [[\"x\"],[\"x\"]];", WDDXUtil.serializeToJavascript( List.of( shared, shared ), "v" ) );
+	}
+
+	@DisplayName( "Test transcoding to a writer" )
+	@Test
+	void testStreaming() {
+		StringWriter sink = new StringWriter();
+		WDDXUtil.translateToJavascript( new StringReader( packet( "<array length=\"1\"><string>x</string></array>" ) ), "v", sink );
+		assertEquals( "v = [\"x\"];", sink.toString() );
+		assertThrows( BoxRuntimeException.class, () -> WDDXJavascriptTranscoder.translate( "<foo/>", "v" ) );
+	}
+
+}
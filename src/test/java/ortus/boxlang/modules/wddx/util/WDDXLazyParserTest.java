@@ -0,0 +1,178 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXLazyParserTest {
+
+	private static final String PACKET = """
+	                                     <?xml version="1.0"?>
+	                                     <wddxPacket version="1.0"><header/><data><struct>
+	                                     <var name="name"><string>a &lt;b&gt; &amp; c</string></var>
+	                                     <var name="odd &quot;key&quot;"><number>1</number></var>
+	                                     <!-- a comment with a <tag> -->
+	                                     <var name="rows"><recordset rowCount="1" fieldNames="id"><field name="id"><number>7</number></field></recordset></var>
+	                                     <var name="items"><array length="2"><boolean value="true"/><struct><var name="x"><![CDATA[<ignored/>]]><string>y</string></var></struct></array></var>
+	                                     <var name="nested"><struct><var name="deep"><null/></var></struct></var>
+	                                     <var name="broken"><number>1</numb></var>
+	                                     </struct></data></wddxPacket>
+	                                     """;
+
+	@DisplayName( "Test members are decoded only when first read" )
+	@Test
+	void testMembersAreDecodedOnRead() {
+		LazyStruct result = ( LazyStruct ) WDDXLazyParser.parse( PACKET );
+		assertFalse( result.isDecoded( Key.of( "name" ) ) );
+		assertEquals( "a <b> & c", result.get( Key.of( "name" ) ) );
+		assertTrue( result.isDecoded( Key.of( "name" ) ) );
+		assertFalse( result.isDecoded( Key.of( "rows" ) ) );
+		assertEquals( 6, result.size() );
+	}
+
+	@DisplayName( "Test lazy values match the eager parser" )
+	@Test
+	void testValues() {
+		IStruct result = ( IStruct ) WDDXLazyParser.parse( PACKET );
+		assertEquals( 1, result.get( Key.of( "odd \"key\"" ) ) );
+		assertEquals( 1, ( ( Query ) result.get( Key.of( "rows" ) ) ).getData().size() );
+
+		Array items = ( Array ) result.get( Key.of( "items" ) );
+		assertEquals( true, items.get( 0 ) );
+		assertInstanceOf( LazyStruct.class, items.get( 1 ) );
+		assertEquals( "y", ( ( IStruct ) items.get( 1 ) ).get( Key.of( "x" ) ) );
+
+		IStruct nested = ( IStruct ) result.get( Key.of( "nested" ) );
+		assertTrue( nested.containsKey( Key.of( "deep" ) ) );
+		assertNull( nested.get( Key.of( "deep" ) ) );
+	}
+
+	@DisplayName( "Test the typed getters decode the member they read" )
+	@Test
+	void testTypedGetters() {
+		assertEquals( "a <b> & c", lazy().getAsString( Key.of( "name" ) ) );
+		assertEquals( 1, lazy().getAsInteger( Key.of( "odd \"key\"" ) ) );
+		assertEquals( 1L, lazy().getAsLong( Key.of( "odd \"key\"" ) ) );
+		assertEquals( 1.0, lazy().getAsDouble( Key.of( "odd \"key\"" ) ) );
+		assertEquals( 2, lazy().getAsArray( Key.of( "items" ) ).size() );
+		assertTrue( lazy().getAsStruct( Key.of( "nested" ) ).containsKey( Key.of( "deep" ) ) );
+		assertEquals( 1, lazy().getAsQuery( Key.of( "rows" ) ).getData().size() );
+		assertEquals( true, lazy().getAsBoolean( Key.of( "flag" ) ) );
+		assertEquals( 2024, lazy().getAsDateTime( Key.of( "when" ) ).getWrapped().getYear() );
+	}
+
+	@DisplayName( "Test getOrDefault and getRaw decode the member they read" )
+	@Test
+	void testGetOrDefault() {
+		LazyStruct result = lazy();
+		assertEquals( "a <b> & c", result.getOrDefault( Key.of( "name" ), "none" ) );
+		assertEquals( 1, result.getOrDefault( ( Object ) Key.of( "odd \"key\"" ), "none" ) );
+		assertEquals( "none", result.getOrDefault( Key.of( "missing" ), "none" ) );
+		assertInstanceOf( Array.class, result.getRaw( Key.of( "items" ) ) );
+	}
+
+	@DisplayName( "Test containsValue, forEach and getWrapped decode every member" )
+	@Test
+	void testWholeStructAccessors() {
+		LazyStruct result = lazy();
+		assertTrue( result.containsValue( "a <b> & c" ) );
+		assertDecoded( result );
+
+		LazyStruct		each	= lazy();
+		List<Object>	values	= new ArrayList<>();
+		each.forEach( ( key, value ) -> values.add( value ) );
+		assertEquals( 7, values.size() );
+		values.forEach( value -> assertFalse( value instanceof WDDXPacketScanner.Region ) );
+
+		LazyStruct wrapped = lazy();
+		wrapped.getWrapped().values().forEach( value -> assertFalse( value instanceof WDDXPacketScanner.Region ) );
+		assertDecoded( wrapped );
+	}
+
+	@DisplayName( "Test a lazy struct is serialized as a plain struct with every member decoded" )
+	@Test
+	void testJavaSerialization() throws Exception {
+		Object					parsed	= WDDXLazyParser.parse( WDDXUtil.serialize( Struct.of( "a", "x", "nested", Struct.of( "b", 1 ) ) ) );
+		ByteArrayOutputStream	bytes	= new ByteArrayOutputStream();
+		try ( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) {
+			out.writeObject( parsed );
+		}
+		Object copy;
+		try ( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) ) ) {
+			copy = in.readObject();
+		}
+		assertFalse( copy instanceof LazyStruct );
+		assertEquals( "x", ( ( IStruct ) copy ).get( Key.of( "a" ) ) );
+		assertFalse( ( ( IStruct ) copy ).get( Key.of( "nested" ) ) instanceof LazyStruct );
+		assertEquals( 1, ( ( IStruct ) ( ( IStruct ) copy ).get( Key.of( "nested" ) ) ).get( Key.of( "b" ) ) );
+	}
+
+	/**
+	 * A lazily parsed struct of every kind of member, without the malformed one
+	 */
+	private static LazyStruct lazy() {
+		return ( LazyStruct ) WDDXLazyParser.parse( PACKET.replace( "<var name=\"broken\"><number>1</numb></var>",
+		    "<var name=\"flag\"><boolean value=\"true\"/></var><var name=\"when\"><dateTime>2024-01-05T03:04:05Z</dateTime></var>" ) );
+	}
+
+	private static void assertDecoded( LazyStruct struct ) {
+		for ( Key key : struct.keySet() ) {
+			assertTrue( struct.isDecoded( key ), key.getName() );
+		}
+	}
+
+	@DisplayName( "Test malformed members are only reported when read" )
+	@Test
+	void testMalformedMember() {
+		IStruct result = ( IStruct ) WDDXLazyParser.parse( PACKET );
+		assertThrows( BoxRuntimeException.class, () -> result.get( Key.of( "broken" ) ) );
+	}
+
+	@DisplayName( "Test simple and invalid packets" )
+	@Test
+	void testPackets() {
+		assertEquals( "foo", WDDXLazyParser.parse( "<wddxPacket version='1.0'><header/><data><string>foo</string></data></wddxPacket>" ) );
+		assertNull( WDDXLazyParser.parse( "<wddxPacket version='1.0'><header/><data/></wddxPacket>" ) );
+		assertThrows( BoxRuntimeException.class, () -> WDDXLazyParser.parse( "<foo/>" ) );
+		assertThrows( BoxRuntimeException.class, () -> WDDXLazyParser.parse( "<wddxPacket><data><struct>" ) );
+	}
+
+}
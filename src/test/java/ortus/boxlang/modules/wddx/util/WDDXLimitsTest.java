@@ -0,0 +1,165 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXLimitsTest {
+
+	private static final WDDXParallelism PARALLEL = new WDDXParallelism( true, 4, 3, 2, 64 );
+
+	/**
+	 * A packet of arrays nested to the given depth, around a single string
+	 */
+	private static String nested( int depth ) {
+		return "<wddxPacket version=\"1.0\"><header/><data>" + "<array length=\"1\">".repeat( depth - 1 ) + "<string>x</string>"
+		    + "</array>".repeat( depth - 1 ) + "</data></wddxPacket>";
+	}
+
+	private static String message( Runnable parse ) {
+		return assertThrows( BoxRuntimeException.class, parse::run ).getMessage();
+	}
+
+	@DisplayName( "Test the nesting depth is limited" )
+	@Test
+	void testDepth() {
+		WDDXLimits limits = new WDDXLimits( 0, 10, 0, 0, 0 );
+		assertTrue( WDDXParser.parse( nested( 10 ), WDDXMetrics.Sample.NONE, limits ) instanceof Array );
+		assertTrue( message( () -> WDDXParser.parse( nested( 11 ), WDDXMetrics.Sample.NONE, limits ) ).contains( "nesting depth of 10" ) );
+		assertTrue( WDDXLazyParser.parse( nested( 10 ), limits ) instanceof Array );
+		assertThrows( BoxRuntimeException.class, () -> WDDXLazyParser.parse( nested( 11 ), limits ) );
+		assertTrue( new WDDXParallelDecoder( PARALLEL, limits ).parse( nested( 10 ) ) instanceof Array );
+		assertThrows( BoxRuntimeException.class, () -> new WDDXParallelDecoder( PARALLEL, limits ).parse( nested( 11 ) ) );
+	}
+
+	@DisplayName( "Test lazy struct members are decoded within the depth limit" )
+	@Test
+	void testLazyDepth() {
+		String	packet	= WDDXUtil.serialize( Struct.of( "a", Struct.of( "b", Array.of( Array.of( "x" ) ) ) ) );
+		IStruct	result	= ( IStruct ) WDDXLazyParser.parse( packet, new WDDXLimits( 0, 4, 0, 0, 0 ) );
+		assertThrows( BoxRuntimeException.class, () -> ( ( IStruct ) result.get( Key.of( "a" ) ) ).get( Key.of( "b" ) ) );
+		assertTrue( WDDXLazyParser.parse( packet, new WDDXLimits( 0, 5, 0, 0, 0 ) ).toString().contains( "x" ) );
+	}
+
+	@DisplayName( "Test the packet length, element count and string length are limited" )
+	@Test
+	void testSizes() {
+		String packet = WDDXUtil.serialize( Array.of( "abc", "defgh", 1, 2 ) );
+		assertTrue( message( () -> WDDXUtil.parse( packet, false, new WDDXLimits( packet.length() - 1, 0, 0, 0, 0 ) ) ).contains( "length of" ) );
+		assertTrue( message( () -> WDDXUtil.parse( packet, false, new WDDXLimits( 0, 0, 4, 0, 0 ) ) ).contains( "number of elements of 4" ) );
+		assertTrue( message( () -> WDDXUtil.parse( packet, false, new WDDXLimits( 0, 0, 0, 4, 0 ) ) ).contains( "string length of 4" ) );
+		assertEquals( 4, ( ( Array ) WDDXUtil.parse( packet, false, new WDDXLimits( packet.length(), 0, 5, 5, 0 ) ) ).size() );
+	}
+
+	@DisplayName( "Test the element limit applies to the whole of a packet decoded in parallel" )
+	@Test
+	void testParallelElements() {
+		Array	items	= new Array();
+		Query	query	= Query.fromArray( Array.of( "id", "name" ), Array.of( "integer", "varchar" ), null );
+		for ( int i = 0; i < 40; i++ ) {
+			items.add( "item " + i );
+			query.addRow( new Object[] { i, "row " + i } );
+		}
+		String array = WDDXUtil.serialize( items );
+		assertEquals( 40, ( ( Array ) new WDDXParallelDecoder( PARALLEL, new WDDXLimits( 0, 0, 41, 0, 0 ) ).parse( array ) ).size() );
+		assertTrue( message( () -> new WDDXParallelDecoder( PARALLEL, new WDDXLimits( 0, 0, 40, 0, 0 ) ).parse( array ) )
+		    .contains( "number of elements of 40" ) );
+
+		String recordset = WDDXUtil.serialize( query );
+		assertEquals( 40, ( ( Query ) new WDDXParallelDecoder( PARALLEL, new WDDXLimits( 0, 0, 83, 0, 0 ) ).parse( recordset ) ).getData().size() );
+		assertThrows( BoxRuntimeException.class, () -> new WDDXParallelDecoder( PARALLEL, new WDDXLimits( 0, 0, 82, 0, 0 ) ).parse( recordset ) );
+	}
+
+	@DisplayName( "Test recordset rows are limited" )
+	@Test
+	void testRows() {
+		String		declared	= "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2000000000\" fieldNames=\"id\"><field name=\"id\"></field></recordset></data></wddxPacket>";
+		String		actual		= "<wddxPacket version=\"1.0\"><header/><data><recordset fieldNames=\"id\"><field name=\"id\">"
+		    + "<number>1</number>".repeat( 40 ) + "</field></recordset></data></wddxPacket>";
+		WDDXLimits	limits		= new WDDXLimits( 0, 0, 0, 0, 20 );
+		assertTrue( message( () -> WDDXParser.parse( declared, WDDXMetrics.Sample.NONE, limits ) ).contains( "row count of 20" ) );
+		assertThrows( BoxRuntimeException.class, () -> WDDXParser.parse( actual, WDDXMetrics.Sample.NONE, limits ) );
+		assertThrows( BoxRuntimeException.class, () -> new WDDXParallelDecoder( PARALLEL, limits ).parse( actual ) );
+
+		String exact = actual.replace( "<number>1</number>".repeat( 40 ), "<number>1</number>".repeat( 20 ) );
+		assertEquals( 20, ( ( Query ) WDDXParser.parse( exact, WDDXMetrics.Sample.NONE, limits ) ).getData().size() );
+		assertTrue( message( () -> WDDXParser.parse( exact.replace( "</field>", "<number>1</number></field>" ), WDDXMetrics.Sample.NONE, limits ) )
+		    .contains( "(found 21)" ) );
+		assertEquals( 20,
+		    ( ( Query ) WDDXParser.parse( exact.replace( "<recordset ", "<recordset rowCount=\"25\" " ), WDDXMetrics.Sample.NONE, WDDXLimits.NONE ) )
+		        .getData().size() );
+	}
+
+	@DisplayName( "Test recordset fields count as elements" )
+	@Test
+	void testFields() {
+		String packet = "<wddxPacket version=\"1.0\"><header/><data><recordset fieldNames=\"a,b\"><field name=\"a\"><number>1</number></field>"
+		    + "<field name=\"b\"><number>2</number></field></recordset></data></wddxPacket>";
+		assertTrue(
+		    message( () -> WDDXParser.parse( packet, WDDXMetrics.Sample.NONE, new WDDXLimits( 0, 0, 4, 0, 0 ) ) ).contains( "number of elements of 4" ) );
+		assertEquals( 1, ( ( Query ) WDDXParser.parse( packet, WDDXMetrics.Sample.NONE, new WDDXLimits( 0, 0, 5, 0, 0 ) ) ).getData().size() );
+	}
+
+	@DisplayName( "Test the limits apply while transcoding" )
+	@Test
+	void testTranscoders() {
+		String		packet	= WDDXUtil.serialize( Array.of( "abc", "defgh", Array.of( 1, 2 ) ) );
+		WDDXLimits	limits	= new WDDXLimits( 0, 0, 5, 0, 0 );
+		assertTrue( message( () -> new WDDXJavascriptTranscoder( new StringReader( packet ), new WDDXJavascriptWriter(), false, limits ).transcode( null ) )
+		    .contains( "number of elements of 5" ) );
+		assertThrows( BoxRuntimeException.class,
+		    () -> new WDDXJavascriptTranscoder( new StringReader( packet ), new WDDXJavascriptWriter(), false, new WDDXLimits( 0, 0, 0, 4, 0 ) )
+		        .transcode( null ) );
+
+		String json = "[\"abc\",\"defgh\",[1,2]]";
+		assertTrue( message( () -> new JSONToWDDXTranscoder( new StringReader( json ), new WDDXSerializer(), limits ).transcode() )
+		    .contains( "number of elements of 5" ) );
+		assertTrue( message( () -> new JSONToWDDXTranscoder( new StringReader( json ), new WDDXSerializer(), new WDDXLimits( 0, 0, 0, 4, 0 ) ).transcode() )
+		    .contains( "string length of 4" ) );
+		String query = "{\"columns\":[\"id\"],\"data\":[[1],[2],[3]]}";
+		assertThrows( BoxRuntimeException.class,
+		    () -> new JSONToWDDXTranscoder( new StringReader( query ), new WDDXSerializer(), new WDDXLimits( 0, 0, 0, 0, 2 ) ).transcode() );
+	}
+
+	@DisplayName( "Test limits are overridden per call" )
+	@Test
+	void testWith() {
+		WDDXLimits limits = new WDDXLimits( 0, 0, 0, 0, 0 );
+		assertSame( limits, limits.with( new Struct() ) );
+		WDDXLimits overridden = limits.with( Struct.of( "maxDepth", 2 ) );
+		assertThrows( BoxRuntimeException.class, () -> WDDXParser.parse( nested( 3 ), WDDXMetrics.Sample.NONE, overridden ) );
+		assertTrue( WDDXParser.parse( nested( 3 ), WDDXMetrics.Sample.NONE, limits ) instanceof Array );
+	}
+
+}
@@ -0,0 +1,106 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXMetricsTest {
+
+	private static IStruct stats( WDDXMetrics metrics, Key operation ) {
+		return ( IStruct ) ( ( IStruct ) metrics.getStats().get( Key.of( "operations" ) ) ).get( operation );
+	}
+
+	@DisplayName( "Test calls are counted" )
+	@Test
+	void testRecord() {
+		WDDXMetrics metrics = new WDDXMetrics( true, false );
+		assertEquals( "x", metrics.time( WDDXMetrics.PARSE, sample -> {
+			sample.in( 10 ).out( 4 ).shape( 3, 7 );
+			return "x";
+		} ) );
+		metrics.time( WDDXMetrics.PARSE, sample -> sample.in( 5 ).shape( 2, 1 ) );
+		assertThrows( BoxRuntimeException.class, () -> metrics.time( WDDXMetrics.PARSE, sample -> {
+			throw new BoxRuntimeException( "boom" );
+		} ) );
+
+		IStruct parse = stats( metrics, WDDXMetrics.PARSE );
+		assertEquals( 3L, parse.get( Key.of( "calls" ) ) );
+		assertEquals( 1L, parse.get( Key.of( "errors" ) ) );
+		assertEquals( 15L, parse.get( Key.of( "charsIn" ) ) );
+		assertEquals( 4L, parse.get( Key.of( "charsOut" ) ) );
+		assertEquals( 8L, parse.get( Key.of( "rows" ) ) );
+		assertEquals( 3L, parse.get( Key.of( "maxDepth" ) ) );
+		long bucketed = 0;
+		for ( Object count : ( ( IStruct ) parse.get( Key.of( "latency" ) ) ).values() ) {
+			bucketed += ( Long ) count;
+		}
+		assertEquals( 3L, bucketed );
+
+		metrics.reset();
+		assertEquals( null, stats( metrics, WDDXMetrics.PARSE ) );
+	}
+
+	@DisplayName( "Test disabled metrics record nothing" )
+	@Test
+	void testDisabled() {
+		WDDXMetrics metrics = new WDDXMetrics( false, false );
+		metrics.time( WDDXMetrics.SERIALIZE, sample -> sample.in( 5 ) );
+		assertFalse( metrics.isEnabled() );
+		assertEquals( 0, ( ( IStruct ) metrics.getStats().get( Key.of( "operations" ) ) ).size() );
+	}
+
+	@DisplayName( "Test the shape of serialized and parsed packets" )
+	@Test
+	void testShape() {
+		Query query = Query.fromArray( Array.of( "id" ), Array.of( "integer" ), null );
+		query.addRow( new Object[] { 1 } );
+		query.addRow( new Object[] { 2 } );
+		IStruct			value		= Struct.of( "items", Array.of( 1, Struct.of( "rows", query ) ) );
+
+		WDDXSerializer	serializer	= new WDDXSerializer().writePacket( value );
+		assertEquals( 5, serializer.maxDepth() );
+		assertEquals( 2, serializer.rows() );
+		assertEquals( serializer.toString().length(), serializer.length() );
+
+		WDDXMetrics metrics = new WDDXMetrics( true, false );
+		metrics.time( WDDXMetrics.PARSE, sample -> WDDXParser.parse( serializer.toString(), sample, WDDXLimits.NONE ) );
+		assertEquals( 5L, stats( metrics, WDDXMetrics.PARSE ).get( Key.of( "maxDepth" ) ) );
+		assertEquals( 2L, stats( metrics, WDDXMetrics.PARSE ).get( Key.of( "rows" ) ) );
+
+		WDDXParallelism parallelism = new WDDXParallelism( true, 1, 1, 2, 16 );
+		metrics.reset();
+		metrics.time( WDDXMetrics.PARSE, sample -> new WDDXParallelDecoder( parallelism, WDDXLimits.NONE ).parse( serializer.toString(), sample ) );
+		assertEquals( 5L, stats( metrics, WDDXMetrics.PARSE ).get( Key.of( "maxDepth" ) ) );
+		assertEquals( 2L, stats( metrics, WDDXMetrics.PARSE ).get( Key.of( "rows" ) ) );
+		parallelism.close();
+	}
+
+}
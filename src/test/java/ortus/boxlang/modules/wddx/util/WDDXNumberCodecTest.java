@@ -0,0 +1,95 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Query;
+
+public class WDDXNumberCodecTest {
+
+	private static String encode( Number value ) {
+		StringBuilder out = new StringBuilder();
+		WDDXNumberCodec.append( out, value );
+		return out.toString();
+	}
+
+	@DisplayName( "Test numbers are encoded without a type-specific format" )
+	@Test
+	void testEncode() {
+		assertEquals( "42", encode( 42 ) );
+		assertEquals( "-9223372036854775808", encode( Long.MIN_VALUE ) );
+		assertEquals( "7", encode( ( short ) 7 ) );
+		assertEquals( "1.5", encode( 1.5d ) );
+		assertEquals( "0.25", encode( 0.25f ) );
+		assertEquals( "12345678901234567890.0001", encode( new BigDecimal( "1.23456789012345678900001E19" ) ) );
+		assertEquals( "123456789012345678901234567890", encode( new BigInteger( "123456789012345678901234567890" ) ) );
+		assertEquals( "<number>3</number>", new WDDXSerializer().appendNumber( 3 ).toString() );
+	}
+
+	@DisplayName( "Test numbers are decoded to the narrowest exact type" )
+	@Test
+	void testDecode() {
+		assertEquals( Integer.valueOf( 42 ), WDDXNumberCodec.decode( " 42\n" ) );
+		assertEquals( Integer.valueOf( -7 ), WDDXNumberCodec.decode( "-7" ) );
+		assertEquals( Integer.valueOf( 7 ), WDDXNumberCodec.decode( "+007" ) );
+		assertEquals( Long.valueOf( 3000000000L ), WDDXNumberCodec.decode( "3000000000" ) );
+		assertEquals( Long.MAX_VALUE, WDDXNumberCodec.decode( "9223372036854775807" ) );
+		assertEquals( Long.MIN_VALUE, WDDXNumberCodec.decode( "-9223372036854775808" ) );
+		assertEquals( new BigDecimal( "9223372036854775808" ), WDDXNumberCodec.decode( "9223372036854775808" ) );
+		assertEquals( Double.valueOf( 1.5 ), WDDXNumberCodec.decode( "1.5" ) );
+		assertEquals( Double.valueOf( 1.0 ), WDDXNumberCodec.decode( "1.000000000000000000000" ) );
+		assertEquals( Double.valueOf( 1500 ), WDDXNumberCodec.decode( "1.5E3" ) );
+		assertEquals( Double.valueOf( 0.5 ), WDDXNumberCodec.decode( ".5" ) );
+		assertEquals( new BigDecimal( "0.1234567890123456789" ), WDDXNumberCodec.decode( "0.1234567890123456789" ) );
+		assertEquals( new BigDecimal( "1E-400" ), WDDXNumberCodec.decode( "1E-400" ) );
+		assertNull( WDDXNumberCodec.decode( "" ) );
+		assertNull( WDDXNumberCodec.decode( "-" ) );
+		assertNull( WDDXNumberCodec.decode( "1.2.3" ) );
+		assertNull( WDDXNumberCodec.decode( "1e" ) );
+		assertNull( WDDXNumberCodec.decode( "0x1F" ) );
+	}
+
+	@DisplayName( "Test numeric recordset fields decode to the same values as other numbers" )
+	@Test
+	void testRecordsetColumns() {
+		Query query = Query.fromArray( Array.of( "whole", "decimal", "mixed" ), Array.of( "integer", "double", "varchar" ), null );
+		query.addRow( new Object[] { 1, 1.5, 1 } );
+		query.addRow( new Object[] { 5000000000L, 2.25, 2.5 } );
+		query.addRow( new Object[] { -3, 3.0, "three" } );
+
+		Query result = ( Query ) WDDXUtil.parse( WDDXUtil.serialize( query ) );
+		assertEquals( Integer.valueOf( 1 ), result.getColumnData( Key.of( "whole" ) )[ 0 ] );
+		assertEquals( Long.valueOf( 5000000000L ), result.getColumnData( Key.of( "whole" ) )[ 1 ] );
+		assertEquals( Integer.valueOf( -3 ), result.getColumnData( Key.of( "whole" ) )[ 2 ] );
+		assertEquals( Double.valueOf( 2.25 ), result.getColumnData( Key.of( "decimal" ) )[ 1 ] );
+		assertEquals( Integer.valueOf( 1 ), result.getColumnData( Key.of( "mixed" ) )[ 0 ] );
+		assertEquals( Double.valueOf( 2.5 ), result.getColumnData( Key.of( "mixed" ) )[ 1 ] );
+		assertEquals( "three", result.getColumnData( Key.of( "mixed" ) )[ 2 ] );
+	}
+
+}
@@ -0,0 +1,163 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXParallelismTest {
+
+	private static final WDDXParallelism	SEQUENTIAL	= new WDDXParallelism( false, 4, 3, 0, 0 );
+	private static final WDDXParallelism	PARALLEL	= new WDDXParallelism( true, 4, 3, 2, 256 );
+
+	private static Object payload() {
+		Query query = Query.fromArray( Array.of( "id", "name" ), Array.of( "integer", "varchar" ), null );
+		for ( int i = 0; i < 50; i++ ) {
+			query.addRow( new Object[] { i, "row " + i } );
+		}
+		IStruct	wide	= new Struct( Struct.TYPES.LINKED );
+		Array	items	= new Array();
+		for ( int i = 0; i < 40; i++ ) {
+			wide.put( "key" + i, i % 2 == 0 ? "value " + i : Array.of( i, i + 1, i + 2, i + 3, i + 4 ) );
+			items.add( Struct.of( "index", i ) );
+		}
+		return Struct.linkedOf( "query", query, "wide", wide, "items", items, "small", Array.of( 1, 2 ) );
+	}
+
+	@DisplayName( "Test parallel serialization produces the same packet as sequential serialization" )
+	@Test
+	void testParallelMatchesSequential() {
+		Object	value		= payload();
+		String	expected	= new WDDXSerializer().parallel( SEQUENTIAL ).writePacket( value ).toString();
+		assertEquals( expected, new WDDXSerializer().parallel( PARALLEL ).writePacket( value ).toString() );
+
+		StringWriter sink = new StringWriter();
+		new WDDXSerializer( sink ).parallel( PARALLEL ).writePacket( value ).flush();
+		assertEquals( expected, sink.toString() );
+
+		Query query = ( Query ) ( ( IStruct ) value ).get( Key.of( "query" ) );
+		assertEquals( new WDDXSerializer().parallel( SEQUENTIAL ).writeQuery( query ).toString(),
+		    new WDDXSerializer().parallel( PARALLEL ).writeQuery( query ).toString() );
+	}
+
+	@DisplayName( "Test parallel decoding produces the same values as sequential decoding" )
+	@Test
+	void testParallelDecodeMatchesSequential() {
+		String	packet		= new WDDXSerializer().parallel( SEQUENTIAL ).writePacket( payload() ).toString();
+		Object	sequential	= new WDDXParser( new StringReader( packet ) ).parse();
+		Object	parallel	= new WDDXParallelDecoder( PARALLEL, WDDXLimits.NONE ).parse( packet );
+		assertEquals(
+		    new WDDXSerializer().parallel( SEQUENTIAL ).writePacket( sequential ).toString(),
+		    new WDDXSerializer().parallel( SEQUENTIAL ).writePacket( parallel ).toString()
+		);
+		assertEquals( "foo", new WDDXParallelDecoder( PARALLEL, WDDXLimits.NONE ).parse( WDDXUtil.serialize( "foo" ) ) );
+	}
+
+	@DisplayName( "Test the parallel threshold" )
+	@Test
+	void testThreshold() {
+		assertFalse( SEQUENTIAL.isParallel( 100 ) );
+		assertFalse( PARALLEL.isParallel( 3 ) );
+		assertTrue( PARALLEL.isParallel( 4 ) );
+		assertFalse( SEQUENTIAL.isParallelParse( 1_000_000 ) );
+		assertFalse( PARALLEL.isParallelParse( 255 ) );
+		assertTrue( PARALLEL.isParallelParse( 256 ) );
+	}
+
+	@DisplayName( "Test failures in parallel chunks are rethrown" )
+	@Test
+	void testFailures() {
+		WDDXSerializer serializer = new WDDXSerializer().parallel( PARALLEL );
+		assertThrows( IllegalStateException.class, () -> serializer.writeEach( Array.of( 1, 2, 3, 4, 5 ), ( item, target ) -> {
+			if ( item.equals( 4 ) ) {
+				throw new IllegalStateException( "failed" );
+			}
+		} ) );
+	}
+
+	@DisplayName( "Test the number of chunks in flight is bounded while earlier chunks are pending" )
+	@Test
+	void testWindow() throws InterruptedException {
+		Array			items		= new Array();
+		AtomicInteger	started		= new AtomicInteger();
+		AtomicInteger	observed	= new AtomicInteger();
+		CountDownLatch	release		= new CountDownLatch( 1 );
+		for ( int i = 0; i < 300; i++ ) {
+			items.add( i );
+		}
+		Thread			releaser	= Thread.ofVirtual().start( () -> {
+										try {
+											Thread.sleep( 200 );
+										} catch ( InterruptedException e ) {
+											Thread.currentThread().interrupt();
+										}
+										observed.set( started.get() );
+										release.countDown();
+									} );
+		WDDXSerializer	serializer	= new WDDXSerializer().parallel( PARALLEL );
+		serializer.writeEach( items, ( item, target ) -> {
+			int index = ( Integer ) item;
+			if ( index % 3 == 0 ) {
+				started.incrementAndGet();
+			}
+			if ( index == 0 ) {
+				try {
+					release.await( 5, TimeUnit.SECONDS );
+				} catch ( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			target.writeValue( item );
+		} );
+		releaser.join();
+		assertTrue( observed.get() <= 4, "chunks started while the first was pending: " + observed.get() );
+		assertEquals( 100, started.get() );
+	}
+
+	@DisplayName( "Test closing a configuration shuts down its own worker threads" )
+	@Test
+	void testClose() {
+		WDDXParallelism parallelism = new WDDXParallelism( true, 4, 3, 2, 0 );
+		assertEquals( new WDDXSerializer().parallel( SEQUENTIAL ).writePacket( Array.of( 1, 2, 3, 4, 5 ) ).toString(),
+		    new WDDXSerializer().parallel( parallelism ).writePacket( Array.of( 1, 2, 3, 4, 5 ) ).toString() );
+		parallelism.close();
+		assertThrows( RejectedExecutionException.class,
+		    () -> new WDDXSerializer().parallel( parallelism ).writePacket( Array.of( 1, 2, 3, 4, 5 ) ) );
+		new WDDXParallelism( true, 4, 3, 0, 0 ).close();
+	}
+
+}
@@ -0,0 +1,87 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXParseCacheTest {
+
+	private static String packet( String value ) {
+		return WDDXUtil.serialize( Struct.of( "value", value ) );
+	}
+
+	@DisplayName( "Test repeated packets are served from the cache" )
+	@Test
+	void testHitsAndMisses() {
+		WDDXParseCache	cache	= new WDDXParseCache( true, 10, 1024, 4096 );
+		String			wddx	= packet( "foo" );
+		cache.parse( wddx );
+		cache.parse( wddx );
+		cache.parse( new String( wddx ) );
+		IStruct stats = cache.getStats();
+		assertEquals( 2L, stats.get( Key.of( "hits" ) ) );
+		assertEquals( 1L, stats.get( Key.of( "misses" ) ) );
+		assertEquals( 1, stats.get( Key.of( "size" ) ) );
+	}
+
+	@DisplayName( "Test callers receive copies of the cached value" )
+	@Test
+	void testResultsAreCopies() {
+		WDDXParseCache	cache	= new WDDXParseCache( true, 10, 1024, 4096 );
+		String			wddx	= packet( "foo" );
+		IStruct			first	= ( IStruct ) cache.parse( wddx );
+		first.put( Key.of( "value" ), "changed" );
+		IStruct second = ( IStruct ) cache.parse( wddx );
+		assertNotSame( first, second );
+		assertEquals( "foo", second.get( Key.of( "value" ) ) );
+
+		String date = "<wddxPacket version=\"1.0\"><header/><data><dateTime>2024-01-05T03:04:05Z</dateTime></data></wddxPacket>";
+		assertNotSame( cache.parse( date ), cache.parse( date ) );
+		assertEquals( cache.parse( date ), cache.parse( date ) );
+	}
+
+	@DisplayName( "Test the cache is bounded by entries, total length and packet length" )
+	@Test
+	void testBounds() {
+		WDDXParseCache cache = new WDDXParseCache( true, 2, 1024, 4096 );
+		cache.parse( packet( "a" ) );
+		cache.parse( packet( "b" ) );
+		cache.parse( packet( "c" ) );
+		assertEquals( 2, cache.getStats().get( Key.of( "size" ) ) );
+		assertEquals( 1L, cache.getStats().get( Key.of( "evictions" ) ) );
+
+		WDDXParseCache small = new WDDXParseCache( true, 10, 1024, packet( "a" ).length() );
+		small.parse( packet( "a" ) );
+		small.parse( packet( "b" ) );
+		assertEquals( 1, small.getStats().get( Key.of( "size" ) ) );
+
+		WDDXParseCache tiny = new WDDXParseCache( true, 10, 10, 4096 );
+		tiny.parse( packet( "a" ) );
+		assertEquals( 0, tiny.getStats().get( Key.of( "size" ) ) );
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.IStruct;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
+
+public class WDDXRowReaderTest {
+
+	private static final Key	ID		= Key.of( "id" );
+	private static final Key	NAME	= Key.of( "name" );
+
+	private static List<IStruct> readAll( String packet ) {
+		List<IStruct> rows = new ArrayList<>();
+		try ( WDDXRowReader reader = new WDDXRowReader( packet ) ) {
+			reader.forEachRemaining( rows::add );
+		}
+		return rows;
+	}
+
+	@DisplayName( "Test the rows of a recordset are read in order" )
+	@Test
+	void testRows() {
+		Query query = Query.fromArray( Array.of( "id", "name" ), Array.of( "integer", "varchar" ), null );
+		for ( int i = 1; i <= 100; i++ ) {
+			query.addRow( new Object[] { i, "row " + i } );
+		}
+		query.addRow( new Object[] { 101, Struct.of( "nested", Array.of( 1, 2 ) ) } );
+
+		List<IStruct> rows = readAll( WDDXUtil.serialize( query ) );
+		assertEquals( 101, rows.size() );
+		assertEquals( 1, ( ( Number ) rows.get( 0 ).get( ID ) ).intValue() );
+		assertEquals( "row 100", rows.get( 99 ).get( NAME ) );
+		assertEquals( 2, ( ( Array ) ( ( IStruct ) rows.get( 100 ).get( NAME ) ).get( Key.of( "nested" ) ) ).size() );
+	}
+
+	@DisplayName( "Test short fields are padded with nulls" )
+	@Test
+	void testShortFields() {
+		String			packet	= "<wddxPacket version=\"1.0\"><header/><data><recordset fieldNames=\"id,name\"><field name=\"id\"><number>1</number><number>2</number></field>"
+		    + "<field name=\"name\"><string>a</string></field></recordset></data></wddxPacket>";
+		List<IStruct>	rows	= readAll( packet );
+		assertEquals( 2, rows.size() );
+		assertEquals( "a", rows.get( 0 ).get( NAME ) );
+		assertNull( rows.get( 1 ).get( NAME ) );
+
+		assertEquals( 2, readAll( packet.replace( "<recordset ", "<recordset rowCount=\"3\" " ) ).size() );
+		assertEquals( 1, readAll( packet.replace( "<recordset ", "<recordset rowCount=\"1\" " ) ).size() );
+	}
+
+	@DisplayName( "Test an empty recordset has no rows" )
+	@Test
+	void testEmpty() {
+		try ( WDDXRowReader reader = new WDDXRowReader( WDDXUtil.serialize( Query.fromArray( Array.of( "id" ), Array.of( "integer" ), null ) ) ) ) {
+			assertFalse( reader.hasNext() );
+		}
+	}
+
+	@DisplayName( "Test packets without a recordset and oversized recordsets are rejected" )
+	@Test
+	void testInvalid() {
+		assertThrows( BoxRuntimeException.class, () -> new WDDXRowReader( WDDXUtil.serialize( Array.of( 1 ) ) ) );
+		String packet = WDDXUtil.serialize( Array.of( 1, 2, 3 ) ).replace( "<array length=\"3\">", "<recordset fieldNames=\"a\"><field name=\"a\">" )
+		    .replace( "</array>", "</field></recordset>" );
+		assertEquals( 3, readAll( packet ).size() );
+		try ( WDDXRowReader reader = new WDDXRowReader( packet, new WDDXLimits( 0, 0, 0, 0, 2 ) ) ) {
+			reader.next();
+			reader.next();
+			assertThrows( BoxRuntimeException.class, reader::next );
+		}
+	}
+
+	@DisplayName( "Test rows are read from files and streams" )
+	@Test
+	void testSources() throws IOException {
+		Key		cafe	= Key.of( "café" );
+		Query	query	= Query.fromArray( Array.of( "id", "café", "name" ), Array.of( "integer", "varchar", "varchar" ), null );
+		for ( int i = 1; i <= 3; i++ ) {
+			query.addRow( new Object[] { i, "crème brûlée € " + i, "row " + i } );
+		}
+		String	packet	= WDDXUtil.serialize( query );
+		Path	file	= Files.createTempFile( "wddx", ".xml" );
+		try {
+			Files.writeString( file, packet );
+			for ( Object source : List.of( file, file.toFile(), new ByteArrayInputStream( packet.getBytes( StandardCharsets.UTF_8 ) ),
+			    new StringReader( packet ), packet ) ) {
+				try ( WDDXRowReader reader = WDDXRowReader.of( source, WDDXLimits.NONE ) ) {
+					List<IStruct> rows = new ArrayList<>();
+					reader.forEachRemaining( rows::add );
+					assertEquals( 3, rows.size() );
+					assertEquals( "row 3", rows.get( 2 ).get( NAME ) );
+					assertEquals( "crème brûlée € 2", rows.get( 1 ).get( cafe ) );
+				}
+			}
+			assertThrows( BoxRuntimeException.class, () -> WDDXRowReader.of( file, new WDDXLimits( packet.length() - 1, 0, 0, 0, 0 ) ) );
+		} finally {
+			Files.delete( file );
+		}
+	}
+
+}
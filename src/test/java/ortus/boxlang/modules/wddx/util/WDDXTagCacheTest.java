@@ -0,0 +1,60 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.scopes.Key;
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXTagCacheTest {
+
+	@DisplayName( "Test tags are escaped once and reused" )
+	@Test
+	void testReuse() {
+		String tag = WDDXTagCache.VAR.get( "a&b\"c" );
+		assertEquals( "<var name=\"a&amp;b&quot;c\">", tag );
+		assertSame( tag, WDDXTagCache.VAR.get( "a&b\"c" ) );
+		assertEquals( "<field name=\"a&amp;b&quot;c\">", WDDXTagCache.FIELD.get( "a&b\"c" ) );
+	}
+
+	@DisplayName( "Test names differing only by case keep their own tags" )
+	@Test
+	void testCase() {
+		assertEquals( "<var name=\"Name\">", WDDXTagCache.VAR.get( "Name" ) );
+		assertEquals( "<var name=\"NAME\">", WDDXTagCache.VAR.get( "NAME" ) );
+		assertEquals(
+		    "<array length=\"2\"><struct><var name=\"Name\"><string>a</string></var></struct><struct><var name=\"NAME\"><string>b</string></var></struct></array>",
+		    WDDXUtil.serializeObject( Array.of( Struct.of( Key.of( "Name" ), "a" ), Struct.of( Key.of( "NAME" ), "b" ) ) ) );
+	}
+
+	@DisplayName( "Test long names are not cached" )
+	@Test
+	void testLongNames() {
+		int		size	= WDDXTagCache.FIELD.size();
+		String	name	= "x".repeat( 1000 );
+		assertEquals( "<field name=\"" + name + "\">", WDDXTagCache.FIELD.get( name ) );
+		assertEquals( size, WDDXTagCache.FIELD.size() );
+	}
+
+}
@@ -20,9 +20,18 @@ package ortus.boxlang.modules.wddx.util;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -35,6 +44,7 @@ import ortus.boxlang.runtime.types.IStruct;
 import ortus.boxlang.runtime.types.Query;
 import ortus.boxlang.runtime.types.QueryColumnType;
 import ortus.boxlang.runtime.types.Struct;
+import ortus.boxlang.runtime.types.exceptions.BoxRuntimeException;
 
 public class WDDXUtilTest {
 
@@ -73,7 +83,7 @@ public class WDDXUtilTest {
 		qry.setCell( Key.of( "col2" ), 1, 101 );
 		String wddx = WDDXUtil.serializeObject( qry );
 		assertEquals(
-		    "<recordset rowCount=\"3\" fieldNames=\"foo,col2\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"foo\"><string>bar</string><string>brad</string><string>luis</string></field><field name=\"col2\"><integer>100</integer><integer>101</integer><integer>42</integer></field></recordset>",
+		    "<recordset rowCount=\"3\" fieldNames=\"foo,col2\" type=\"ortus.boxlang.runtime.types.Query\"><field name=\"foo\"><string>bar</string><string>brad</string><string>luis</string></field><field name=\"col2\"><number>100</number><number>101</number><number>42</number></field></recordset>",
 		    wddx );
 	}
 
@@ -164,4 +174,245 @@ public class WDDXUtilTest {
 		assertEquals( "value with < and > and & chars", deserialized.get( Key.of( "<regex>" ) ) );
 	}
 
+	@DisplayName( "Test wddx recordset parsing" )
+	@Test
+	void testParseRecordset() {
+		String	wddx	= "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"2\" fieldNames=\"id,test\"><field name=\"id\"><number>1</number><number>2</number></field><field name=\"test\"><string>test</string><string>name</string></field></recordset></data></wddxPacket>";
+		Object	result	= WDDXUtil.parse( wddx );
+		assertTrue( result instanceof Query );
+		Query qry = ( Query ) result;
+		assertEquals( 2, qry.getData().size() );
+		assertEquals( "name", qry.getRowAsStruct( 1 ).get( Key.of( "test" ) ) );
+	}
+
+	@DisplayName( "Test wddx recordset parsing without a declared row count" )
+	@Test
+	void testParseRecordsetWithoutRowCount() {
+		String	wddx	= "<wddxPacket version=\"1.0\"><header/><data><recordset fieldNames=\"id,test\"><field name=\"id\"><number>1</number><number>2</number><number>3</number></field><field name=\"test\"><string>a</string></field></recordset></data></wddxPacket>";
+		Query	qry		= ( Query ) WDDXUtil.parse( wddx );
+		assertEquals( 3, qry.getData().size() );
+		assertEquals( "a", qry.getRowAsStruct( 0 ).get( Key.of( "test" ) ) );
+		assertEquals( null, qry.getRowAsStruct( 2 ).get( Key.of( "test" ) ) );
+	}
+
+	@DisplayName( "Test simple values decode to their native types" )
+	@Test
+	void testParseSimpleValues() {
+		String	wddx	= "<wddxPacket version=\"1.0\"><header/><data><array length=\"7\"><number>42</number><number>1.5</number><number>12345678901</number><boolean value=\"false\"/><null/><binary length=\"3\">AQID</binary><dateTime>2024-01-01T00:00:00Z</dateTime></array></data></wddxPacket>";
+		Array	result	= ( Array ) WDDXUtil.parse( wddx );
+		assertEquals( 42, result.get( 0 ) );
+		assertEquals( 1.5d, result.get( 1 ) );
+		assertEquals( 12345678901L, result.get( 2 ) );
+		assertEquals( false, result.get( 3 ) );
+		assertEquals( null, result.get( 4 ) );
+		assertThat( ( byte[] ) result.get( 5 ) ).isEqualTo( new byte[] { 1, 2, 3 } );
+		assertEquals( new DateTime( 2024, 1, 1, ZoneId.of( "UTC" ) ).getWrapped().toInstant(), ( ( DateTime ) result.get( 6 ) ).getWrapped().toInstant() );
+	}
+
+	@DisplayName( "Test wddx parsing expands char elements and entities" )
+	@Test
+	void testParseCharElements() {
+		String	wddx	= "<wddxPacket version=\"1.0\"><header/><data><string>a<char code=\"0a\"/>b &amp; c</string></data></wddxPacket>";
+		Object	result	= WDDXUtil.parse( wddx );
+		assertEquals( "a\nb & c", result );
+	}
+
+	@DisplayName( "Test malformed char codes are rejected as invalid packets" )
+	@Test
+	void testParseInvalidCharCode() {
+		for ( String code : new String[] { "<char code=\"zz\"/>", "<char code=\"110000\"/>", "<char/>" } ) {
+			String wddx = "<wddxPacket version=\"1.0\"><header/><data><string>a" + code + "</string></data></wddxPacket>";
+			assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXUtil.parse( wddx ) ).getMessage() )
+			    .contains( "not a valid WDDX packet" );
+		}
+		String wddx = "<wddxPacket version=\"1.0\"><header/><data><struct><var name=\"a&#xzz;\"><null/></var></struct></data></wddxPacket>";
+		assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXLazyParser.parse( wddx, WDDXLimits.NONE ) ).getMessage() )
+		    .contains( "not a valid WDDX packet" );
+	}
+
+	@DisplayName( "Test malformed binary data is rejected as an invalid packet" )
+	@Test
+	void testParseInvalidBinary() {
+		for ( String value : new String[] { "<binary>AQIDB</binary>", "<binary>AQ=ID</binary>", "<char code=\"zz\"/>" } ) {
+			String wddx = "<wddxPacket version=\"1.0\"><header/><data>" + value + "</data></wddxPacket>";
+			assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXUtil.parse( wddx ) ).getMessage() )
+			    .contains( "not a valid WDDX packet" );
+		}
+	}
+
+	@DisplayName( "Test a struct var or recordset field without a name is rejected as an invalid packet" )
+	@Test
+	void testParseMissingName() {
+		String[] packets = new String[] {
+		    "<wddxPacket version=\"1.0\"><header/><data><struct><var><null/></var></struct></data></wddxPacket>",
+		    "<wddxPacket version=\"1.0\"><header/><data><recordset rowCount=\"1\" fieldNames=\"id\"><field><number>1</number></field></recordset></data></wddxPacket>"
+		};
+		try ( WDDXParallelism parallelism = new WDDXParallelism( true, 2, 1, 1, 1 ) ) {
+			for ( String wddx : packets ) {
+				List<Runnable> parsers = List.of(
+				    () -> WDDXUtil.parse( wddx ),
+				    () -> WDDXLazyParser.parse( wddx, WDDXLimits.NONE ),
+				    () -> new WDDXParallelDecoder( parallelism, WDDXLimits.NONE ).parse( wddx ),
+				    () -> WDDXUtil.translateToJavascript( wddx, "v" ),
+				    () -> WDDXJavascriptTranscoder.toJSON( wddx, true )
+				);
+				for ( Runnable parser : parsers ) {
+					assertThat( assertThrows( BoxRuntimeException.class, parser::run ).getMessage() ).contains( "not a valid WDDX packet" );
+				}
+			}
+			assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXRowReader.of( packets[ 1 ], WDDXLimits.NONE ) ).getMessage() )
+			    .contains( "has no name attribute" );
+		}
+	}
+
+	@DisplayName( "Test content after the packet element is rejected as an invalid packet" )
+	@Test
+	void testParseTrailingContent() {
+		String packet = WDDXUtil.serialize( Array.of( 1, 2 ) );
+		assertEquals( 2, ( ( Array ) WDDXUtil.parse( packet + " <!-- end -->\n" ) ).size() );
+		try ( WDDXParallelism parallelism = new WDDXParallelism( true, 2, 1, 1, 1 ) ) {
+			assertEquals( 2, ( ( Array ) new WDDXParallelDecoder( parallelism, WDDXLimits.NONE ).parse( packet + " <!-- end -->\n" ) ).size() );
+			for ( String wddx : new String[] { packet + packet, packet + "text", packet.substring( 0, packet.length() - 1 ) } ) {
+				List<Runnable> parsers = List.of(
+				    () -> WDDXUtil.parse( wddx ),
+				    () -> WDDXLazyParser.parse( wddx, WDDXLimits.NONE ),
+				    () -> new WDDXParallelDecoder( parallelism, WDDXLimits.NONE ).parse( wddx ),
+				    () -> WDDXUtil.translateToJavascript( wddx, "v" )
+				);
+				for ( Runnable parser : parsers ) {
+					assertThat( assertThrows( BoxRuntimeException.class, parser::run ).getMessage() ).contains( "not a valid WDDX packet" );
+				}
+			}
+		}
+	}
+
+	@DisplayName( "Test parsing a non-wddx document throws" )
+	@Test
+	void testParseInvalidPacket() {
+		assertThrows( BoxRuntimeException.class, () -> WDDXUtil.parse( "<root><foo>bar</foo></root>" ) );
+	}
+
+	@DisplayName( "Test streaming serialization to a writer" )
+	@Test
+	void testSerializeToWriter() {
+		Array test = new Array();
+		for ( int i = 0; i < 5000; i++ ) {
+			test.add( "item" + i );
+		}
+		StringWriter writer = new StringWriter();
+		WDDXUtil.serialize( test, writer );
+		assertEquals( WDDXUtil.serialize( test ), writer.toString() );
+	}
+
+	@DisplayName( "Test streaming serialization flushes the writer as the buffer drains" )
+	@Test
+	void testSerializeFlushesWriter() {
+		Array test = new Array();
+		for ( int i = 0; i < 5000; i++ ) {
+			test.add( "item" + i );
+		}
+		AtomicInteger	flushes	= new AtomicInteger();
+		StringWriter	writer	= new StringWriter() {
+
+									@Override
+									public void flush() {
+										flushes.incrementAndGet();
+									}
+								};
+		WDDXUtil.serialize( test, writer );
+		assertTrue( flushes.get() > 5, "flushes: " + flushes.get() );
+		assertEquals( WDDXUtil.serialize( test ), writer.toString() );
+	}
+
+	@DisplayName( "Test deeply nested values are serialized and parsed without exhausting the stack" )
+	@Test
+	void testDeepNesting() {
+		int		levels	= 20000;
+		Array	root	= new Array();
+		Array	current	= root;
+		for ( int i = 1; i < levels; i++ ) {
+			IStruct	member	= new Struct();
+			Array	child	= new Array();
+			member.put( Key.of( "child" ), child );
+			current.add( member );
+			current = child;
+		}
+		current.add( "leaf" );
+
+		String packet = WDDXUtil.serialize( root );
+		assertThat( packet ).contains( "<var name=\"child\"><array length=\"1\"><string>leaf</string></array></var>" );
+
+		Query query = Query.fromArray( Array.of( "tree" ), Array.of( "object" ), null );
+		query.addRow( new Object[] { root } );
+		assertThat( WDDXUtil.serializeQuery( query ) ).contains( "<field name=\"tree\"><array length=\"1\"><struct>" );
+
+		Object value = WDDXParser.parse( packet, WDDXMetrics.Sample.NONE, WDDXLimits.NONE );
+		for ( int i = 1; i < levels; i++ ) {
+			value = ( ( IStruct ) ( ( Array ) value ).get( 0 ) ).get( Key.of( "child" ) );
+		}
+		assertEquals( "leaf", ( ( Array ) value ).get( 0 ) );
+	}
+
+	@DisplayName( "Test a value which contains itself is rejected" )
+	@Test
+	void testSerializeCycle() {
+		IStruct	parent	= new Struct();
+		Array	items	= new Array();
+		items.add( parent );
+		parent.put( Key.of( "items" ), items );
+		assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXUtil.serialize( parent ) ).getMessage() ).contains( "contains itself" );
+
+		WDDXParallelism	parallel	= new WDDXParallelism( true, 4, 2, 2, 0 );
+		Array			wide		= Array.of( 1, 2, 3, 4, 5 );
+		wide.add( wide );
+		assertThrows( BoxRuntimeException.class, () -> new WDDXSerializer().parallel( parallel ).writeValue( wide ) );
+	}
+
+	@DisplayName( "Test a value referenced more than once, but not by itself, is serialized each time" )
+	@Test
+	void testSerializeSharedReference() {
+		IStruct	shared	= Struct.of( "foo", "bar" );
+		String	wddx	= WDDXUtil.serializeObject( Array.of( shared, shared ) );
+		assertEquals( "<array length=\"2\">" + "<struct><var name=\"foo\"><string>bar</string></var></struct>".repeat( 2 ) + "</array>", wddx );
+
+		Object[] array = new Object[] { "x" };
+		assertEquals( "<array length=\"2\">" + "<array length=\"1\"><string>x</string></array>".repeat( 2 ) + "</array>",
+		    WDDXUtil.serializeObject( List.of( array, array ) ) );
+		Object[] self = new Object[ 1 ];
+		self[ 0 ] = self;
+		assertThat( assertThrows( BoxRuntimeException.class, () -> WDDXUtil.serialize( self ) ).getMessage() ).contains( "contains itself" );
+	}
+
+	@DisplayName( "Test packets are parsed from a file, stream or reader" )
+	@Test
+	void testParseSources() throws IOException {
+		IStruct	test	= Struct.of( "name", "caf\u00e9", "items", Array.of( 1, "two" ) );
+		String	packet	= WDDXUtil.serialize( test );
+		Path	file	= Files.createTempFile( "wddx", ".xml" );
+		try {
+			WDDXUtil.serialize( test, file );
+			assertEquals( "caf\u00e9", ( ( IStruct ) WDDXUtil.parse( file ) ).get( Key.of( "name" ) ) );
+			try ( InputStream stream = Files.newInputStream( file ) ) {
+				assertEquals( "caf\u00e9", ( ( IStruct ) WDDXUtil.parse( stream ) ).get( Key.of( "name" ) ) );
+			}
+			assertEquals( 2, ( ( Array ) ( ( IStruct ) WDDXUtil.parse( new StringReader( packet ) ) ).get( Key.of( "items" ) ) ).size() );
+			assertEquals( 2,
+			    ( ( Array ) ( ( IStruct ) WDDXUtil.parseSource( file.toFile(), false, WDDXLimits.getInstance() ) ).get( Key.of( "items" ) ) ).size() );
+			assertThrows( BoxRuntimeException.class, () -> WDDXUtil.parse( file, new WDDXLimits( 10, 0, 0, 0, 0 ) ) );
+		} finally {
+			Files.deleteIfExists( file );
+		}
+	}
+
+	@DisplayName( "Test an empty file is rejected" )
+	@Test
+	void testParseEmptyFile() throws IOException {
+		Path file = Files.createTempFile( "wddx", ".xml" );
+		try {
+			assertThrows( BoxRuntimeException.class, () -> WDDXUtil.parse( file ) );
+		} finally {
+			Files.deleteIfExists( file );
+		}
+	}
+
 }
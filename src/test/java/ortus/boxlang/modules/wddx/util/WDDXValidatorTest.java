@@ -0,0 +1,88 @@
+/**
+ * [BoxLang]
+ *
+ * Copyright [2023] [Ortus Solutions, Corp]
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package ortus.boxlang.modules.wddx.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import ortus.boxlang.runtime.types.Array;
+import ortus.boxlang.runtime.types.Query;
+import ortus.boxlang.runtime.types.Struct;
+
+public class WDDXValidatorTest {
+
+	private static String packet( String data ) {
+		return "<wddxPacket version=\"1.0\"><header><comment>test</comment></header><data>" + data + "</data></wddxPacket>";
+	}
+
+	@DisplayName( "Test the root element check" )
+	@Test
+	void testRoot() {
+		assertTrue( WDDXValidator.isWDDX( packet( "" ), false ) );
+		assertTrue( WDDXValidator.isWDDX( "<?xml version=\"1.0\"?>\n" + packet( "<string>foo</string>" ), false ) );
+		assertTrue( WDDXValidator.isWDDX( "\n  " + packet( "" ), false ) );
+		assertFalse( WDDXValidator.isWDDX( "foo", false ) );
+		assertFalse( WDDXValidator.isWDDX( "", false ) );
+		assertFalse( WDDXValidator.isWDDX( "<root><wddxPacket/></root>", false ) );
+		assertFalse( WDDXValidator.isWDDX( "<wddxPacket><data>", false ) );
+	}
+
+	@DisplayName( "Test serialized packets pass strict validation" )
+	@Test
+	void testSerializedPackets() {
+		Query query = Query.fromArray( Array.of( "id", "name" ), Array.of( "integer", "varchar" ), null );
+		query.addRow( new Object[] { 1, "a" } );
+		query.addRow( new Object[] { 2, "b" } );
+		Object value = Struct.of( "query", query, "list", Array.of( 1, true, null, "<&>" ), "nested", Struct.of( "empty", new Struct() ) );
+		assertTrue( WDDXValidator.isWDDX( WDDXUtil.serialize( value ), true ) );
+	}
+
+	@DisplayName( "Test strict validation of the packet structure" )
+	@Test
+	void testStrict() {
+		assertTrue( WDDXValidator.isWDDX( packet( "<string>a<char code=\"0c\"/>b</string>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<string>a</string><string>b</string>" ), true ) );
+		assertTrue( WDDXValidator.isWDDX( packet( "<integer>1</integer>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<integer>one</integer>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<var name=\"a\"><null/></var>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<number>one</number>" ), true ) );
+		for ( String number : new String[] { "NaN", "Infinity", "-Infinity", "1f", "2d", "0x1p3", "" } ) {
+			assertFalse( WDDXValidator.isWDDX( packet( "<number>" + number + "</number>" ), true ), number );
+		}
+		assertTrue( WDDXValidator.isWDDX( packet( "<number> -1.5e3 </number>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<boolean value=\"yes\"/>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<struct><var><string>a</string></var></struct>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<struct>text<var name=\"a\"><null/></var></struct>" ), true ) );
+		assertFalse( WDDXValidator.isWDDX( packet( "<recordset rowCount=\"2\"><field name=\"id\"><number>1</number></field></recordset>" ), true ) );
+	}
+
+	@DisplayName( "Test strict validation rejects values nested beyond the depth limit" )
+	@Test
+	void testDepth() {
+		String nested = "<array>".repeat( 100_000 ) + "</array>".repeat( 100_000 );
+		assertTrue( WDDXValidator.isWDDX( packet( nested ), false ) );
+		assertFalse( WDDXValidator.isWDDX( packet( nested ), true ) );
+		assertTrue( WDDXValidator.isWDDX( packet( "<array><array><null/></array></array>" ), true ) );
+	}
+
+}